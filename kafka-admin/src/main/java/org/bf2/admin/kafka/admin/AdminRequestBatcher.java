@@ -0,0 +1,203 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.kafka.admin.Config;
+import io.vertx.kafka.admin.ConsumerGroupDescription;
+import io.vertx.kafka.admin.KafkaAdminClient;
+import io.vertx.kafka.admin.TopicDescription;
+import io.vertx.kafka.client.common.ConfigResource;
+import io.vertx.kafka.client.common.Node;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.bf2.admin.kafka.admin.model.ErrorType;
+import org.jboss.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Splits admin requests covering many resources (e.g. describing every topic in a
+ * large cluster) into chunks of a configurable size. A bounded number of chunks are
+ * requested concurrently and the results merged as each chunk completes. The first
+ * failed chunk fails the request and no further chunks are sent, e.g. when the
+ * client is not authorized to describe a topic.
+ */
+@ApplicationScoped
+public class AdminRequestBatcher {
+
+    private static final Logger log = Logger.getLogger(AdminRequestBatcher.class);
+
+    private static final String CHUNK_TIMER = "admin_chunk_request_time";
+    private static final String FAN_OUT_SUMMARY = "admin_request_fanout";
+    private static final String OPERATION_TAG = "operation";
+    private static final String RESULT_TAG = "result";
+
+    @Inject
+    KafkaAdminConfigRetriever config;
+
+    @Inject
+    HttpMetrics metrics;
+
+    public Future<Map<String, TopicDescription>> describeTopics(KafkaAdminClient ac, List<String> topicNames) {
+        return execute("describeTopics", topicNames, ac::describeTopics);
+    }
+
+    public Future<Map<ConfigResource, Config>> describeConfigs(KafkaAdminClient ac, List<ConfigResource> resources) {
+        return execute("describeConfigs", resources, ac::describeConfigs);
+    }
+
+    /**
+     * Fetch the committed offsets of each of the given consumer groups. The admin client
+     * supports fetching the offsets of a single group per request, so one request is
+     * sent per group with no more than the configured number of requests in flight.
+     * Requests are ordered to alternate between the groups' coordinators, spreading
+     * the in-flight requests evenly over the coordinating brokers.
+     */
+    public Future<Map<String, Map<TopicPartition, OffsetAndMetadata>>> listConsumerGroupOffsets(KafkaAdminClient ac,
+                                                                                                 Collection<ConsumerGroupDescription> groups) {
+        Map<Integer, List<String>> groupsByCoordinator = new LinkedHashMap<>();
+
+        for (ConsumerGroupDescription group : groups) {
+            Node coordinator = group.getCoordinator();
+            int coordinatorId = coordinator != null ? coordinator.getId() : -1;
+            groupsByCoordinator.computeIfAbsent(coordinatorId, k -> new ArrayList<>()).add(group.getGroupId());
+        }
+
+        List<List<String>> requests = new ArrayList<>(groups.size());
+        List<Iterator<String>> coordinators = groupsByCoordinator.values()
+                .stream()
+                .map(List::iterator)
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        while (!coordinators.isEmpty()) {
+            for (Iterator<Iterator<String>> c = coordinators.iterator(); c.hasNext();) {
+                Iterator<String> coordinatorGroups = c.next();
+
+                if (coordinatorGroups.hasNext()) {
+                    requests.add(List.of(coordinatorGroups.next()));
+                } else {
+                    c.remove();
+                }
+            }
+        }
+
+        return executeChunks("listConsumerGroupOffsets",
+                       requests,
+                       config.getGroupOffsetsConcurrency(),
+                       groupId -> ac.listConsumerGroupOffsets(groupId.get(0))
+                           .map(offsets -> Collections.singletonMap(groupId.get(0), offsets)));
+    }
+
+    <K, V> Future<Map<K, V>> execute(String operation, List<K> keys, Function<List<K>, Future<Map<K, V>>> request) {
+        final int chunkSize = Math.max(1, config.getDescribeChunkSize());
+        List<List<K>> chunks = new ArrayList<>();
+
+        for (int start = 0; start < keys.size(); start += chunkSize) {
+            chunks.add(keys.subList(start, Math.min(start + chunkSize, keys.size())));
+        }
+
+        if (chunks.size() < 2) {
+            recordFanOut(operation, 1);
+            return timed(operation, keys, request);
+        }
+
+        return executeChunks(operation, chunks, config.getDescribeChunkConcurrency(), request);
+    }
+
+    <K, V> Future<Map<K, V>> executeChunks(String operation,
+                                           List<List<K>> chunks,
+                                           int maxConcurrency,
+                                           Function<List<K>, Future<Map<K, V>>> request) {
+
+        recordFanOut(operation, chunks.size());
+
+        if (chunks.isEmpty()) {
+            return Future.succeededFuture(new HashMap<>());
+        }
+
+        final int concurrency = Math.max(1, Math.min(maxConcurrency, chunks.size()));
+        log.debugf("%s using %d requests, concurrency %d", operation, chunks.size(), concurrency);
+
+        Promise<Map<K, V>> promise = Promise.promise();
+        Map<K, V> results = new ConcurrentHashMap<>();
+        AtomicInteger nextChunk = new AtomicInteger(0);
+        AtomicInteger remaining = new AtomicInteger(chunks.size());
+
+        for (int i = 0; i < concurrency; i++) {
+            requestNext(operation, chunks, nextChunk, remaining, request, results, promise);
+        }
+
+        return promise.future();
+    }
+
+    <K, V> void requestNext(String operation,
+                            List<List<K>> chunks,
+                            AtomicInteger nextChunk,
+                            AtomicInteger remaining,
+                            Function<List<K>, Future<Map<K, V>>> request,
+                            Map<K, V> results,
+                            Promise<Map<K, V>> promise) {
+
+        if (promise.future().isComplete()) {
+            // A previous chunk failed, do not send any more requests
+            return;
+        }
+
+        int index = nextChunk.getAndIncrement();
+
+        if (index >= chunks.size()) {
+            return;
+        }
+
+        timed(operation, chunks.get(index), request)
+            .onSuccess(chunkResult -> {
+                results.putAll(chunkResult);
+
+                if (remaining.decrementAndGet() == 0) {
+                    promise.tryComplete(results);
+                } else {
+                    requestNext(operation, chunks, nextChunk, remaining, request, results, promise);
+                }
+            })
+            .onFailure(error -> {
+                if (ErrorType.isCausedBy(error, AuthorizationException.class)) {
+                    log.debugf("%s chunk %d not authorized, remaining chunks cancelled", operation, index);
+                }
+                promise.tryFail(error);
+            });
+    }
+
+    void recordFanOut(String operation, int requestCount) {
+        metrics.getRegistry().summary(FAN_OUT_SUMMARY, OPERATION_TAG, operation).record(requestCount);
+    }
+
+    <K, V> Future<Map<K, V>> timed(String operation, List<K> keys, Function<List<K>, Future<Map<K, V>>> request) {
+        Timer.Sample sample = Timer.start();
+        Future<Map<K, V>> result;
+
+        try {
+            result = request.apply(keys);
+        } catch (RuntimeException e) {
+            result = Future.failedFuture(e);
+        }
+
+        return result.onComplete(r -> sample.stop(metrics.getRegistry()
+                .timer(CHUNK_TIMER, OPERATION_TAG, operation, RESULT_TAG, r.succeeded() ? "success" : "failure")));
+    }
+}
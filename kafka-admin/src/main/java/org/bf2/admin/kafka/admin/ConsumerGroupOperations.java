@@ -1,16 +1,19 @@
 package org.bf2.admin.kafka.admin;
 
+import io.vertx.core.AsyncResult;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.kafka.admin.ConsumerGroupDescription;
-import io.vertx.kafka.admin.ConsumerGroupListing;
 import io.vertx.kafka.admin.KafkaAdminClient;
 import io.vertx.kafka.admin.ListOffsetsResultInfo;
 import io.vertx.kafka.admin.MemberDescription;
 import io.vertx.kafka.admin.OffsetSpec;
+import io.vertx.kafka.admin.TopicDescription;
 import io.vertx.kafka.client.common.TopicPartition;
 import io.vertx.kafka.client.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListConsumerGroupsOptions;
 import org.apache.kafka.common.ConsumerGroupState;
 import org.apache.kafka.common.errors.GroupIdNotFoundException;
 import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
@@ -30,14 +33,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.ToLongFunction;
 import java.util.regex.Pattern;
@@ -53,47 +59,58 @@ public class ConsumerGroupOperations {
     private static final Types.ConsumerGroupDescriptionSortParams BLANK_ORDER =
             new Types.ConsumerGroupDescriptionSortParams(Types.ConsumerGroupDescriptionOrderKey.PARTITION, Types.SortDirectionEnum.ASC);
 
-    public static CompletionStage<PagedResponse<Types.ConsumerGroup>> getGroupList(KafkaAdminClient ac, Pattern topicPattern, Pattern groupIdPattern,
+    /**
+     * List the consumer groups matching the given patterns and states. The group's
+     * committed offsets and partition end offsets are only fetched when the requested
+     * fields include the group's consumers or metrics, or when the groups are filtered
+     * by topic. Otherwise, the groups are only described.
+     *
+     * When sorting by name without a topic filter, the group IDs are sorted and
+     * paged before any group is described, so that only the groups on the requested
+     * page are described.
+     */
+    public static CompletionStage<PagedResponse<Types.ConsumerGroup>> getGroupList(Admin client, KafkaAdminClient ac, AdminRequestBatcher batcher, EndOffsetCache offsetCache,
+                                                                                   Pattern topicPattern, Pattern groupIdPattern, Set<ConsumerGroupState> states, Set<Types.ConsumerGroupField> fields,
                                                                                    Types.DeprecatedPageRequest pageRequest, Types.ConsumerGroupSortParams orderByInput) {
         Promise<PagedResponse<Types.ConsumerGroup>> prom = Promise.promise();
-
-        // Obtain list of all consumer groups
-        ac.listConsumerGroups()
-            .map(groups -> groups.stream()
-                 .map(ConsumerGroupListing::getGroupId)
+        final boolean topicFiltered = !topicPattern.pattern().equals(MATCH_ALL.pattern());
+        final boolean offsetsRequired = fields.contains(Types.ConsumerGroupField.CONSUMERS)
+                || fields.contains(Types.ConsumerGroupField.METRICS)
+                || topicFiltered;
+        final boolean pageFirst = !topicFiltered && Types.ConsumerGroupOrderKey.NAME.equals(orderByInput.getField());
+        final boolean descending = Types.SortDirectionEnum.DESC.equals(orderByInput.getOrder());
+
+        final Function<List<String>, Future<List<Types.ConsumerGroup>>> describe = groupIds ->
+            (offsetsRequired
+                    ? fetchDescriptions(ac, batcher, offsetCache, groupIds, topicPattern, -1, BLANK_ORDER)
+                    : describeGroups(ac, groupIds))
+                .map(groupDescriptions -> groupDescriptions
+                     // Omit groups without partitions of matching topics
+                     .filter(group -> !topicFiltered || !group.getConsumers().isEmpty())
+                     .map(group -> selectFields(group, fields))
+                     .collect(Collectors.<Types.ConsumerGroup>toList()));
+
+        // Obtain list of all consumer groups in the requested states
+        listGroupIds(client, states)
+            .map(groupIds -> groupIds.stream()
                  // Include only those group matching query parameter (or all if not specified)
                  .filter(groupId -> groupIdPattern.matcher(groupId).find())
                  .collect(Collectors.toList()))
-            // Obtain description for all selected consumer groups
-            .compose(groupDescriptions -> fetchDescriptions(ac, groupDescriptions, topicPattern, -1, BLANK_ORDER))
-            .map(groupDescriptions -> groupDescriptions
-                 .sorted(Types.SortDirectionEnum.DESC.equals(orderByInput.getOrder()) ?
-                     new ConsumerGroupComparator(orderByInput.getField()).reversed() :
-                         new ConsumerGroupComparator(orderByInput.getField()))
-                 .collect(Collectors.<Types.ConsumerGroup>toList()))
-            .map(list -> {
-                if (pageRequest.isDeprecatedFormat()) {
-                    if (pageRequest.getOffset() > list.size()) {
-                        throw new AdminServerException(ErrorType.INVALID_REQUEST, "Offset (" + pageRequest.getOffset() + ") cannot be greater than consumer group list size (" + list.size() + ")");
-                    }
-
-                    int tmpLimit = pageRequest.getLimit();
-                    if (tmpLimit == 0) {
-                        tmpLimit = list.size();
-                    }
-
-                    var response = new Types.ConsumerGroupList();
-                    response.setLimit(pageRequest.getLimit());
-                    response.setOffset(pageRequest.getOffset());
-
-                    var croppedList = list.subList(pageRequest.getOffset(), Math.min(pageRequest.getOffset() + tmpLimit, list.size()));
-                    response.setCount(croppedList.size());
-                    response.setItems(croppedList);
-
-                    return response;
+            .compose(groupIds -> {
+                if (pageFirst) {
+                    List<Types.ConsumerGroup> listed = groupIds.stream()
+                            .map(groupId -> new Types.ConsumerGroup(groupId, null, null, null))
+                            .collect(Collectors.toList());
+                    PagedResponse<Types.ConsumerGroup> page = toPage(ConsumerGroupComparator.sort(listed, orderByInput.getField(), descending), pageRequest);
+
+                    // Obtain description for the consumer groups on the requested page only
+                    return describe.apply(page.getItems().stream().map(Types.ConsumerGroup::getGroupId).collect(Collectors.toList()))
+                        .map(groups -> replaceItems(page, groups));
                 }
 
-                return PagedResponse.forPage(pageRequest, Types.ConsumerGroup.class, list);
+                // Obtain description for all selected consumer groups
+                return describe.apply(groupIds)
+                    .map(groups -> toPage(ConsumerGroupComparator.sort(groups, orderByInput.getField(), descending), pageRequest));
             })
             .onComplete(finalRes -> {
                 if (finalRes.failed()) {
@@ -101,12 +118,146 @@ public class ConsumerGroupOperations {
                 } else {
                     prom.complete(finalRes.result());
                 }
-                ac.close();
             });
 
         return prom.future().toCompletionStage();
     }
 
+    /**
+     * List the IDs of the consumer groups in the given states, or all groups when
+     * no states are given.
+     */
+    static Future<List<String>> listGroupIds(Admin client, Set<ConsumerGroupState> states) {
+        Promise<List<String>> promise = Promise.promise();
+
+        client.listConsumerGroups(new ListConsumerGroupsOptions().inStates(states))
+            .all()
+            .whenComplete((listings, error) -> {
+                if (error != null) {
+                    promise.fail(error);
+                } else {
+                    promise.complete(listings.stream()
+                                     .map(org.apache.kafka.clients.admin.ConsumerGroupListing::groupId)
+                                     .collect(Collectors.toList()));
+                }
+            });
+
+        return promise.future();
+    }
+
+    /**
+     * Parse a comma-separated list of consumer group state names, ignoring case.
+     *
+     * @return the set of states, empty when the value is null or blank
+     * @throws AdminServerException when a state name is not known
+     */
+    public static Set<ConsumerGroupState> parseStates(String value) {
+        Set<ConsumerGroupState> states = EnumSet.noneOf(ConsumerGroupState.class);
+
+        if (value != null && !value.isBlank()) {
+            for (String name : value.split(",")) {
+                try {
+                    states.add(ConsumerGroupState.valueOf(name.trim().toUpperCase(Locale.ENGLISH)));
+                } catch (IllegalArgumentException e) {
+                    throw new AdminServerException(ErrorType.INVALID_REQUEST, "Unknown consumer group state: " + name.trim());
+                }
+            }
+        }
+
+        return states;
+    }
+
+    /**
+     * Select the requested page from the sorted list of groups.
+     */
+    static PagedResponse<Types.ConsumerGroup> toPage(List<Types.ConsumerGroup> list, Types.DeprecatedPageRequest pageRequest) {
+        if (pageRequest.isDeprecatedFormat()) {
+            if (pageRequest.getOffset() > list.size()) {
+                throw new AdminServerException(ErrorType.INVALID_REQUEST, "Offset (" + pageRequest.getOffset() + ") cannot be greater than consumer group list size (" + list.size() + ")");
+            }
+
+            int tmpLimit = pageRequest.getLimit();
+            if (tmpLimit == 0) {
+                tmpLimit = list.size();
+            }
+
+            var response = new Types.ConsumerGroupList();
+            response.setLimit(pageRequest.getLimit());
+            response.setOffset(pageRequest.getOffset());
+
+            var croppedList = list.subList(pageRequest.getOffset(), Math.min(pageRequest.getOffset() + tmpLimit, list.size()));
+            response.setCount(croppedList.size());
+            response.setItems(croppedList);
+
+            return response;
+        }
+
+        return PagedResponse.forPage(pageRequest, Types.ConsumerGroup.class, list);
+    }
+
+    /**
+     * Replace the listed groups of the page with their descriptions, retaining the
+     * order of the page. Groups no longer present when described are omitted.
+     */
+    static PagedResponse<Types.ConsumerGroup> replaceItems(PagedResponse<Types.ConsumerGroup> page, List<Types.ConsumerGroup> descriptions) {
+        Map<String, Types.ConsumerGroup> described = new HashMap<>(descriptions.size());
+
+        for (Types.ConsumerGroup group : descriptions) {
+            described.put(group.getGroupId(), group);
+        }
+
+        List<Types.ConsumerGroup> items = page.getItems()
+                .stream()
+                .map(listed -> described.get(listed.getGroupId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        page.setItems(items);
+
+        if (page instanceof Types.PagedResponseDeprecated) {
+            ((Types.PagedResponseDeprecated<Types.ConsumerGroup>) page).setCount(items.size());
+        }
+
+        return page;
+    }
+
+    /**
+     * Describe the groups without fetching their offsets, providing only the
+     * groups' IDs and states.
+     */
+    static Future<Stream<Types.ConsumerGroup>> describeGroups(KafkaAdminClient ac, List<String> groupIds) {
+        if (groupIds.isEmpty()) {
+            return Future.succeededFuture(Stream.empty());
+        }
+
+        return ac.describeConsumerGroups(groupIds)
+            .map(descriptions -> descriptions.values()
+                 .stream()
+                 .map(description -> {
+                     Types.ConsumerGroup group = new Types.ConsumerGroup();
+                     group.setGroupId(description.getGroupId());
+                     group.setState(description.getState());
+                     return group;
+                 }));
+    }
+
+    /**
+     * Remove the properties of the group not included in the requested fields.
+     * The required list of consumers is emptied rather than removed.
+     */
+    static Types.ConsumerGroup selectFields(Types.ConsumerGroup group, Set<Types.ConsumerGroupField> fields) {
+        if (!fields.contains(Types.ConsumerGroupField.STATE)) {
+            group.setState(null);
+        }
+        if (!fields.contains(Types.ConsumerGroupField.CONSUMERS)) {
+            group.setConsumers(Collections.emptyList());
+        }
+        if (!fields.contains(Types.ConsumerGroupField.METRICS)) {
+            group.setMetrics(null);
+        }
+        return group;
+    }
+
     public static CompletionStage<List<String>> deleteGroup(KafkaAdminClient ac, List<String> groupsToDelete) {
         Promise<List<String>> prom = Promise.promise();
         ac.deleteConsumerGroups(groupsToDelete, res -> {
@@ -115,264 +266,380 @@ public class ConsumerGroupOperations {
             } else {
                 prom.complete(groupsToDelete);
             }
-            ac.close();
         });
 
         return prom.future().toCompletionStage();
     }
 
-    @SuppressWarnings({"checkstyle:JavaNCSS", "checkstyle:MethodLength"})
-    public static CompletionStage<PagedResponse<TopicPartitionResetResult>> resetGroupOffset(KafkaAdminClient ac, Types.ConsumerGroupOffsetResetParameters parameters) {
-        Promise<PagedResponse<TopicPartitionResetResult>> prom = Promise.promise();
+    /**
+     * Reset the committed offsets of a consumer group. The reset is planned using
+     * at most three rounds of requests to Kafka:
+     *
+     * <ol>
+     * <li>the group's committed offsets, the group's members, and the requested
+     * topics are fetched in parallel
+     * <li>the target offsets of the partitions to reset are listed, in parallel with
+     * the description of the group's topics when no topics were requested. The
+     * partitions are validated once both have completed.
+     * <li>the group's offsets are altered, unless the request is a dry run
+     * </ol>
+     *
+     * The result contains the group's committed offsets, replaced by the new offsets
+     * of the reset partitions. For a dry run, the offsets are those that would have
+     * been committed.
+     */
+    public static CompletionStage<PagedResponse<TopicPartitionResetResult>> resetGroupOffset(KafkaAdminClient ac, AdminRequestBatcher batcher, Types.ConsumerGroupOffsetResetParameters parameters) {
+        final String groupId = parameters.getGroupId();
+        final OffsetSpec offsetSpec = getOffsetSpec(parameters);
+        final List<String> requestedTopics = getRequestedTopics(parameters);
+
+        Future<Map<TopicPartition, OffsetAndMetadata>> committed = ac.listConsumerGroupOffsets(groupId);
+        Future<Map<String, ConsumerGroupDescription>> group = ac.describeConsumerGroups(List.of(groupId));
+        Future<Map<String, TopicDescription>> requested = describeTopics(ac, batcher, requestedTopics);
+
+        return CompositeFuture.all(committed, group, requested)
+            .compose(nothing -> {
+                final Set<TopicPartition> partitions = getPartitionsToReset(parameters, committed.result(), requested.result());
+                final Future<Map<String, TopicDescription>> topics;
+
+                if (requestedTopics.isEmpty()) {
+                    topics = describeTopics(ac, batcher, getTopicNames(partitions));
+                } else {
+                    topics = requested;
+                }
 
-        switch (parameters.getOffset()) {
-            case EARLIEST:
-            case LATEST:
-                break;
-            default:
-                if (parameters.getValue() == null) {
-                    throw new AdminServerException(ErrorType.INVALID_REQUEST, "value is required when " + parameters.getOffset().getValue() + " offset is used.");
+                Future<Void> validation = topics.map(described -> {
+                    validateGroupResettable(groupId, described, getAssignments(group.result().values()), committed.result(), partitions);
+                    return null;
+                });
+
+                return validateThenList(validation, listOffsets(ac, partitions, offsetSpec));
+            })
+            .compose(listed -> commitOffsets(ac, parameters, groupId, committed.result(), getNewOffsets(parameters, committed.result(), listed)))
+            .map(result -> Types.PagedResponse.forItems(Types.TopicPartitionResetResult.class, result))
+            .toCompletionStage();
+    }
+
+    /**
+     * Reset the committed offsets of several consumer groups using the same offset
+     * parameters. The groups, their committed offsets, and the requested topics are
+     * fetched together, and the target offset of each partition is listed once and
+     * shared by all groups resetting the partition. The offsets of each group are
+     * then validated and altered, with no more than the given number of groups
+     * altered concurrently.
+     *
+     * The result of each group is given to the result handler as soon as the group's
+     * offsets have been altered, or the group could not be reset, e.g. because the
+     * group has active consumers of a partition to reset.
+     *
+     * @param ac the admin client
+     * @param batcher batcher used to describe topics and list the groups' committed offsets
+     * @param parameters the groups to reset and offset parameters shared by all groups
+     * @param concurrency maximum number of groups altered concurrently
+     * @param resultHandler receives the result of each group, possibly concurrently
+     * @return future completed once all groups' results have been handled, or failed
+     *         when the offsets could not be planned for any group, e.g. because a
+     *         requested partition does not exist. No results are handled when failed.
+     */
+    public static Future<Void> resetGroupOffsets(KafkaAdminClient ac,
+                                                 AdminRequestBatcher batcher,
+                                                 Types.ConsumerGroupsOffsetResetParameters parameters,
+                                                 int concurrency,
+                                                 BiConsumer<String, AsyncResult<List<TopicPartitionResetResult>>> resultHandler) {
+        final OffsetSpec offsetSpec = getOffsetSpec(parameters);
+        final List<String> groupIds = parameters.getGroupIds().stream().distinct().collect(Collectors.toList());
+        final List<String> requestedTopics = getRequestedTopics(parameters);
+
+        Future<Map<String, ConsumerGroupDescription>> groups = ac.describeConsumerGroups(groupIds);
+        Future<Map<String, Map<TopicPartition, OffsetAndMetadata>>> committed = groups
+                .compose(descriptions -> batcher.listConsumerGroupOffsets(ac, descriptions.values()));
+        Future<Map<String, TopicDescription>> requested = describeTopics(ac, batcher, requestedTopics);
+        Map<String, Set<TopicPartition>> groupPartitions = new HashMap<>();
+
+        return CompositeFuture.all(committed, requested)
+            .compose(nothing -> {
+                groupIds.forEach(groupId -> groupPartitions.put(groupId, getPartitionsToReset(parameters,
+                                                                                              committed.result().getOrDefault(groupId, Collections.emptyMap()),
+                                                                                              requested.result())));
+
+                final Set<TopicPartition> partitions = groupPartitions.values()
+                        .stream()
+                        .flatMap(Collection::stream)
+                        .collect(Collectors.toSet());
+                final Future<Map<String, TopicDescription>> topics;
+
+                if (requestedTopics.isEmpty()) {
+                    topics = describeTopics(ac, batcher, getTopicNames(partitions));
+                } else {
+                    topics = requested;
                 }
+
+                // Partitions must exist for all groups, only active consumers are validated per group
+                Future<Map<String, TopicDescription>> validation = topics.map(described -> {
+                    validatePartitionsResettable(described, Collections.emptyMap(), partitions);
+                    return described;
+                });
+
+                return validateThenList(validation, listOffsets(ac, partitions, offsetSpec))
+                        .map(listed -> Map.entry(validation.result(), listed));
+            })
+            .compose(plan -> batcher.executeChunks("alterConsumerGroupOffsets",
+                                                   groupIds.stream().map(List::of).collect(Collectors.toList()),
+                                                   concurrency,
+                                                   groupId -> {
+                                                       String id = groupId.get(0);
+
+                                                       return resetPlannedGroup(ac,
+                                                                                parameters,
+                                                                                id,
+                                                                                groups.result().get(id),
+                                                                                committed.result().getOrDefault(id, Collections.emptyMap()),
+                                                                                groupPartitions.get(id),
+                                                                                plan.getKey(),
+                                                                                plan.getValue())
+                                                           .transform(result -> {
+                                                               resultHandler.accept(id, result);
+                                                               return Future.succeededFuture(Collections.emptyMap());
+                                                           });
+                                                   }))
+            .mapEmpty();
+    }
+
+    static Future<List<TopicPartitionResetResult>> resetPlannedGroup(KafkaAdminClient ac,
+                                                                     Types.ConsumerGroupOffsetResetParameters parameters,
+                                                                     String groupId,
+                                                                     ConsumerGroupDescription group,
+                                                                     Map<TopicPartition, OffsetAndMetadata> committed,
+                                                                     Set<TopicPartition> partitions,
+                                                                     Map<String, TopicDescription> topics,
+                                                                     Map<TopicPartition, ListOffsetsResultInfo> listed) {
+        Map<TopicPartition, ListOffsetsResultInfo> groupListed = new HashMap<>(partitions.size());
+
+        try {
+            validateGroupResettable(groupId, topics, getAssignments(group != null ? List.of(group) : Collections.emptyList()), committed, partitions);
+        } catch (AdminServerException e) {
+            return Future.failedFuture(e);
         }
 
-        Set<TopicPartition> topicPartitionsToReset = new HashSet<>();
+        partitions.forEach(partition -> groupListed.put(partition, listed.get(partition)));
 
-        @SuppressWarnings("rawtypes") // CompositeFuture#join requires raw type
-        List<Future> promises = new ArrayList<>();
+        return commitOffsets(ac, parameters, groupId, committed, getNewOffsets(parameters, committed, groupListed));
+    }
 
-        if (parameters.getTopics() == null || parameters.getTopics().isEmpty()) {
-            // reset everything
-            Promise<Void> promise = Promise.promise();
-            promises.add(promise.future());
-
-            ac.listConsumerGroupOffsets(parameters.getGroupId())
-                    .onSuccess(consumerGroupOffsets -> {
-                        consumerGroupOffsets.entrySet().forEach(offset -> {
-                            topicPartitionsToReset.add(offset.getKey());
-                        });
-                        promise.complete();
-                    })
-                    .onFailure(promise::fail);
+    static List<String> getRequestedTopics(Types.ConsumerGroupOffsetResetParameters parameters) {
+        return Optional.ofNullable(parameters.getTopics())
+                .orElseGet(Collections::emptyList)
+                .stream()
+                .map(Types.TopicsToResetOffset::getTopic)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    static List<String> getTopicNames(Set<TopicPartition> partitions) {
+        return partitions.stream()
+                .map(TopicPartition::getTopic)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    static Future<Map<TopicPartition, ListOffsetsResultInfo>> listOffsets(KafkaAdminClient ac, Set<TopicPartition> partitions, OffsetSpec offsetSpec) {
+        if (partitions.isEmpty()) {
+            return Future.succeededFuture(Collections.emptyMap());
+        }
+
+        return ac.listOffsets(partitions.stream().collect(Collectors.toMap(Function.identity(), p -> offsetSpec)));
+    }
+
+    /**
+     * Await both the validation and the listing of offsets. Validation errors take
+     * precedence over errors listing the offsets of invalid partitions.
+     */
+    static <T> Future<T> validateThenList(Future<?> validation, Future<T> listing) {
+        return CompositeFuture.join(validation, listing)
+                .transform(result -> validation.failed() ? Future.failedFuture(validation.cause()) : listing);
+    }
+
+    /**
+     * Alter the group's offsets, unless the request is a dry run.
+     *
+     * @return the group's committed offsets, replaced by the new offsets
+     */
+    static Future<List<TopicPartitionResetResult>> commitOffsets(KafkaAdminClient ac,
+                                                                 Types.ConsumerGroupOffsetResetParameters parameters,
+                                                                 String groupId,
+                                                                 Map<TopicPartition, OffsetAndMetadata> committed,
+                                                                 Map<TopicPartition, OffsetAndMetadata> newOffsets) {
+        final Future<Void> alter;
+
+        if (parameters.isDryRun()) {
+            alter = Future.succeededFuture();
         } else {
-            parameters.getTopics().forEach(paramPartition -> {
-                Promise<Void> promise = Promise.promise();
-                promises.add(promise.future());
-                if (paramPartition.getPartitions() == null || paramPartition.getPartitions().isEmpty()) {
-                    ac.describeTopics(Collections.singletonList(paramPartition.getTopic())).compose(topicsDesc -> {
-                        topicsDesc.entrySet().forEach(topicEntry -> {
-                            topicsDesc.get(topicEntry.getKey()).getPartitions().forEach(partition -> {
-                                topicPartitionsToReset.add(new TopicPartition(topicEntry.getKey(), partition.getPartition()));
-                            });
-                        });
-                        promise.complete();
-                        return Future.succeededFuture(topicPartitionsToReset);
-                    })
-                    .onFailure(promise::fail);
-                } else {
-                    paramPartition.getPartitions().forEach(numPartition -> {
-                        topicPartitionsToReset.add(new TopicPartition(paramPartition.getTopic(), numPartition));
-                    });
-                    promise.complete();
-                }
-            });
+            alter = ac.alterConsumerGroupOffsets(groupId, newOffsets)
+                    .onSuccess(nothing -> log.infof("Reset offsets of %d partitions for group %s", newOffsets.size(), groupId));
         }
 
-        // get the set of partitions we want to reset
-        CompositeFuture.join(promises).compose(i -> {
-            if (i.failed()) {
-                return Future.failedFuture(i.cause());
-            } else {
-                return Future.succeededFuture();
-            }
-        }).compose(nothing -> {
-            return validatePartitionsResettable(ac, parameters.getGroupId(), topicPartitionsToReset);
-        }).compose(nothing -> {
-            Map<TopicPartition, OffsetSpec> partitionsToFetchOffset = new HashMap<>();
-            topicPartitionsToReset.forEach(topicPartition -> {
-                OffsetSpec offsetSpec;
-                // absolute - just for the warning that set offset could be higher than latest
-                switch (parameters.getOffset()) {
-                    case LATEST:
-                        offsetSpec = OffsetSpec.LATEST;
-                        break;
-                    case EARLIEST:
-                        offsetSpec = OffsetSpec.EARLIEST;
-                        break;
-                    case TIMESTAMP:
-                        try {
-                            offsetSpec = OffsetSpec.TIMESTAMP(ZonedDateTime.parse(parameters.getValue(), DATE_TIME_FORMATTER).toInstant().toEpochMilli());
-                        } catch (DateTimeParseException e) {
-                            throw new AdminServerException(ErrorType.INVALID_REQUEST, "Timestamp must be in format 'yyyy-MM-dd'T'HH:mm:ssz'" + e.getMessage());
-                        }
-                        break;
-                    case ABSOLUTE:
-                        // we are checking whether offset is not negative (set behind latest)
-                        offsetSpec = OffsetSpec.LATEST;
-                        break;
-                    default:
-                        throw new AdminServerException(ErrorType.INVALID_REQUEST, "Offset can be 'absolute', 'latest', 'earliest' or 'timestamp' only");
-                }
+        return alter.map(nothing -> {
+            Map<TopicPartition, OffsetAndMetadata> result = new HashMap<>(committed);
+            result.putAll(newOffsets);
 
-                partitionsToFetchOffset.put(topicPartition, offsetSpec);
-            });
-            return Future.succeededFuture(partitionsToFetchOffset);
-        }).compose(partitionsToFetchOffset -> {
-            Promise<Map<TopicPartition, ListOffsetsResultInfo>> promise = Promise.promise();
-            ac.listOffsets(partitionsToFetchOffset, partitionsOffsets -> {
-                if (partitionsOffsets.failed()) {
-                    promise.fail(partitionsOffsets.cause());
-                    return;
-                }
-                if (parameters.getOffset() == OffsetType.ABSOLUTE) {
-                    // numeric offset provided; check whether x > latest
-                    promise.complete(partitionsOffsets.result().entrySet().stream().collect(Collectors.toMap(
-                        entry -> entry.getKey(),
-                        entry -> {
-                            if (entry.getValue().getOffset() < Long.parseLong(parameters.getValue())) {
-                                log.warnf("Selected offset %s is larger than latest %d", parameters.getValue(), entry.getValue().getOffset());
-                            }
-                            return new ListOffsetsResultInfo(Long.parseLong(parameters.getValue()), entry.getValue().getTimestamp(), entry.getValue().getLeaderEpoch());
-                        })));
-                } else {
-                    Map<TopicPartition, ListOffsetsResultInfo> kokot = partitionsOffsets.result().entrySet().stream().collect(Collectors.toMap(
-                        entry -> entry.getKey(),
-                        entry -> new ListOffsetsResultInfo(partitionsOffsets.result().get(entry.getKey()).getOffset(), entry.getValue().getTimestamp(), entry.getValue().getLeaderEpoch())));
-                    promise.complete(kokot);
-                }
-            });
-            return promise.future();
-        }).compose(newOffsets -> {
-            // assemble new offsets object
-            Promise<Map<TopicPartition, OffsetAndMetadata>> promise = Promise.promise();
-            ac.listConsumerGroupOffsets(parameters.getGroupId(), list -> {
-                if (list.failed()) {
-                    promise.fail(list.cause());
-                    return;
+            return result.entrySet()
+                    .stream()
+                    .map(entry -> new TopicPartitionResetResult(entry.getKey().getTopic(),
+                                                                entry.getKey().getPartition(),
+                                                                entry.getValue().getOffset()))
+                    .sorted(Comparator.comparing(TopicPartitionResetResult::getTopic)
+                            .thenComparing(TopicPartitionResetResult::getPartition))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    static OffsetSpec getOffsetSpec(Types.ConsumerGroupOffsetResetParameters parameters) {
+        switch (parameters.getOffset()) {
+            case EARLIEST:
+                return OffsetSpec.EARLIEST;
+            case LATEST:
+                return OffsetSpec.LATEST;
+            default:
+                break;
+        }
+
+        if (parameters.getValue() == null) {
+            throw new AdminServerException(ErrorType.INVALID_REQUEST, "value is required when " + parameters.getOffset().getValue() + " offset is used.");
+        }
+
+        switch (parameters.getOffset()) {
+            case TIMESTAMP:
+                try {
+                    return OffsetSpec.TIMESTAMP(ZonedDateTime.parse(parameters.getValue(), DATE_TIME_FORMATTER).toInstant().toEpochMilli());
+                } catch (DateTimeParseException e) {
+                    throw new AdminServerException(ErrorType.INVALID_REQUEST, "Timestamp must be in format 'yyyy-MM-dd'T'HH:mm:ssz'" + e.getMessage());
                 }
-                if (list.result().isEmpty()) {
-                    promise.fail(new AdminServerException(ErrorType.INVALID_REQUEST, "Consumer Group " + parameters.getGroupId() + " does not consume any topics/partitions"));
-                    return;
+            case ABSOLUTE:
+                try {
+                    Long.parseLong(parameters.getValue());
+                } catch (NumberFormatException e) {
+                    throw new AdminServerException(ErrorType.INVALID_REQUEST, "value must be an integer when absolute offset is used.");
                 }
-                promise.complete(newOffsets.entrySet().stream().collect(Collectors.toMap(
-                    entry -> entry.getKey(),
-                    entry -> new OffsetAndMetadata(newOffsets.get(entry.getKey()).getOffset(), list.result().get(entry.getKey()) == null ? null : list.result().get(entry.getKey()).getMetadata()))));
-            });
-            return promise.future();
-        }).compose(newOffsets -> {
-            Promise<Void> promise = Promise.promise();
-            ac.alterConsumerGroupOffsets(parameters.getGroupId(), newOffsets, res -> {
-                if (res.failed()) {
-                    promise.fail(res.cause());
-                    return;
+                // we are checking whether offset is not negative (set behind latest)
+                return OffsetSpec.LATEST;
+            default:
+                throw new AdminServerException(ErrorType.INVALID_REQUEST, "Offset can be 'absolute', 'latest', 'earliest' or 'timestamp' only");
+        }
+    }
+
+    static Future<Map<String, TopicDescription>> describeTopics(KafkaAdminClient ac, AdminRequestBatcher batcher, List<String> topicNames) {
+        if (topicNames.isEmpty()) {
+            return Future.succeededFuture(Collections.emptyMap());
+        }
+
+        return batcher.describeTopics(ac, topicNames)
+            .recover(error -> {
+                if (ErrorType.isCausedBy(error, UnknownTopicOrPartitionException.class)) {
+                    return Future.failedFuture(new AdminServerException(ErrorType.TOPIC_PARTITION_INVALID));
                 }
-                promise.complete();
-                log.info("resetting offsets");
+                return Future.failedFuture(error);
             });
-            return promise.future();
-        }).compose(i -> {
-            Promise<Types.PagedResponse<Types.TopicPartitionResetResult>> promise = Promise.promise();
+    }
 
-            ac.listConsumerGroupOffsets(parameters.getGroupId(), res -> {
-                if (res.failed()) {
-                    promise.fail(res.cause());
-                    return;
-                }
+    /**
+     * Find all topic partitions in the groups that are actively being consumed by a
+     * client.
+     */
+    static Map<TopicPartition, List<MemberDescription>> getAssignments(Collection<ConsumerGroupDescription> descriptions) {
+        Map<TopicPartition, List<MemberDescription>> assignments = new HashMap<>();
+
+        descriptions.stream()
+            .flatMap(description -> description.getMembers().stream())
+            .filter(member -> member.getClientId() != null)
+            .forEach(member ->
+                member.getAssignment()
+                    .getTopicPartitions()
+                    .forEach(part -> assignments.compute(part, (key, value) -> addTopicPartition(value, member))));
+
+        return assignments;
+    }
 
-                var result = res.result()
-                        .entrySet()
-                        .stream()
-                        .map(entry -> {
-                            Types.TopicPartitionResetResult reset = new Types.TopicPartitionResetResult();
-                            reset.setTopic(entry.getKey().getTopic());
-                            reset.setPartition(entry.getKey().getPartition());
-                            reset.setOffset(entry.getValue().getOffset());
-                            return reset;
-                        })
-                        .collect(Collectors.toList());
-
-                promise.complete(Types.PagedResponse.forItems(Types.TopicPartitionResetResult.class, result));
-            });
-            return promise.future();
-        }).onComplete(res -> {
-            if (res.succeeded()) {
-                prom.complete(res.result());
+    static void validateGroupResettable(String groupId,
+                                        Map<String, TopicDescription> topics,
+                                        Map<TopicPartition, List<MemberDescription>> assignments,
+                                        Map<TopicPartition, OffsetAndMetadata> committed,
+                                        Set<TopicPartition> partitions) {
+        validatePartitionsResettable(topics, assignments, partitions);
+
+        if (committed.isEmpty()) {
+            throw new AdminServerException(ErrorType.INVALID_REQUEST, "Consumer Group " + groupId + " does not consume any topics/partitions");
+        }
+    }
+
+    /**
+     * Determine the partitions to reset: all partitions with committed offsets when
+     * no topics are given, otherwise the requested partitions of each topic or all
+     * partitions of a topic given without partitions.
+     */
+    static Set<TopicPartition> getPartitionsToReset(Types.ConsumerGroupOffsetResetParameters parameters,
+                                                    Map<TopicPartition, OffsetAndMetadata> committed,
+                                                    Map<String, TopicDescription> topics) {
+        if (parameters.getTopics() == null || parameters.getTopics().isEmpty()) {
+            return new HashSet<>(committed.keySet());
+        }
+
+        Set<TopicPartition> partitions = new HashSet<>();
+
+        for (Types.TopicsToResetOffset requested : parameters.getTopics()) {
+            if (requested.getPartitions() == null || requested.getPartitions().isEmpty()) {
+                Optional.ofNullable(topics.get(requested.getTopic()))
+                    .map(TopicDescription::getPartitions)
+                    .orElseGet(Collections::emptyList)
+                    .forEach(partition -> partitions.add(new TopicPartition(requested.getTopic(), partition.getPartition())));
             } else {
-                prom.fail(res.cause());
+                requested.getPartitions()
+                    .forEach(partition -> partitions.add(new TopicPartition(requested.getTopic(), partition)));
             }
-            ac.close();
-        });
+        }
 
-        return prom.future().toCompletionStage();
+        return partitions;
     }
 
-    static Future<Void> validatePartitionsResettable(KafkaAdminClient ac, String groupId, Set<TopicPartition> topicPartitionsToReset) {
-        Map<TopicPartition, List<MemberDescription>> topicPartitions = new ConcurrentHashMap<>();
+    static Map<TopicPartition, OffsetAndMetadata> getNewOffsets(Types.ConsumerGroupOffsetResetParameters parameters,
+                                                               Map<TopicPartition, OffsetAndMetadata> committed,
+                                                               Map<TopicPartition, ListOffsetsResultInfo> listed) {
+        Map<TopicPartition, OffsetAndMetadata> newOffsets = new HashMap<>(listed.size());
 
-        List<String> requestedTopics = topicPartitionsToReset
-                .stream()
-                .map(TopicPartition::getTopic)
-                .collect(Collectors.toList());
+        listed.forEach((partition, info) -> {
+            long offset = info.getOffset();
 
-        Promise<Void> topicDescribe = Promise.promise();
+            if (parameters.getOffset() == OffsetType.ABSOLUTE) {
+                // numeric offset provided; check whether x > latest
+                long absolute = Long.parseLong(parameters.getValue());
 
-        if (requestedTopics.isEmpty()) {
-            topicDescribe.complete();
-        } else {
-            ac.describeTopics(requestedTopics)
-                .onSuccess(describedTopics -> {
-                    describedTopics.entrySet()
-                        .stream()
-                        .flatMap(entry ->
-                            entry.getValue()
-                                .getPartitions()
-                                .stream()
-                                .map(part -> new TopicPartition(entry.getKey(), part.getPartition())))
-                        .forEach(topicPartition ->
-                            topicPartitions.compute(topicPartition, (key, value) -> addTopicPartition(value, null)));
-
-                    topicDescribe.complete();
-                })
-                .onFailure(error -> {
-                    if (ErrorType.isCausedBy(error, UnknownTopicOrPartitionException.class)) {
-                        topicDescribe.fail(new AdminServerException(ErrorType.TOPIC_PARTITION_INVALID));
-                    } else {
-                        topicDescribe.fail(error);
-                    }
-                });
-        }
+                if (offset < absolute) {
+                    log.warnf("Selected offset %d is larger than latest %d", absolute, offset);
+                }
 
-        Promise<Void> groupDescribe = Promise.promise();
+                offset = absolute;
+            }
 
-        ac.describeConsumerGroups(List.of(groupId))
-            .onSuccess(descriptions -> {
-                /*
-                 * Find all topic partitions in the group that are actively
-                 * being consumed by a client.
-                 */
-                descriptions.values()
-                    .stream()
-                    .flatMap(description -> description.getMembers().stream())
-                    .filter(member -> member.getClientId() != null)
-                    .flatMap(member ->
-                        member.getAssignment()
-                             .getTopicPartitions()
-                             .stream()
-                             .map(part -> Map.entry(part, member)))
-                    .forEach(entry -> {
-                        MemberDescription member = entry.getValue();
-                        topicPartitions.compute(entry.getKey(), (key, value) -> addTopicPartition(value, member));
-                    });
+            OffsetAndMetadata current = committed.get(partition);
+            newOffsets.put(partition, new OffsetAndMetadata(offset, current == null ? null : current.getMetadata()));
+        });
 
-                groupDescribe.complete();
-            })
-            .onFailure(groupDescribe::fail);
+        return newOffsets;
+    }
 
-        return CompositeFuture.all(topicDescribe.future(), groupDescribe.future())
-                .map(nothing -> {
-                    topicPartitionsToReset.forEach(topicPartition ->
-                        validatePartitionResettable(topicPartitions, topicPartition));
-                    return null;
-                });
+    static void validatePartitionsResettable(Map<String, TopicDescription> topics,
+                                             Map<TopicPartition, List<MemberDescription>> assignments,
+                                             Set<TopicPartition> topicPartitionsToReset) {
+        Map<TopicPartition, List<MemberDescription>> topicPartitions = new HashMap<>();
+
+        topics.forEach((topicName, description) ->
+            description.getPartitions()
+                .forEach(part -> topicPartitions.put(new TopicPartition(topicName, part.getPartition()), new ArrayList<>())));
+
+        assignments.forEach((partition, members) ->
+            topicPartitions.computeIfAbsent(partition, key -> new ArrayList<>()).addAll(members));
+
+        topicPartitionsToReset.forEach(topicPartition ->
+            validatePartitionResettable(topicPartitions, topicPartition));
     }
 
     static List<MemberDescription> addTopicPartition(List<MemberDescription> members, MemberDescription newMember) {
@@ -411,10 +678,16 @@ public class ConsumerGroupOperations {
         }
     }
 
-    public static CompletionStage<Types.ConsumerGroup> describeGroup(KafkaAdminClient ac, String groupToDescribe, Types.ConsumerGroupDescriptionSortParams orderBy, int partitionFilter) {
+    /**
+     * Describe a single group. The end offsets are only requested for the partitions
+     * of the group's committed offsets matching the topic pattern and partition
+     * filter. When no partitions match, the group is returned without consumers.
+     */
+    public static CompletionStage<Types.ConsumerGroup> describeGroup(KafkaAdminClient ac, AdminRequestBatcher batcher, EndOffsetCache offsetCache, String groupToDescribe,
+                                                                     Pattern topicPattern, Types.ConsumerGroupDescriptionSortParams orderBy, int partitionFilter) {
         Promise<Types.ConsumerGroup> prom = Promise.promise();
 
-        fetchDescriptions(ac, List.of(groupToDescribe), MATCH_ALL, partitionFilter, orderBy)
+        fetchDescriptions(ac, batcher, offsetCache, List.of(groupToDescribe), topicPattern, partitionFilter, orderBy)
             .map(groupDescriptions -> groupDescriptions.findFirst().orElse(null))
             .onComplete(res -> {
                 if (res.failed()) {
@@ -428,79 +701,71 @@ public class ConsumerGroupOperations {
                         prom.complete(groupDescription);
                     }
                 }
-                ac.close();
             });
 
         return prom.future().toCompletionStage();
     }
 
-    private static List<Types.ConsumerGroup> getConsumerGroupsDescription(Pattern pattern,
+    /**
+     * Build the consumer group responses, including one entry for each of the group's
+     * partitions with committed offsets (limited to topics matching the pattern).
+     * The member consuming each partition is found using an index of the partitions
+     * assigned to the group's members, built once per group.
+     */
+    static List<Types.ConsumerGroup> getConsumerGroupsDescription(Pattern pattern,
             Types.ConsumerGroupDescriptionSortParams orderBy,
             int partitionFilter,
             Collection<ConsumerGroupDescription> groupDescriptions,
             Map<TopicPartition, OffsetAndMetadata> groupOffsets,
             Map<TopicPartition, ListOffsetsResultInfo> topicOffsets) {
 
-        List<TopicPartition> assignedTopicPartitions = groupOffsets.entrySet()
+        List<TopicPartition> assignedTopicPartitions = groupOffsets.keySet()
                 .stream()
-                .map(Map.Entry::getKey)
                 .filter(topicPartition -> pattern.matcher(topicPartition.getTopic()).find())
                 .collect(Collectors.toList());
 
         return groupDescriptions.stream().map(group -> {
             Types.ConsumerGroup grp = new Types.ConsumerGroup();
-            Set<Types.Consumer> members = new HashSet<>();
+            List<Types.Consumer> members = new ArrayList<>(assignedTopicPartitions.size() + 1);
 
             if (group.getMembers().isEmpty()) {
-                assignedTopicPartitions.forEach(pa -> {
-                    Types.Consumer member = getConsumer(groupOffsets, topicOffsets, group, pa);
-                    members.add(member);
-                });
+                for (TopicPartition pa : assignedTopicPartitions) {
+                    members.add(getConsumer(groupOffsets, topicOffsets, group, pa, null));
+                }
             } else {
-                assignedTopicPartitions.forEach(pa -> {
-                    group.getMembers().stream().forEach(mem -> {
-                        if (!mem.getAssignment().getTopicPartitions().isEmpty()) {
-                            Types.Consumer member = getConsumer(groupOffsets, topicOffsets, group, pa);
-                            if (memberMatchesPartitionFilter(member, partitionFilter)) {
-                                if (mem.getAssignment().getTopicPartitions().contains(pa)) {
-                                    member.setMemberId(mem.getConsumerId());
-                                } else {
-                                    // unassigned partition
-                                    member.setMemberId(null);
-                                }
-
-                                if (members.contains(member)) {
-                                    // some member does not consume the partition, so it was flagged as unconsumed
-                                    // another member does consume the partition, so we override the member in result
-                                    if (member.getMemberId() != null) {
-                                        members.remove(member);
-                                        members.add(member);
-                                    }
-                                } else {
-                                    members.add(member);
-                                }
-                            }
-                        } else {
-                            // more consumers than topic partitions - consumer is in the group but is not consuming
-                            Types.Consumer member = new Types.Consumer();
-                            member.setMemberId(mem.getConsumerId());
-                            member.setTopic(null);
-                            member.setPartition(-1);
-                            member.setGroupId(group.getGroupId());
-                            member.setLogEndOffset(0);
-                            member.setLag(0);
-                            member.setOffset(0);
-                            if (memberMatchesPartitionFilter(member, partitionFilter)) {
-                                members.add(member);
-                            }
+                Map<TopicPartition, String> partitionMembers = new HashMap<>();
+                String idleMemberId = null;
+
+                for (MemberDescription mem : group.getMembers()) {
+                    Set<TopicPartition> assignment = mem.getAssignment().getTopicPartitions();
+
+                    if (assignment.isEmpty()) {
+                        if (idleMemberId == null) {
+                            idleMemberId = mem.getConsumerId();
                         }
-                    });
-                });
-            }
+                    } else {
+                        // Where a partition is assigned to multiple members, the last member is used
+                        for (TopicPartition pa : assignment) {
+                            partitionMembers.put(pa, mem.getConsumerId());
+                        }
+                    }
+                }
+
+                if (!partitionMembers.isEmpty()) {
+                    for (TopicPartition pa : assignedTopicPartitions) {
+                        if (partitionFilter < 0 || pa.getPartition() == partitionFilter) {
+                            // Member ID is null when the partition is not assigned
+                            members.add(getConsumer(groupOffsets, topicOffsets, group, pa, partitionMembers.get(pa)));
+                        }
+                    }
+                }
 
-            if (!pattern.pattern().equals(MATCH_ALL.pattern()) && members.isEmpty()) {
-                return null;
+                if (idleMemberId != null && !assignedTopicPartitions.isEmpty() && partitionFilter < 0) {
+                    // more consumers than topic partitions - consumer is in the group but is not consuming
+                    members.add(new Types.Consumer(idleMemberId, group.getGroupId(), null, -1, 0, 0, 0));
+                }
             }
+
             grp.setGroupId(group.getGroupId());
             grp.setState(group.getState());
             List<Types.Consumer> sortedList;
@@ -563,31 +828,18 @@ public class ConsumerGroupOperations {
         return metrics;
     }
 
-    private static boolean memberMatchesPartitionFilter(Types.Consumer member, int partitionFilter) {
-        if (partitionFilter < 0) {
-            // filter deactivated
-            return true;
-        } else {
-            return member.getPartition() == partitionFilter;
-        }
-    }
-
     private static Types.Consumer getConsumer(Map<TopicPartition, OffsetAndMetadata> groupOffsets,
             Map<TopicPartition, ListOffsetsResultInfo> topicOffsets,
             ConsumerGroupDescription group,
-            TopicPartition pa) {
+            TopicPartition pa,
+            String memberId) {
 
-        Types.Consumer member = new Types.Consumer();
-        member.setTopic(pa.getTopic());
-        member.setPartition(pa.getPartition());
-        member.setGroupId(group.getGroupId());
-        long offset = groupOffsets.get(pa) == null ? 0 : groupOffsets.get(pa).getOffset();
-        long logEndOffset = topicOffsets.get(pa) == null ? 0 : topicOffsets.get(pa).getOffset();
-        long lag = logEndOffset - offset;
-        member.setLag(lag);
-        member.setLogEndOffset(logEndOffset);
-        member.setOffset(offset);
-        return member;
+        OffsetAndMetadata groupOffset = groupOffsets.get(pa);
+        ListOffsetsResultInfo topicOffset = topicOffsets.get(pa);
+        long offset = groupOffset == null ? 0 : groupOffset.getOffset();
+        long logEndOffset = topicOffset == null ? 0 : topicOffset.getOffset();
+
+        return new Types.Consumer(memberId, group.getGroupId(), pa.getTopic(), pa.getPartition(), offset, logEndOffset - offset, logEndOffset);
     }
 
     /**
@@ -596,24 +848,32 @@ public class ConsumerGroupOperations {
      *
      * <ul>
      * <li>Consumer group description (using {@link KafkaAdminClient#describeConsumerGroups(List)})
-     * <li>Current consumer group offsets (using {@link KafkaAdminClient#listConsumerGroupOffsets(String)})
+     * <li>Current consumer group offsets (using {@link AdminRequestBatcher#listConsumerGroupOffsets(KafkaAdminClient, java.util.Collection)},
+     * limiting the number of concurrent requests)
      * </ul>
      *
      * The unique set of {@link TopicPartition}s for the listed consumer groups will then be used to
-     * obtain the current topic offsets using {@link KafkaAdminClient#listOffsets(Map)}).
+     * obtain the current topic offsets using {@link KafkaAdminClient#listOffsets(Map)}), or from the
+     * {@link EndOffsetCache} when recently fetched. The age of the oldest end offset used is set
+     * as the offsets age of each group.
      *
-     * Results will be filtered according to the provided topicPattern and partitionFilter. Sorting
-     * of each consumer group's members will be performed based on the provided memberOrder.
+     * The group offsets are filtered according to the provided topicPattern and partitionFilter
+     * before the topic offsets are requested, so that end offsets are only obtained for matching
+     * partitions. Sorting of each consumer group's members will be performed based on the provided
+     * memberOrder.
      *
      * @param ac Kafka client
+     * @param batcher used to limit the number of concurrent requests for group offsets
+     * @param offsetCache shared cache of partition end offsets
      * @param groupIds the groups to describe
      * @param topicPattern regular expression pattern to limit results to matching topics
      * @param partitionFilter partition number to limit results to a specific partition
      * @param memberOrder consumer group member sorting
      * @return future stream of {@link Types.ConsumerGroupDescription}
      */
-    @SuppressWarnings("rawtypes")
     static Future<Stream<Types.ConsumerGroup>> fetchDescriptions(KafkaAdminClient ac,
+                                                                     AdminRequestBatcher batcher,
+                                                                     EndOffsetCache offsetCache,
                                                                      List<String> groupIds,
                                                                      Pattern topicPattern,
                                                                      int partitionFilter,
@@ -622,22 +882,82 @@ public class ConsumerGroupOperations {
         List<ConsumerGroupInfo> consumerGroupInfos = new ArrayList<>(groupIds.size());
 
         return ac.describeConsumerGroups(groupIds)
-            .map(Map::entrySet)
-            .map(descriptions -> descriptions.stream()
-                 // Fetch the offsets for consumer groups
-                 .map(entry -> ac.listConsumerGroupOffsets(entry.getKey()).map(offsets -> new ConsumerGroupInfo(entry.getValue(), offsets)))
-                 .collect(Collectors.<Future>toList()))
-            .compose(CompositeFuture::join)
-            .map(CompositeFuture::<ConsumerGroupInfo>list)
+            // Fetch the offsets for consumer groups
+            .compose(descriptions -> batcher.listConsumerGroupOffsets(ac, descriptions.values())
+                 .map(groupOffsets -> descriptions.entrySet()
+                      .stream()
+                      .map(entry -> new ConsumerGroupInfo(entry.getValue(), filterOffsets(groupOffsets.get(entry.getKey()), topicPattern, partitionFilter)))
+                      .collect(Collectors.toList())))
             .compose(groupInfos -> {
                 consumerGroupInfos.addAll(groupInfos);
                 // Fetch the topic offsets for all partitions in the selected consumer groups
-                return ac.listOffsets(toListLatestOffsetMap(groupInfos));
+                return fetchEndOffsets(ac, offsetCache, groupInfos);
             })
-            .map(latestOffsets -> consumerGroupInfos.stream()
-                 .map(e -> getConsumerGroupsDescription(topicPattern, memberOrder, partitionFilter, List.of(e.getDescription()), e.getOffsets(), latestOffsets))
-                 .flatMap(List::stream)
-                 .filter(Objects::nonNull));
+            .map(endOffsets -> {
+                final Map<TopicPartition, ListOffsetsResultInfo> latestOffsets = toListOffsetsResult(endOffsets);
+                final long offsetsAge = System.currentTimeMillis() - endOffsets.getFetchedAt();
+
+                return consumerGroupInfos.stream()
+                    .map(e -> getConsumerGroupsDescription(topicPattern, memberOrder, partitionFilter, List.of(e.getDescription()), e.getOffsets(), latestOffsets))
+                    .flatMap(List::stream)
+                    .filter(Objects::nonNull)
+                    .map(group -> {
+                        group.setOffsetsAge(offsetsAge);
+                        return group;
+                    });
+            });
+    }
+
+    /**
+     * Select the committed offsets of the partitions matching the topic pattern and
+     * partition filter, so that end offsets are only requested for those partitions.
+     */
+    static Map<TopicPartition, OffsetAndMetadata> filterOffsets(Map<TopicPartition, OffsetAndMetadata> offsets, Pattern topicPattern, int partitionFilter) {
+        if (offsets == null) {
+            return Collections.emptyMap();
+        }
+
+        if (partitionFilter < 0 && topicPattern.pattern().equals(MATCH_ALL.pattern())) {
+            return offsets;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> filtered = new HashMap<>();
+
+        offsets.forEach((partition, offset) -> {
+            if ((partitionFilter < 0 || partition.getPartition() == partitionFilter) && topicPattern.matcher(partition.getTopic()).find()) {
+                filtered.put(partition, offset);
+            }
+        });
+
+        return filtered;
+    }
+
+    /**
+     * Obtain the end offsets of all partitions in the given consumer groups, using
+     * the {@link EndOffsetCache} to re-use offsets recently fetched by other requests.
+     */
+    static Future<EndOffsetCache.EndOffsets> fetchEndOffsets(KafkaAdminClient ac, EndOffsetCache offsetCache, List<ConsumerGroupInfo> groupInfos) {
+        Set<org.apache.kafka.common.TopicPartition> partitions = toListLatestOffsetMap(groupInfos)
+                .keySet()
+                .stream()
+                .map(partition -> new org.apache.kafka.common.TopicPartition(partition.getTopic(), partition.getPartition()))
+                .collect(Collectors.toSet());
+
+        return Future.fromCompletionStage(offsetCache.getEndOffsets(partitions, missing -> ac.listOffsets(missing.stream()
+                    .collect(Collectors.toMap(partition -> new TopicPartition(partition.topic(), partition.partition()), partition -> OffsetSpec.LATEST)))
+                .map(result -> result.entrySet()
+                     .stream()
+                     .collect(Collectors.toMap(entry -> new org.apache.kafka.common.TopicPartition(entry.getKey().getTopic(), entry.getKey().getPartition()),
+                                               entry -> entry.getValue().getOffset())))
+                .toCompletionStage()));
+    }
+
+    static Map<TopicPartition, ListOffsetsResultInfo> toListOffsetsResult(EndOffsetCache.EndOffsets endOffsets) {
+        return endOffsets.getOffsets()
+            .entrySet()
+            .stream()
+            .collect(Collectors.toMap(entry -> new TopicPartition(entry.getKey().topic(), entry.getKey().partition()),
+                                      entry -> new ListOffsetsResultInfo(entry.getValue(), -1, null)));
     }
 
     /**
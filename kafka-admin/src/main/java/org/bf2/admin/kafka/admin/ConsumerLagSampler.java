@@ -0,0 +1,292 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.admin.ConsumerGroupListing;
+import io.vertx.kafka.admin.KafkaAdminClient;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.common.config.SaslConfigs;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.jboss.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Optional background task that periodically calculates the lag of consumer groups
+ * using a service credential and publishes it as gauges of the application's
+ * meter registry, so that monitoring systems need not poll the group listing.
+ *
+ * Lag is published per group, per group and topic, and per group, topic, and
+ * partition. The number of gauges is limited by configuration, gauges for groups
+ * are published before those for topics and partitions. Gauges for groups, topics,
+ * or partitions no longer present in a sample are removed. Each sample is also
+ * recorded in the {@link LagHistory}.
+ */
+@ApplicationScoped
+public class ConsumerLagSampler {
+
+    private static final Logger log = Logger.getLogger(ConsumerLagSampler.class);
+
+    static final String GROUP_LAG = "consumer_group_lag";
+    static final String TOPIC_LAG = "consumer_group_topic_lag";
+    static final String PARTITION_LAG = "consumer_group_partition_lag";
+
+    private static final String SAMPLE_TIMER = "consumer_lag_sample_time";
+    private static final String SAMPLED_GROUPS_GAUGE = "consumer_lag_sampled_groups";
+    private static final String DROPPED_SERIES_GAUGE = "consumer_lag_dropped_series";
+    private static final String RESULT_TAG = "result";
+
+    private static final String GROUP_TAG = "group";
+    private static final String TOPIC_TAG = "topic";
+    private static final String PARTITION_TAG = "partition";
+
+    private static final Pattern MATCH_ALL = Pattern.compile(".*");
+    private static final Types.ConsumerGroupDescriptionSortParams PARTITION_ORDER =
+            new Types.ConsumerGroupDescriptionSortParams(Types.ConsumerGroupDescriptionOrderKey.PARTITION, Types.SortDirectionEnum.ASC);
+
+    @Inject
+    KafkaAdminConfigRetriever config;
+
+    @Inject
+    HttpMetrics metrics;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    AdminRequestBatcher batcher;
+
+    @Inject
+    EndOffsetCache offsetCache;
+
+    @Inject
+    LagHistory lagHistory;
+
+    /**
+     * Published lag gauges, keyed by the gauge name and tags
+     */
+    final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    final AtomicInteger sampledGroups = new AtomicInteger();
+    final AtomicInteger droppedSeries = new AtomicInteger();
+    final AtomicBoolean sampling = new AtomicBoolean(false);
+
+    Pattern groupInclude;
+    Optional<Pattern> groupExclude;
+
+    AdminClient adminClient;
+    long timerId = -1;
+
+    @PostConstruct
+    void initialize() {
+        groupInclude = Pattern.compile(config.getLagSamplerGroupInclude());
+        groupExclude = config.getLagSamplerGroupExclude().map(Pattern::compile);
+
+        MeterRegistry registry = metrics.getRegistry();
+        Gauge.builder(SAMPLED_GROUPS_GAUGE, sampledGroups, AtomicInteger::get)
+            .description("Number of consumer groups included in the latest lag sample")
+            .register(registry);
+        Gauge.builder(DROPPED_SERIES_GAUGE, droppedSeries, AtomicInteger::get)
+            .description("Number of lag gauges not published in the latest sample due to the configured maximum")
+            .register(registry);
+    }
+
+    void start(@Observes StartupEvent event) {
+        if (!config.isLagSamplerEnabled()) {
+            return;
+        }
+
+        Map<String, Object> acConfig = config.getAcConfig();
+        config.getLagSamplerSaslJaasConfig().ifPresent(jaasConfig -> acConfig.put(SaslConfigs.SASL_JAAS_CONFIG, jaasConfig));
+        adminClient = AdminClient.create(acConfig);
+
+        KafkaAdminClient client = KafkaAdminClient.create(vertx, adminClient);
+        timerId = vertx.setPeriodic(config.getLagSamplerIntervalMs(), id -> sample(client));
+
+        log.infof("Consumer lag sampler enabled; interval %d ms, maximum series %d",
+                  config.getLagSamplerIntervalMs(), config.getLagSamplerMaxSeries());
+    }
+
+    void stop(@Observes ShutdownEvent event) {
+        if (timerId >= 0) {
+            vertx.cancelTimer(timerId);
+        }
+
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+
+    /**
+     * Sample the lag of all included consumer groups. A sample is skipped when the
+     * previous sample has not yet completed.
+     */
+    Future<Void> sample(KafkaAdminClient client) {
+        if (!sampling.compareAndSet(false, true)) {
+            log.warn("Previous consumer lag sample still in progress, sample skipped");
+            return Future.succeededFuture();
+        }
+
+        Timer.Sample timer = Timer.start();
+
+        return client.listConsumerGroups()
+            .map(groups -> groups.stream()
+                 .map(ConsumerGroupListing::getGroupId)
+                 .filter(this::isIncluded)
+                 .collect(Collectors.toList()))
+            .compose(groupIds -> groupIds.isEmpty() ? Future.succeededFuture(List.<Types.ConsumerGroup>of())
+                    : ConsumerGroupOperations.fetchDescriptions(client, batcher, offsetCache, groupIds, MATCH_ALL, -1, PARTITION_ORDER)
+                        .map(groups -> groups.collect(Collectors.toList())))
+            .onSuccess(this::publish)
+            .onFailure(error -> log.warnf("Failed to sample consumer lag: %s", error.getMessage()))
+            .onComplete(result -> {
+                timer.stop(metrics.getRegistry().timer(SAMPLE_TIMER, RESULT_TAG, result.succeeded() ? "success" : "failure"));
+                sampling.set(false);
+            })
+            .mapEmpty();
+    }
+
+    boolean isIncluded(String groupId) {
+        return groupInclude.matcher(groupId).matches()
+                && groupExclude.map(exclude -> !exclude.matcher(groupId).matches()).orElse(true);
+    }
+
+    /**
+     * Publish the lag of the sampled groups, limiting the number of gauges to the
+     * configured maximum and removing the gauges of the previous sample not present
+     * in this sample.
+     */
+    void publish(List<Types.ConsumerGroup> groups) {
+        final int maxSeries = config.getLagSamplerMaxSeries();
+        Map<SeriesKey, Long> groupLag = new LinkedHashMap<>();
+        Map<SeriesKey, Long> topicLag = new LinkedHashMap<>();
+        Map<SeriesKey, Long> partitionLag = new LinkedHashMap<>();
+
+        List<Types.ConsumerGroup> sorted = new ArrayList<>(groups);
+        sorted.removeIf(Objects::isNull);
+        sorted.sort(Comparator.comparing(Types.ConsumerGroup::getGroupId));
+
+        for (Types.ConsumerGroup group : sorted) {
+            String groupId = group.getGroupId();
+            lagHistory.record(group);
+            groupLag.put(new SeriesKey(GROUP_LAG, Tags.of(GROUP_TAG, groupId)), 0L);
+
+            if (group.getConsumers() == null) {
+                continue;
+            }
+
+            for (Types.Consumer consumer : group.getConsumers()) {
+                if (consumer.getTopic() == null) {
+                    // Member without assigned partitions
+                    continue;
+                }
+
+                long lag = Math.max(0, consumer.getLag());
+                Tags topicTags = Tags.of(GROUP_TAG, groupId, TOPIC_TAG, consumer.getTopic());
+
+                groupLag.merge(new SeriesKey(GROUP_LAG, Tags.of(GROUP_TAG, groupId)), lag, Long::sum);
+                topicLag.merge(new SeriesKey(TOPIC_LAG, topicTags), lag, Long::sum);
+                partitionLag.put(new SeriesKey(PARTITION_LAG, topicTags.and(PARTITION_TAG, String.valueOf(consumer.getPartition()))), lag);
+            }
+        }
+
+        Map<SeriesKey, Long> sample = new LinkedHashMap<>();
+        int dropped = 0;
+
+        for (Map<SeriesKey, Long> level : List.of(groupLag, topicLag, partitionLag)) {
+            for (Map.Entry<SeriesKey, Long> entry : level.entrySet()) {
+                if (sample.size() < maxSeries) {
+                    sample.put(entry.getKey(), entry.getValue());
+                } else {
+                    dropped++;
+                }
+            }
+        }
+
+        if (dropped > 0) {
+            log.debugf("Consumer lag sample exceeds maximum of %d series, %d series not published", maxSeries, dropped);
+        }
+
+        MeterRegistry registry = metrics.getRegistry();
+
+        sample.forEach((key, lag) -> series.computeIfAbsent(key, k -> new Series(registry, k)).value.set(lag));
+
+        series.entrySet().removeIf(entry -> {
+            if (sample.containsKey(entry.getKey())) {
+                return false;
+            }
+            registry.remove(entry.getValue().gauge);
+            return true;
+        });
+
+        sampledGroups.set(sorted.size());
+        droppedSeries.set(dropped);
+    }
+
+    /**
+     * Name and tags of a lag gauge
+     */
+    static final class SeriesKey {
+        final String name;
+        final Tags tags;
+
+        SeriesKey(String name, Tags tags) {
+            this.name = name;
+            this.tags = tags;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, tags);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SeriesKey)) {
+                return false;
+            }
+            SeriesKey other = (SeriesKey) obj;
+            return name.equals(other.name) && tags.equals(other.tags);
+        }
+    }
+
+    /**
+     * A registered lag gauge and its current value
+     */
+    static final class Series {
+        final AtomicLong value = new AtomicLong();
+        final Gauge gauge;
+
+        Series(MeterRegistry registry, SeriesKey key) {
+            gauge = Gauge.builder(key.name, value, AtomicLong::get)
+                .tags(key.tags)
+                .baseUnit("messages")
+                .register(registry);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Tags;
+import org.apache.kafka.common.TopicPartition;
+import org.jboss.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Application-wide cache of partition log-end offsets, shared by requests that
+ * compute consumer group lag or browse records. Entries are kept for a short,
+ * configurable time to live. Concurrent requests for the end offsets of the same
+ * partitions are coalesced, with a single request sent to Kafka and its result
+ * shared by all waiting requests.
+ *
+ * As with the {@link TopicCache}, the cache does not determine which partitions a
+ * client may see. Callers must only look up partitions obtained using the client's
+ * own credentials, e.g. from the client's consumer group offsets or topic metadata.
+ * A request that waits on the result of another request and finds it failed (e.g.
+ * because the other client was not authorized) retries using its own fetch function.
+ */
+@ApplicationScoped
+public class EndOffsetCache {
+
+    private static final Logger log = Logger.getLogger(EndOffsetCache.class);
+
+    private static final String HITS_COUNTER = "end_offset_cache_hits";
+    private static final String MISSES_COUNTER = "end_offset_cache_misses";
+    private static final String COALESCED_COUNTER = "end_offset_cache_coalesced";
+    private static final String SIZE_GAUGE = "end_offset_cache_size";
+
+    @Inject
+    KafkaAdminConfigRetriever config;
+
+    @Inject
+    HttpMetrics metrics;
+
+    final Map<TopicPartition, CachedOffset> offsets = new ConcurrentHashMap<>();
+    final Map<TopicPartition, CompletableFuture<CachedOffset>> pending = new ConcurrentHashMap<>();
+    final AtomicLong lastSweep = new AtomicLong();
+
+    Counter hits;
+    Counter misses;
+    Counter coalesced;
+
+    @PostConstruct
+    public void initialize() {
+        hits = metrics.getRegistry().counter(HITS_COUNTER);
+        misses = metrics.getRegistry().counter(MISSES_COUNTER);
+        coalesced = metrics.getRegistry().counter(COALESCED_COUNTER);
+        metrics.getRegistry().gaugeMapSize(SIZE_GAUGE, Tags.empty(), offsets);
+
+        if (isEnabled()) {
+            log.infof("End offset cache enabled; time to live %d ms", config.getEndOffsetCacheTtlMs());
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.getEndOffsetCacheTtlMs() > 0;
+    }
+
+    /**
+     * Retrieve the end offsets of the given partitions. Unexpired offsets are taken
+     * from the cache, partitions already being fetched by another request are
+     * awaited, and the remaining partitions are fetched using a single invocation
+     * of the fetch function.
+     *
+     * @param partitions the partitions for which end offsets are required
+     * @param fetch function to request the end offsets of a set of partitions from Kafka
+     * @return the end offsets and the time the oldest of them was fetched
+     */
+    public CompletionStage<EndOffsets> getEndOffsets(Collection<TopicPartition> partitions,
+                                                     Function<Set<TopicPartition>, CompletionStage<Map<TopicPartition, Long>>> fetch) {
+
+        final long now = System.currentTimeMillis();
+
+        if (!isEnabled()) {
+            return fetch.apply(new HashSet<>(partitions)).thenApply(result -> new EndOffsets(result, now));
+        }
+
+        removeExpired(now);
+
+        Map<TopicPartition, CachedOffset> cached = new HashMap<>();
+        Map<TopicPartition, CompletableFuture<CachedOffset>> awaited = new HashMap<>();
+        Map<TopicPartition, CompletableFuture<CachedOffset>> owned = new HashMap<>();
+
+        for (TopicPartition partition : new HashSet<>(partitions)) {
+            CachedOffset entry = offsets.get(partition);
+
+            if (entry != null && !entry.isExpired(now, config.getEndOffsetCacheTtlMs())) {
+                cached.put(partition, entry);
+                continue;
+            }
+
+            CompletableFuture<CachedOffset> request = new CompletableFuture<>();
+            CompletableFuture<CachedOffset> inFlight = pending.putIfAbsent(partition, request);
+
+            if (inFlight != null) {
+                awaited.put(partition, inFlight);
+            } else {
+                owned.put(partition, request);
+            }
+        }
+
+        TopicCache.increment(hits, cached.size());
+        TopicCache.increment(coalesced, awaited.size());
+        TopicCache.increment(misses, owned.size());
+
+        if (!owned.isEmpty()) {
+            fetchOwned(owned, fetch);
+        }
+
+        Map<TopicPartition, CompletableFuture<CachedOffset>> results = new HashMap<>(owned);
+
+        /*
+         * Partitions requested by another request are awaited. Should that request fail,
+         * the partitions are fetched again using this request's fetch function.
+         */
+        awaited.forEach((partition, inFlight) ->
+            results.put(partition, inFlight.handle((result, error) -> result)
+                .thenCompose(result -> result != null ? CompletableFuture.completedFuture(result)
+                        : fetch.apply(Set.of(partition)).thenApply(fetched -> put(partition, fetched.get(partition), now)))));
+
+        return CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new))
+            .thenApply(nothing -> {
+                results.forEach((partition, result) -> cached.put(partition, result.join()));
+                return new EndOffsets(cached);
+            });
+    }
+
+    /**
+     * Retrieve the unexpired cached end offsets of the given partitions without
+     * fetching or awaiting the offsets of the remaining partitions.
+     *
+     * @param partitions the partitions for which end offsets are required
+     * @param now current time, epoch milliseconds
+     * @return map of partition to end offset, omitting partitions not present in the cache
+     */
+    public Map<TopicPartition, Long> getCached(Collection<TopicPartition> partitions, long now) {
+        Map<TopicPartition, Long> result = new HashMap<>();
+
+        if (!isEnabled()) {
+            return result;
+        }
+
+        for (TopicPartition partition : partitions) {
+            CachedOffset entry = offsets.get(partition);
+
+            if (entry != null && !entry.isExpired(now, config.getEndOffsetCacheTtlMs())) {
+                result.put(partition, entry.offset);
+            }
+        }
+
+        TopicCache.increment(hits, result.size());
+        TopicCache.increment(misses, partitions.size() - result.size());
+
+        return result;
+    }
+
+    void fetchOwned(Map<TopicPartition, CompletableFuture<CachedOffset>> owned,
+                    Function<Set<TopicPartition>, CompletionStage<Map<TopicPartition, Long>>> fetch) {
+
+        final long fetchedAt = System.currentTimeMillis();
+        CompletionStage<Map<TopicPartition, Long>> result;
+
+        try {
+            result = fetch.apply(owned.keySet());
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        result.whenComplete((fetched, error) -> owned.forEach((partition, request) -> {
+            pending.remove(partition, request);
+
+            if (error != null) {
+                request.completeExceptionally(error);
+            } else {
+                request.complete(put(partition, fetched.get(partition), fetchedAt));
+            }
+        }));
+    }
+
+    /**
+     * Add or replace the end offsets of the given partitions, e.g. when fetched
+     * directly from Kafka by a request requiring the current offsets.
+     *
+     * @param endOffsets map of partition to end offset
+     * @param fetchedAt time (epoch milliseconds) the offsets were requested from Kafka
+     */
+    public void putAll(Map<TopicPartition, Long> endOffsets, long fetchedAt) {
+        if (isEnabled()) {
+            endOffsets.forEach((partition, offset) -> put(partition, offset, fetchedAt));
+        }
+    }
+
+    CachedOffset put(TopicPartition partition, Long offset, long fetchedAt) {
+        CachedOffset update = new CachedOffset(offset, fetchedAt);
+
+        if (offset != null) {
+            offsets.merge(partition, update, (existing, replacement) -> existing.fetchedAt > replacement.fetchedAt ? existing : replacement);
+        }
+
+        return update;
+    }
+
+    /**
+     * Remove all expired entries, at most once per time to live interval.
+     */
+    void removeExpired(long now) {
+        final long ttlMs = config.getEndOffsetCacheTtlMs();
+        final long previous = lastSweep.get();
+
+        if (now - previous >= ttlMs && lastSweep.compareAndSet(previous, now)) {
+            offsets.values().removeIf(cached -> cached.isExpired(now, ttlMs));
+        }
+    }
+
+    /**
+     * A partition's end offset and the time it was retrieved.
+     */
+    static class CachedOffset {
+        final Long offset;
+        final long fetchedAt;
+
+        CachedOffset(Long offset, long fetchedAt) {
+            this.offset = offset;
+            this.fetchedAt = fetchedAt;
+        }
+
+        boolean isExpired(long now, long ttlMs) {
+            return now - fetchedAt >= ttlMs;
+        }
+    }
+
+    /**
+     * Result of {@link EndOffsetCache#getEndOffsets(Collection, Function)}.
+     */
+    public static class EndOffsets {
+        final Map<TopicPartition, Long> offsets;
+        final long fetchedAt;
+
+        EndOffsets(Map<TopicPartition, Long> offsets, long fetchedAt) {
+            this.offsets = offsets;
+            this.fetchedAt = fetchedAt;
+        }
+
+        EndOffsets(Map<TopicPartition, CachedOffset> cached) {
+            this.offsets = new HashMap<>(cached.size());
+            long oldest = Long.MAX_VALUE;
+
+            for (Map.Entry<TopicPartition, CachedOffset> entry : cached.entrySet()) {
+                if (entry.getValue().offset != null) {
+                    offsets.put(entry.getKey(), entry.getValue().offset);
+                }
+                oldest = Math.min(oldest, entry.getValue().fetchedAt);
+            }
+
+            this.fetchedAt = cached.isEmpty() ? System.currentTimeMillis() : oldest;
+        }
+
+        /**
+         * @return map of partition to end offset, omitting partitions for which no offset was returned by Kafka
+         */
+        public Map<TopicPartition, Long> getOffsets() {
+            return offsets;
+        }
+
+        /**
+         * @return time (epoch milliseconds) the oldest of the offsets was retrieved from Kafka
+         */
+        public long getFetchedAt() {
+            return fetchedAt;
+        }
+    }
+}
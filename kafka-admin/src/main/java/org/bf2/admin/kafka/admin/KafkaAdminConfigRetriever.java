@@ -47,6 +47,48 @@ public class KafkaAdminConfigRetriever {
 
     public static final String ACL_RESOURCE_OPERATIONS = PREFIX + "acl.resource.operations";
 
+    public static final String CLIENT_CACHE_MAX_SIZE = PREFIX + "client.cache.max.size";
+    public static final String CLIENT_CACHE_IDLE_TIMEOUT_MS = PREFIX + "client.cache.idle.timeout.ms";
+
+    public static final String CONSUMER_POOL_MAX_IDLE = PREFIX + "consumer.pool.max.idle";
+    public static final String CONSUMER_POOL_MAX_TOTAL = PREFIX + "consumer.pool.max.total";
+    public static final String CONSUMER_POOL_IDLE_TIMEOUT_MS = PREFIX + "consumer.pool.idle.timeout.ms";
+    public static final String CONSUMER_POOL_MAX_WAIT_MS = PREFIX + "consumer.pool.max.wait.ms";
+    public static final String CONSUMER_POOL_LEAK_THRESHOLD_MS = PREFIX + "consumer.pool.leak.threshold.ms";
+
+    public static final String PRODUCER_LINGER_MS = PREFIX + "producer.linger.ms";
+    public static final String PRODUCER_BATCH_SIZE = PREFIX + "producer.batch.size";
+
+    public static final String TOPIC_CACHE_TTL_MS = PREFIX + "topic.cache.ttl.ms";
+
+    public static final String DESCRIBE_CHUNK_SIZE = PREFIX + "describe.chunk.size";
+    public static final String DESCRIBE_CHUNK_CONCURRENCY = PREFIX + "describe.chunk.concurrency";
+    public static final String STREAMING_MIN_ITEMS = PREFIX + "streaming.min.items";
+    public static final String GROUP_OFFSETS_CONCURRENCY = PREFIX + "group.offsets.concurrency";
+    public static final String END_OFFSET_CACHE_TTL_MS = PREFIX + "end.offset.cache.ttl.ms";
+
+    public static final String LAG_SAMPLER_ENABLED = PREFIX + "lag.sampler.enabled";
+    public static final String LAG_SAMPLER_INTERVAL_MS = PREFIX + "lag.sampler.interval.ms";
+    public static final String LAG_SAMPLER_SASL_JAAS_CONFIG = PREFIX + "lag.sampler.sasl.jaas.config";
+    public static final String LAG_SAMPLER_GROUP_INCLUDE = PREFIX + "lag.sampler.group.include";
+    public static final String LAG_SAMPLER_GROUP_EXCLUDE = PREFIX + "lag.sampler.group.exclude";
+    public static final String LAG_SAMPLER_MAX_SERIES = PREFIX + "lag.sampler.max.series";
+    public static final String LAG_HISTORY_SAMPLES = PREFIX + "lag.history.samples";
+    public static final String LAG_HISTORY_MIN_INTERVAL_MS = PREFIX + "lag.history.min.interval.ms";
+    public static final String LAG_HISTORY_MAX_PARTITIONS = PREFIX + "lag.history.max.partitions";
+    public static final String LAG_HISTORY_MAX_GROUPS = PREFIX + "lag.history.max.groups";
+    public static final String RESET_OFFSETS_CONCURRENCY = PREFIX + "reset.offsets.concurrency";
+    public static final String RECORD_TAIL_MAX_STREAMS = PREFIX + "record.tail.max.streams";
+    public static final String RECORD_TAIL_MAX_TOTAL_STREAMS = PREFIX + "record.tail.max.total.streams";
+    public static final String RECORD_TAIL_IDLE_TIMEOUT_MS = PREFIX + "record.tail.idle.timeout.ms";
+    public static final String RECORD_TAIL_MAX_DURATION_MS = PREFIX + "record.tail.max.duration.ms";
+    public static final String RECORD_TAIL_BATCH_SIZE = PREFIX + "record.tail.batch.size";
+    public static final String RECORD_SEARCH_MAX_RECORDS = PREFIX + "record.search.max.records";
+    public static final String RECORD_SEARCH_MAX_BYTES = PREFIX + "record.search.max.bytes";
+    public static final String RECORD_SEARCH_MAX_TIME_MS = PREFIX + "record.search.max.time.ms";
+    public static final String RECORD_FETCH_MAX_CONSUMERS = PREFIX + "record.fetch.max.consumers";
+    public static final String RECORD_FETCH_PARTITIONS_PER_CONSUMER = PREFIX + "record.fetch.partitions.per.consumer";
+
     @Inject
     @ConfigProperty(name = BOOTSTRAP_SERVERS)
     String bootstrapServers;
@@ -79,6 +121,150 @@ public class KafkaAdminConfigRetriever {
     @ConfigProperty(name = ACL_RESOURCE_OPERATIONS, defaultValue = "{}")
     String aclResourceOperations;
 
+    @Inject
+    @ConfigProperty(name = CLIENT_CACHE_MAX_SIZE, defaultValue = "100")
+    int clientCacheMaxSize;
+
+    @Inject
+    @ConfigProperty(name = CLIENT_CACHE_IDLE_TIMEOUT_MS, defaultValue = "300000")
+    long clientCacheIdleTimeoutMs;
+
+    @Inject
+    @ConfigProperty(name = CONSUMER_POOL_MAX_IDLE, defaultValue = "2")
+    int consumerPoolMaxIdle;
+
+    @Inject
+    @ConfigProperty(name = CONSUMER_POOL_MAX_TOTAL, defaultValue = "50")
+    int consumerPoolMaxTotal;
+
+    @Inject
+    @ConfigProperty(name = CONSUMER_POOL_IDLE_TIMEOUT_MS, defaultValue = "60000")
+    long consumerPoolIdleTimeoutMs;
+
+    @Inject
+    @ConfigProperty(name = CONSUMER_POOL_MAX_WAIT_MS, defaultValue = "5000")
+    long consumerPoolMaxWaitMs;
+
+    @Inject
+    @ConfigProperty(name = CONSUMER_POOL_LEAK_THRESHOLD_MS, defaultValue = "120000")
+    long consumerPoolLeakThresholdMs;
+
+    @Inject
+    @ConfigProperty(name = PRODUCER_LINGER_MS, defaultValue = "5")
+    int producerLingerMs;
+
+    @Inject
+    @ConfigProperty(name = PRODUCER_BATCH_SIZE, defaultValue = "16384")
+    int producerBatchSize;
+
+    @Inject
+    @ConfigProperty(name = TOPIC_CACHE_TTL_MS, defaultValue = "30000")
+    long topicCacheTtlMs;
+
+    @Inject
+    @ConfigProperty(name = DESCRIBE_CHUNK_SIZE, defaultValue = "500")
+    int describeChunkSize;
+
+    @Inject
+    @ConfigProperty(name = DESCRIBE_CHUNK_CONCURRENCY, defaultValue = "4")
+    int describeChunkConcurrency;
+
+    @Inject
+    @ConfigProperty(name = STREAMING_MIN_ITEMS, defaultValue = "1000")
+    int streamingMinItems;
+
+    @Inject
+    @ConfigProperty(name = GROUP_OFFSETS_CONCURRENCY, defaultValue = "20")
+    int groupOffsetsConcurrency;
+
+    @Inject
+    @ConfigProperty(name = END_OFFSET_CACHE_TTL_MS, defaultValue = "2000")
+    long endOffsetCacheTtlMs;
+
+    @Inject
+    @ConfigProperty(name = LAG_SAMPLER_ENABLED, defaultValue = "false")
+    boolean lagSamplerEnabled;
+
+    @Inject
+    @ConfigProperty(name = LAG_SAMPLER_INTERVAL_MS, defaultValue = "60000")
+    long lagSamplerIntervalMs;
+
+    @Inject
+    @ConfigProperty(name = LAG_SAMPLER_SASL_JAAS_CONFIG)
+    Optional<String> lagSamplerSaslJaasConfig;
+
+    @Inject
+    @ConfigProperty(name = LAG_SAMPLER_GROUP_INCLUDE, defaultValue = ".*")
+    String lagSamplerGroupInclude;
+
+    @Inject
+    @ConfigProperty(name = LAG_SAMPLER_GROUP_EXCLUDE)
+    Optional<String> lagSamplerGroupExclude;
+
+    @Inject
+    @ConfigProperty(name = LAG_SAMPLER_MAX_SERIES, defaultValue = "10000")
+    int lagSamplerMaxSeries;
+
+    @Inject
+    @ConfigProperty(name = LAG_HISTORY_SAMPLES, defaultValue = "60")
+    int lagHistorySamples;
+
+    @Inject
+    @ConfigProperty(name = LAG_HISTORY_MIN_INTERVAL_MS, defaultValue = "10000")
+    long lagHistoryMinIntervalMs;
+
+    @Inject
+    @ConfigProperty(name = LAG_HISTORY_MAX_PARTITIONS, defaultValue = "500")
+    int lagHistoryMaxPartitions;
+
+    @Inject
+    @ConfigProperty(name = LAG_HISTORY_MAX_GROUPS, defaultValue = "100")
+    int lagHistoryMaxGroups;
+
+    @Inject
+    @ConfigProperty(name = RESET_OFFSETS_CONCURRENCY, defaultValue = "5")
+    int resetOffsetsConcurrency;
+
+    @Inject
+    @ConfigProperty(name = RECORD_TAIL_MAX_STREAMS, defaultValue = "2")
+    int recordTailMaxStreams;
+
+    @Inject
+    @ConfigProperty(name = RECORD_TAIL_MAX_TOTAL_STREAMS, defaultValue = "20")
+    int recordTailMaxTotalStreams;
+
+    @Inject
+    @ConfigProperty(name = RECORD_TAIL_IDLE_TIMEOUT_MS, defaultValue = "60000")
+    long recordTailIdleTimeoutMs;
+
+    @Inject
+    @ConfigProperty(name = RECORD_TAIL_MAX_DURATION_MS, defaultValue = "900000")
+    long recordTailMaxDurationMs;
+
+    @Inject
+    @ConfigProperty(name = RECORD_TAIL_BATCH_SIZE, defaultValue = "100")
+    int recordTailBatchSize;
+
+    @Inject
+    @ConfigProperty(name = RECORD_SEARCH_MAX_RECORDS, defaultValue = "1000000")
+    int recordSearchMaxRecords;
+
+    @Inject
+    @ConfigProperty(name = RECORD_SEARCH_MAX_BYTES, defaultValue = "268435456")
+    long recordSearchMaxBytes;
+
+    @Inject
+    @ConfigProperty(name = RECORD_SEARCH_MAX_TIME_MS, defaultValue = "10000")
+    long recordSearchMaxTimeMs;
+
+    @Inject
+    @ConfigProperty(name = RECORD_FETCH_MAX_CONSUMERS, defaultValue = "4")
+    int recordFetchMaxConsumers;
+
+    @Inject
+    @ConfigProperty(name = RECORD_FETCH_PARTITIONS_PER_CONSUMER, defaultValue = "50")
+    int recordFetchPartitionsPerConsumer;
+
     Map<String, Object> acConfig;
 
     @PostConstruct
@@ -198,5 +384,148 @@ public class KafkaAdminConfigRetriever {
     public String getAclResourceOperations() {
         return aclResourceOperations;
     }
-}
 
+    public int getClientCacheMaxSize() {
+        return clientCacheMaxSize;
+    }
+
+    public long getClientCacheIdleTimeoutMs() {
+        return clientCacheIdleTimeoutMs;
+    }
+
+    public int getConsumerPoolMaxIdle() {
+        return consumerPoolMaxIdle;
+    }
+
+    public int getConsumerPoolMaxTotal() {
+        return consumerPoolMaxTotal;
+    }
+
+    public long getConsumerPoolIdleTimeoutMs() {
+        return consumerPoolIdleTimeoutMs;
+    }
+
+    public long getConsumerPoolMaxWaitMs() {
+        return consumerPoolMaxWaitMs;
+    }
+
+    public long getConsumerPoolLeakThresholdMs() {
+        return consumerPoolLeakThresholdMs;
+    }
+
+    public int getProducerLingerMs() {
+        return producerLingerMs;
+    }
+
+    public int getProducerBatchSize() {
+        return producerBatchSize;
+    }
+
+    public long getTopicCacheTtlMs() {
+        return topicCacheTtlMs;
+    }
+
+    public int getDescribeChunkSize() {
+        return describeChunkSize;
+    }
+
+    public int getDescribeChunkConcurrency() {
+        return describeChunkConcurrency;
+    }
+
+    public int getStreamingMinItems() {
+        return streamingMinItems;
+    }
+
+    public int getGroupOffsetsConcurrency() {
+        return groupOffsetsConcurrency;
+    }
+
+    public long getEndOffsetCacheTtlMs() {
+        return endOffsetCacheTtlMs;
+    }
+
+    public boolean isLagSamplerEnabled() {
+        return lagSamplerEnabled;
+    }
+
+    public long getLagSamplerIntervalMs() {
+        return lagSamplerIntervalMs;
+    }
+
+    public Optional<String> getLagSamplerSaslJaasConfig() {
+        return lagSamplerSaslJaasConfig;
+    }
+
+    public String getLagSamplerGroupInclude() {
+        return lagSamplerGroupInclude;
+    }
+
+    public Optional<String> getLagSamplerGroupExclude() {
+        return lagSamplerGroupExclude;
+    }
+
+    public int getLagSamplerMaxSeries() {
+        return lagSamplerMaxSeries;
+    }
+
+    public int getLagHistorySamples() {
+        return lagHistorySamples;
+    }
+
+    public long getLagHistoryMinIntervalMs() {
+        return lagHistoryMinIntervalMs;
+    }
+
+    public int getLagHistoryMaxPartitions() {
+        return lagHistoryMaxPartitions;
+    }
+
+    public int getLagHistoryMaxGroups() {
+        return lagHistoryMaxGroups;
+    }
+
+    public int getResetOffsetsConcurrency() {
+        return resetOffsetsConcurrency;
+    }
+
+    public int getRecordTailMaxStreams() {
+        return recordTailMaxStreams;
+    }
+
+    public int getRecordTailMaxTotalStreams() {
+        return recordTailMaxTotalStreams;
+    }
+
+    public long getRecordTailIdleTimeoutMs() {
+        return recordTailIdleTimeoutMs;
+    }
+
+    public long getRecordTailMaxDurationMs() {
+        return recordTailMaxDurationMs;
+    }
+
+    public int getRecordTailBatchSize() {
+        return recordTailBatchSize;
+    }
+
+    public int getRecordSearchMaxRecords() {
+        return recordSearchMaxRecords;
+    }
+
+    public long getRecordSearchMaxBytes() {
+        return recordSearchMaxBytes;
+    }
+
+    public long getRecordSearchMaxTimeMs() {
+        return recordSearchMaxTimeMs;
+    }
+
+    public int getRecordFetchMaxConsumers() {
+        return recordFetchMaxConsumers;
+    }
+
+    public int getRecordFetchPartitionsPerConsumer() {
+        return recordFetchPartitionsPerConsumer;
+    }
+}
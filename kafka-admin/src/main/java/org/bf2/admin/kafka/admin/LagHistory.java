@@ -0,0 +1,265 @@
+package org.bf2.admin.kafka.admin;
+
+import org.apache.kafka.common.TopicPartition;
+import org.bf2.admin.kafka.admin.model.Types;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory history of consumer group lag. For each partition of a group, a
+ * fixed number of samples of the committed offset and log end offset are retained
+ * in a ring buffer, replacing the oldest sample once full. Samples are recorded
+ * when a group is described and by the {@link ConsumerLagSampler}.
+ *
+ * Memory is bounded by the number of samples per partition, the number of
+ * partitions per group, and the number of groups. The history of the least
+ * recently sampled group is discarded when the maximum number of groups is
+ * exceeded.
+ *
+ * The history does not determine which groups a client may see, callers must
+ * first describe the group using the client's own credentials. The history may
+ * include partitions sampled with other credentials, so only the partitions of
+ * the group as described for the client are returned.
+ */
+@ApplicationScoped
+public class LagHistory {
+
+    @Inject
+    KafkaAdminConfigRetriever config;
+
+    final Map<String, GroupHistory> groups = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GroupHistory> eldest) {
+            return size() > config.getLagHistoryMaxGroups();
+        }
+    });
+
+    public boolean isEnabled() {
+        return config.getLagHistorySamples() > 0;
+    }
+
+    /**
+     * Record a sample of the group's committed offsets and partition end offsets.
+     * The sample is taken at the time the end offsets were fetched, as given by the
+     * group's {@link Types.ConsumerGroup#getOffsetsAge() offsets age}.
+     *
+     * @param group the described consumer group
+     */
+    public void record(Types.ConsumerGroup group) {
+        if (!isEnabled() || group == null || group.getConsumers() == null) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final long timestamp = now - Optional.ofNullable(group.getOffsetsAge()).orElse(0L);
+
+        GroupHistory history = groups.computeIfAbsent(group.getGroupId(), id -> new GroupHistory());
+
+        if (!history.acquire(timestamp, config.getLagHistoryMinIntervalMs())) {
+            return;
+        }
+
+        final int maxPartitions = config.getLagHistoryMaxPartitions();
+        final int capacity = config.getLagHistorySamples();
+
+        for (Types.Consumer consumer : group.getConsumers()) {
+            if (consumer.getTopic() == null) {
+                // Member without assigned partitions
+                continue;
+            }
+
+            TopicPartition partition = new TopicPartition(consumer.getTopic(), consumer.getPartition());
+            PartitionHistory samples = history.partitions.get(partition);
+
+            if (samples == null) {
+                if (history.partitions.size() >= maxPartitions) {
+                    continue;
+                }
+                samples = history.partitions.computeIfAbsent(partition, p -> new PartitionHistory(capacity));
+            }
+
+            samples.add(timestamp, consumer.getOffset(), consumer.getLogEndOffset());
+        }
+    }
+
+    /**
+     * Retrieve the lag history of a group, limited to the partitions of the group
+     * as described using the client's credentials.
+     *
+     * @param group the group as described using the client's credentials
+     * @param topicFilter optional topic name, limiting the result to the partitions of the topic
+     * @return the group's lag history, with no partitions when the group has not been sampled
+     */
+    public Types.ConsumerGroupLagHistory getHistory(Types.ConsumerGroup group, Optional<String> topicFilter) {
+        final String groupId = group.getGroupId();
+        GroupHistory history = groups.get(groupId);
+        List<Types.PartitionLagHistory> partitions = new ArrayList<>();
+
+        if (history != null) {
+            Set<TopicPartition> visible = Optional.ofNullable(group.getConsumers())
+                    .orElseGet(Collections::emptyList)
+                    .stream()
+                    .filter(consumer -> consumer.getTopic() != null)
+                    .map(consumer -> new TopicPartition(consumer.getTopic(), consumer.getPartition()))
+                    .collect(Collectors.toSet());
+
+            history.partitions.forEach((partition, samples) -> {
+                if (visible.contains(partition) && topicFilter.map(partition.topic()::equals).orElse(true)) {
+                    partitions.add(samples.toResponse(partition));
+                }
+            });
+
+            partitions.sort(Comparator.comparing(Types.PartitionLagHistory::getTopic)
+                                .thenComparing(Types.PartitionLagHistory::getPartition));
+        }
+
+        return new Types.ConsumerGroupLagHistory(groupId, partitions);
+    }
+
+    static class GroupHistory {
+        final Map<TopicPartition, PartitionHistory> partitions = new ConcurrentHashMap<>();
+        long lastSample = Long.MIN_VALUE;
+
+        /**
+         * @return true when the sample should be recorded, i.e. the minimum interval
+         *         has elapsed since the group's previous sample
+         */
+        synchronized boolean acquire(long timestamp, long minIntervalMs) {
+            if (lastSample != Long.MIN_VALUE && timestamp - lastSample < minIntervalMs) {
+                return false;
+            }
+            lastSample = timestamp;
+            return true;
+        }
+    }
+
+    /**
+     * Ring buffer of the samples of a single partition.
+     */
+    static class PartitionHistory {
+        final long[] timestamps;
+        final long[] offsets;
+        final long[] endOffsets;
+        int next;
+        int count;
+
+        PartitionHistory(int capacity) {
+            timestamps = new long[capacity];
+            offsets = new long[capacity];
+            endOffsets = new long[capacity];
+        }
+
+        synchronized void add(long timestamp, long offset, long endOffset) {
+            timestamps[next] = timestamp;
+            offsets[next] = offset;
+            endOffsets[next] = endOffset;
+            next = (next + 1) % timestamps.length;
+            count = Math.min(count + 1, timestamps.length);
+        }
+
+        /**
+         * @return the samples, oldest first
+         */
+        synchronized List<Types.LagSample> samples() {
+            List<Types.LagSample> samples = new ArrayList<>(count);
+            int first = (next - count + timestamps.length) % timestamps.length;
+
+            for (int i = 0; i < count; i++) {
+                int index = (first + i) % timestamps.length;
+                samples.add(new Types.LagSample(timestamps[index], offsets[index], endOffsets[index]));
+            }
+
+            return samples;
+        }
+
+        Types.PartitionLagHistory toResponse(TopicPartition partition) {
+            List<Types.LagSample> samples = samples();
+            return new Types.PartitionLagHistory(partition.topic(),
+                                                 partition.partition(),
+                                                 estimateTimeLag(samples),
+                                                 lagRate(samples),
+                                                 samples);
+        }
+    }
+
+    /**
+     * Estimate the time lag of the latest sample, i.e. the time elapsed since the
+     * log end offset was equal to the committed offset. The time is interpolated
+     * between the two samples where the log end offset passed the committed offset.
+     * When the committed offset precedes all sampled end offsets, the time is
+     * extrapolated using the average rate at which the end offset grew over the
+     * sampled interval.
+     *
+     * @param samples the samples, oldest first
+     * @return the estimated time lag in milliseconds, or null when no estimate is possible
+     */
+    static Long estimateTimeLag(List<Types.LagSample> samples) {
+        if (samples.isEmpty()) {
+            return null;
+        }
+
+        final Types.LagSample latest = samples.get(samples.size() - 1);
+        final long committed = latest.getOffset();
+
+        if (latest.getLag() == 0) {
+            return 0L;
+        }
+
+        for (int i = samples.size() - 2; i >= 0; i--) {
+            Types.LagSample sample = samples.get(i);
+
+            if (sample.getLogEndOffset() <= committed) {
+                Types.LagSample following = samples.get(i + 1);
+                long produced = following.getLogEndOffset() - sample.getLogEndOffset();
+                long elapsed = following.getTimestamp() - sample.getTimestamp();
+                double fraction = produced > 0 ? (double) (committed - sample.getLogEndOffset()) / produced : 1;
+                long reached = sample.getTimestamp() + Math.round(elapsed * fraction);
+                return Math.max(0, latest.getTimestamp() - reached);
+            }
+        }
+
+        final Types.LagSample oldest = samples.get(0);
+        long produced = latest.getLogEndOffset() - oldest.getLogEndOffset();
+        long elapsed = latest.getTimestamp() - oldest.getTimestamp();
+
+        if (produced <= 0 || elapsed <= 0) {
+            return null;
+        }
+
+        return Math.round((double) latest.getLag() * elapsed / produced);
+    }
+
+    /**
+     * @param samples the samples, oldest first
+     * @return the change in offset lag per second between the oldest and latest samples, or null when fewer than two samples span a non-zero interval
+     */
+    static Double lagRate(List<Types.LagSample> samples) {
+        if (samples.size() < 2) {
+            return null;
+        }
+
+        final Types.LagSample oldest = samples.get(0);
+        final Types.LagSample latest = samples.get(samples.size() - 1);
+        long elapsed = latest.getTimestamp() - oldest.getTimestamp();
+
+        if (elapsed <= 0) {
+            return null;
+        }
+
+        return (latest.getLag() - oldest.getLag()) * 1000d / elapsed;
+    }
+}
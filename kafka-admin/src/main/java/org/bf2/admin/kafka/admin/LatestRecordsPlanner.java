@@ -0,0 +1,136 @@
+package org.bf2.admin.kafka.admin;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.jboss.logging.Logger;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Plans the offsets from which to read the latest {@code limit} records of a set
+ * of partitions. Reading the last {@code limit} records of every partition reads
+ * up to {@code partitions × limit} records to return {@code limit}. Instead, the
+ * planner probes the partitions' offsets for a small number of timestamps to find
+ * a timestamp after which at least {@code limit} records were written across all
+ * partitions, and reads each partition only from the first record at or after that
+ * timestamp.
+ *
+ * Probes start with a short window before the current time which is widened until
+ * it contains enough records, then narrowed by bisection for the remaining probes.
+ * When no window with enough records is found, each partition is read from
+ * {@code end - limit}.
+ *
+ * The planned offsets hold at least {@code limit} records, but with create times
+ * not all of them need be at or after the target timestamp, while records before
+ * the planned offsets are all older than the target. Callers must read further
+ * back when fewer than {@code limit} of the records read are at or after the
+ * target timestamp.
+ */
+class LatestRecordsPlanner {
+
+    private static final Logger log = Logger.getLogger(LatestRecordsPlanner.class);
+
+    static final int MAX_PROBES = 8;
+    static final long INITIAL_WINDOW_MS = 1000;
+    static final int WINDOW_GROWTH = 16;
+
+    private LatestRecordsPlanner() {
+    }
+
+    /**
+     * @param consumer consumer assigned the partitions
+     * @param endOffsets end offsets of the partitions
+     * @param limit number of records to be returned
+     * @param now current time, epoch milliseconds
+     * @param startOffsets populated with the offset from which each partition should be read
+     * @return the target timestamp, every record before a partition's planned offset
+     *         (and at or after {@code end - limit}) is older than the target.
+     *         {@link Long#MIN_VALUE} when each partition is read from {@code end - limit}.
+     */
+    static long plan(Consumer<byte[], byte[]> consumer,
+                     Map<TopicPartition, Long> endOffsets,
+                     int limit,
+                     long now,
+                     Map<TopicPartition, Long> startOffsets) {
+
+        Map<TopicPartition, Long> defaultPlan = endOffsets.entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> Math.max(e.getValue() - limit, 0)));
+
+        if (readCount(endOffsets, defaultPlan) <= limit) {
+            // Reading the last records of every partition reads no more than required
+            startOffsets.putAll(defaultPlan);
+            return Long.MIN_VALUE;
+        }
+
+        Map<TopicPartition, Long> plan = null;
+        long feasible = -1;
+        long infeasible = now;
+        long window = INITIAL_WINDOW_MS;
+        int probes = 0;
+
+        while (probes < MAX_PROBES && (plan == null ? infeasible > 0 : infeasible - feasible > 1)) {
+            final long target = plan == null ? Math.max(now - window, 0) : feasible + (infeasible - feasible) / 2;
+            Map<TopicPartition, Long> probe = probe(consumer, endOffsets, defaultPlan, target);
+            probes++;
+
+            if (readCount(endOffsets, probe) >= limit) {
+                feasible = target;
+                plan = probe;
+            } else {
+                infeasible = target;
+                window *= WINDOW_GROWTH;
+            }
+        }
+
+        if (plan == null) {
+            log.debugf("No timestamp with %d records found after %d probes, reading the last records of each partition", limit, probes);
+            startOffsets.putAll(defaultPlan);
+            return Long.MIN_VALUE;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debugf("Planned %d records for limit %d after %d probes, %d by default",
+                       readCount(endOffsets, plan), limit, probes, readCount(endOffsets, defaultPlan));
+        }
+
+        startOffsets.putAll(plan);
+        return feasible;
+    }
+
+    /**
+     * Find the offset of each partition's first record at or after the target
+     * timestamp, never before the default starting offset.
+     */
+    static Map<TopicPartition, Long> probe(Consumer<byte[], byte[]> consumer,
+                                           Map<TopicPartition, Long> endOffsets,
+                                           Map<TopicPartition, Long> defaultPlan,
+                                           long target) {
+
+        Collection<TopicPartition> partitions = endOffsets.keySet();
+        Map<TopicPartition, OffsetAndTimestamp> offsets = consumer.offsetsForTimes(partitions.stream()
+                .collect(Collectors.toMap(Function.identity(), p -> target)));
+        Map<TopicPartition, Long> result = new HashMap<>(partitions.size());
+
+        for (TopicPartition p : partitions) {
+            OffsetAndTimestamp offset = offsets.get(p);
+            // No record at or after the target, nothing to read from the partition
+            long start = offset != null ? offset.offset() : endOffsets.get(p);
+            result.put(p, Math.max(start, defaultPlan.get(p)));
+        }
+
+        return result;
+    }
+
+    static long readCount(Map<TopicPartition, Long> endOffsets, Map<TopicPartition, Long> startOffsets) {
+        return endOffsets.entrySet()
+                .stream()
+                .mapToLong(e -> Math.max(e.getValue() - startOffsets.get(e.getKey()), 0))
+                .sum();
+    }
+}
@@ -9,11 +9,14 @@ public class Operations {
 
     public static final String CONSUME_RECORDS = "consumeRecords";
     public static final String PRODUCE_RECORD = "produceRecord";
+    public static final String TAIL_RECORDS = "tailRecords";
 
     public static final String GET_CONSUMER_GROUP = "getConsumerGroupById";
     public static final String GET_CONSUMER_GROUPS_LIST = "getConsumerGroups";
     public static final String DELETE_CONSUMER_GROUP = "deleteConsumerGroupById";
     public static final String RESET_CONSUMER_GROUP_OFFSET = "resetConsumerGroupOffset";
+    public static final String RESET_CONSUMER_GROUPS_OFFSETS = "resetConsumerGroupsOffsets";
+    public static final String GET_CONSUMER_GROUP_LAG_HISTORY = "getConsumerGroupLagHistory";
 
     public static final String GET_ACL_RESOURCE_OPERATIONS = "getAclResourceOperations";
     public static final String GET_ACLS = "getAcls";
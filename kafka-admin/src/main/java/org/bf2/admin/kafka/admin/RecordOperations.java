@@ -1,5 +1,7 @@
 package org.bf2.admin.kafka.admin;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
@@ -7,22 +9,28 @@ import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.ApiException;
 import org.apache.kafka.common.errors.InvalidPartitionsException;
 import org.apache.kafka.common.errors.TimeoutException;
 import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.utils.Utils;
 import org.bf2.admin.kafka.admin.handlers.AdminClientFactory;
+import org.bf2.admin.kafka.admin.handlers.ClientCache;
 import org.bf2.admin.kafka.admin.model.Types;
+import org.eclipse.microprofile.context.ManagedExecutor;
 import org.jboss.logging.Logger;
 
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
@@ -31,20 +39,21 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableSet;
-import java.util.NoSuchElementException;
-import java.util.TreeSet;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 
 @RequestScoped
@@ -53,135 +62,809 @@ public class RecordOperations {
     private static final Logger log = Logger.getLogger(RecordOperations.class);
     public static final String BINARY_DATA_MESSAGE = "Binary or non-UTF-8 encoded data cannot be displayed";
     static final int REPLACEMENT_CHARACTER = '\uFFFD';
+    /**
+     * Minimum number of records of each partition read backwards at a time when
+     * searching for the latest records matching a filter
+     */
+    static final long MIN_SCAN_WINDOW = 500;
+    private static final String SEND_TIMER = "record_send_time";
+    private static final String SEND_RESULT = "result";
+    private static final String FETCH_TIMER = "record_fetch_time";
+    private static final String FETCH_CONSUMERS = "consumers";
+    private static final String FETCH_RESULT = "result";
 
     @Inject
     AdminClientFactory clientFactory;
 
-    public Types.PagedResponse<Types.Record> consumeRecords(String topicName,
-                                              Integer partition,
-                                              Integer offset,
-                                              String timestamp,
-                                              Integer limit,
-                                              List<String> include,
-                                              Integer maxValueLength) {
+    @Inject
+    HttpMetrics metrics;
 
-        try (Consumer<byte[], byte[]> consumer = clientFactory.createConsumer(null)) {
-            List<PartitionInfo> partitions = consumer.partitionsFor(topicName);
+    @Inject
+    EndOffsetCache offsetCache;
 
-            if (partitions.isEmpty()) {
-                throw noSuchTopic(topicName);
+    @Inject
+    KafkaAdminConfigRetriever config;
+
+    @Inject
+    RecordTailRegistry tails;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    ManagedExecutor executor;
+
+    final CharsetDecoder utf8Decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    CharBuffer decodeBuffer;
+
+    public Types.RecordList consumeRecords(String topicName,
+                                           Integer partition,
+                                           Integer offset,
+                                           String timestamp,
+                                           Integer limit,
+                                           List<String> include,
+                                           Integer maxValueLength,
+                                           String key,
+                                           boolean defaultPartitioner,
+                                           RecordSearch search,
+                                           Map<Integer, Long> resumeFrom) {
+
+        List<ClientCache.ConsumerLease> leases = new ArrayList<>();
+
+        try {
+            leases.add(clientFactory.borrowConsumer());
+            return consumeRecords(leases.get(0).get(), topicName, partition, offset, timestamp, limit, include, maxValueLength,
+                                  key, defaultPartitioner, search, resumeFrom, count -> borrowConsumers(count, leases));
+        } catch (RuntimeException e) {
+            if (!(e instanceof ApiException)) {
+                // Do not return consumers to the pool that may be in an unknown state
+                leases.forEach(ClientCache.ConsumerLease::invalidate);
+            }
+            throw e;
+        } finally {
+            leases.forEach(ClientCache.ConsumerLease::close);
+        }
+    }
+
+    /**
+     * Borrow up to the given number of consumers, only as many as are available
+     * in the pool without waiting.
+     *
+     * @param leases leases of the consumers borrowed, to be closed by the caller
+     */
+    List<Consumer<byte[], byte[]>> borrowConsumers(int count, List<ClientCache.ConsumerLease> leases) {
+        List<Consumer<byte[], byte[]>> consumers = new ArrayList<>(count);
+
+        while (consumers.size() < count) {
+            Optional<ClientCache.ConsumerLease> lease = clientFactory.tryBorrowConsumer();
+
+            if (lease.isEmpty()) {
+                break;
+            }
+
+            leases.add(lease.get());
+            consumers.add(lease.get().get());
+        }
+
+        return consumers;
+    }
+
+    Types.RecordList consumeRecords(Consumer<byte[], byte[]> consumer,
+                                    String topicName,
+                                    Integer partition,
+                                    Integer offset,
+                                    String timestamp,
+                                    Integer limit,
+                                    List<String> include,
+                                    Integer maxValueLength,
+                                    String key,
+                                    boolean defaultPartitioner,
+                                    RecordSearch search,
+                                    Map<Integer, Long> resumeFrom) {
+
+        return consumeRecords(consumer, topicName, partition, offset, timestamp, limit, include, maxValueLength,
+                              key, defaultPartitioner, search, resumeFrom, null);
+    }
+
+    /**
+     * Consume the records of a topic, or of one of its partitions. When a key is given,
+     * only records with the key are returned. Unless a partition is given or the topic
+     * does not use the default partitioner, only the partition the key is assigned to is
+     * read. When a search is given, only records matching the search are returned.
+     *
+     * Reading records with a key or search is limited by the scan budget rather than by
+     * the number of records requested. When the scan reads records from a starting offset,
+     * timestamp, or resume positions and does not reach the end of the partitions, the
+     * response gives the positions from which to resume the scan.
+     *
+     * Topics with more partitions than {@link KafkaAdminConfigRetriever#getRecordFetchPartitionsPerConsumer()}
+     * are read by additional consumers when available, each reading a subset of the partitions
+     * concurrently with its own share of the scan budget. The records selected from each subset
+     * are merged.
+     *
+     * @param additionalConsumers borrows up to the given number of consumers in addition to
+     *        the consumer given, null to read all partitions with the consumer given
+     */
+    Types.RecordList consumeRecords(Consumer<byte[], byte[]> consumer,
+                                    String topicName,
+                                    Integer partition,
+                                    Integer offset,
+                                    String timestamp,
+                                    Integer limit,
+                                    List<String> include,
+                                    Integer maxValueLength,
+                                    String key,
+                                    boolean defaultPartitioner,
+                                    RecordSearch search,
+                                    Map<Integer, Long> resumeFrom,
+                                    IntFunction<List<Consumer<byte[], byte[]>>> additionalConsumers) {
+
+        final Timer.Sample fetchTime = Timer.start();
+        final byte[] keyBytes = key != null ? key.getBytes(StandardCharsets.UTF_8) : null;
+        final boolean resume = !resumeFrom.isEmpty();
+        List<TopicPartition> partitions = resume
+                ? partitions(consumer, topicName, resumeFrom.keySet())
+                : partitions(consumer, topicName, partition, defaultPartitioner ? keyBytes : null);
+        final boolean latest = timestamp == null && offset == null && !resume;
+
+        List<Consumer<byte[], byte[]>> consumers = new ArrayList<>();
+        consumers.add(consumer);
+
+        if (additionalConsumers != null) {
+            consumers.addAll(additionalConsumers.apply(consumerCount(partitions.size()) - 1));
+        }
+
+        final List<List<TopicPartition>> subsets = divide(partitions, consumers.size());
+        final Instant timeout = keyBytes != null || search != null
+                // Filtered reads are limited by the scan budget
+                ? Instant.now().plusMillis(config.getRecordSearchMaxTimeMs())
+                : Instant.now().plusSeconds(2);
+        // Regular expressions are not matched beyond the time budget
+        final RecordSearch boundedSearch = search != null ? search.until(timeout) : null;
+        final List<Fetch> fetches = new ArrayList<>(subsets.size());
+
+        for (List<TopicPartition> subset : subsets) {
+            RecordScan scan = newScan(keyBytes, boundedSearch, subsets.size());
+            scan.timeout = timeout;
+            fetches.add(new Fetch(subset, new TopRecords(limit, recordOrder(latest)), scan));
+        }
+
+        List<CompletableFuture<Void>> pending = new ArrayList<>(subsets.size() - 1);
+
+        try {
+            for (int i = 1; i < fetches.size(); i++) {
+                final Consumer<byte[], byte[]> fetchConsumer = consumers.get(i);
+                final Fetch fetch = fetches.get(i);
+                pending.add(CompletableFuture.runAsync(() -> fetch(fetchConsumer, fetch, offset, timestamp, resumeFrom, limit, latest), executor));
+            }
+
+            fetch(consumer, fetches.get(0), offset, timestamp, resumeFrom, limit, latest);
+        } finally {
+            // Consumers may only be returned to the pool once no longer in use
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).handle((nothing, error) -> null).join();
+        }
+
+        pending.forEach(RecordOperations::join);
+
+        Fetch merged = merge(fetches, latest);
+        Types.RecordList response = recordList(merged.selected, merged.scan, latest ? null : merged.endOffsets, topicName, include, maxValueLength);
+
+        boolean complete = !merged.scan.exhausted && Instant.now().isBefore(timeout);
+        fetchTime.stop(metrics.getRegistry().timer(FETCH_TIMER,
+                                                   FETCH_CONSUMERS, String.valueOf(fetches.size()),
+                                                   FETCH_RESULT, complete ? "complete" : "partial"));
+
+        return response;
+    }
+
+    /**
+     * @return the number of consumers to read the given number of partitions, at
+     *         least one
+     */
+    int consumerCount(int partitionCount) {
+        int perConsumer = Math.max(config.getRecordFetchPartitionsPerConsumer(), 1);
+        int count = (partitionCount + perConsumer - 1) / perConsumer;
+        return Math.max(Math.min(count, config.getRecordFetchMaxConsumers()), 1);
+    }
+
+    /**
+     * Divide the partitions into the given number of subsets, alternating between the
+     * subsets so that each has a similar number of partitions.
+     */
+    static List<List<TopicPartition>> divide(List<TopicPartition> partitions, int count) {
+        List<List<TopicPartition>> subsets = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            subsets.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < partitions.size(); i++) {
+            subsets.get(i % count).add(partitions.get(i));
+        }
+
+        return subsets;
+    }
+
+    static void join(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Records selected from a subset of the partitions of a topic by a single consumer
+     */
+    static class Fetch {
+        final List<TopicPartition> assignments;
+        final TopRecords selected;
+        final RecordScan scan;
+        Map<TopicPartition, Long> endOffsets = Collections.emptyMap();
+
+        Fetch(List<TopicPartition> assignments, TopRecords selected, RecordScan scan) {
+            this.assignments = assignments;
+            this.selected = selected;
+            this.scan = scan;
+        }
+    }
+
+    /**
+     * Select up to `limit` records from the partitions of the fetch, using the
+     * consumer given.
+     */
+    void fetch(Consumer<byte[], byte[]> consumer,
+               Fetch fetch,
+               Integer offset,
+               String timestamp,
+               Map<Integer, Long> resumeFrom,
+               int limit,
+               boolean latest) {
+
+        final List<TopicPartition> assignments = fetch.assignments;
+        final TopRecords selected = fetch.selected;
+        final RecordScan scan = fetch.scan;
+        consumer.assign(assignments);
+        // Partitions that may have further records to be selected
+        Set<TopicPartition> polling = new HashSet<>(assignments);
+        Map<TopicPartition, Long> endOffsets;
+        Map<TopicPartition, Long> startOffsets = new HashMap<>();
+        long planTarget = Long.MIN_VALUE;
+
+        if (!resumeFrom.isEmpty()) {
+            endOffsets = endOffsets(consumer, assignments, null);
+            seek(consumer, assignments.stream().collect(Collectors.toMap(Function.identity(), p -> resumeFrom.get(p.partition()))), endOffsets, polling);
+        } else if (timestamp != null) {
+            seekToTimestamp(consumer, assignments, timestamp);
+            // The end offsets bound scans for records, allowing the scan to report whether it is complete
+            endOffsets = scan.isFiltered() ? endOffsets(consumer, assignments, null) : Collections.emptyMap();
+        } else if (latest) {
+            endOffsets = endOffsets(consumer, assignments, offset);
+
+            // Matching records are searched for backwards from the end, see pollLatestMatching
+            if (!scan.isFiltered()) {
+                planTarget = LatestRecordsPlanner.plan(consumer, endOffsets, limit, System.currentTimeMillis(), startOffsets);
+                seek(consumer, startOffsets, endOffsets, polling);
             }
+        } else {
+            endOffsets = endOffsets(consumer, assignments, offset);
+            seek(consumer, assignments.stream().collect(Collectors.toMap(Function.identity(), p -> offset.longValue())), endOffsets, polling);
+        }
+
+        fetch.endOffsets = endOffsets;
+
+        if (scan.isFiltered() && !latest) {
+            assignments.forEach(p -> scan.positions.put(p, consumer.position(p)));
+        }
+
+        if (!scan.isFiltered()) {
+            int maxRecords = assignments.size() * limit;
+            poll(consumer, selected, polling, latest, endOffsets, scan.timeout, maxRecords, scan);
+
+            // Records before the planned offsets are older than the target, only those selected older still may be replaced
+            if (latest && (selected.size() < limit || selected.last().timestamp() < planTarget)) {
+                pollBeforePlan(consumer, selected, polling, startOffsets, endOffsets, limit, scan.timeout, maxRecords, scan);
+            }
+        } else if (latest) {
+            pollLatestMatching(consumer, selected, endOffsets, limit, scan.timeout, scan);
+        } else {
+            poll(consumer, selected, polling, latest, endOffsets, scan.timeout, Integer.MAX_VALUE, scan);
+        }
+    }
+
+    /**
+     * Merge the records selected from each subset of the partitions into the
+     * selection of the first. Records of the other subsets not retained by the
+     * merged selection are discarded from the merged scan.
+     */
+    static Fetch merge(List<Fetch> fetches, boolean latest) {
+        Fetch merged = fetches.get(0);
+
+        if (fetches.size() > 1) {
+            merged.endOffsets = new HashMap<>(merged.endOffsets);
+        }
+
+        for (Fetch fetch : fetches.subList(1, fetches.size())) {
+            merged.scan.merge(fetch.scan);
+            merged.endOffsets.putAll(fetch.endOffsets);
+
+            for (ConsumerRecord<byte[], byte[]> rec : fetch.selected.heap) {
+                merged.selected.offer(rec);
+
+                if (!latest && merged.selected.discarded != null) {
+                    merged.scan.discard(merged.selected.discarded);
+                }
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * @param endOffsets end offsets bounding a scan in offset order, null when the latest records were read
+     */
+    Types.RecordList recordList(TopRecords selected,
+                                RecordScan scan,
+                                Map<TopicPartition, Long> endOffsets,
+                                String topicName,
+                                List<String> include,
+                                Integer maxValueLength) {
 
-            List<TopicPartition> assignments = partitions.stream()
-                .filter(p -> partition == null || partition.equals(p.partition()))
-                .map(p -> new TopicPartition(p.topic(), p.partition()))
+        List<Types.Record> results = selected.sorted()
+                .stream()
+                .map(rec -> getItems(rec, topicName, include, maxValueLength))
                 .collect(Collectors.toList());
 
-            if (assignments.isEmpty()) {
-                throw noSuchTopicPartition(topicName, partition);
+        if (log.isDebugEnabled()) {
+            log.debugf("Total consumed records: %d; bytes %d", scan.records, scan.bytes);
+        }
+
+        Types.RecordList response = new Types.RecordList(results, scan.records, scan.bytes);
+
+        if (scan.isFiltered()) {
+            response.setBudgetExhausted(scan.exhausted || !Instant.now().isBefore(scan.timeout));
+
+            if (endOffsets != null) {
+                response.setResumeFrom(Types.RecordFilterParams.formatPositions(scan.resumePositions(endOffsets)
+                        .entrySet()
+                        .stream()
+                        .collect(Collectors.toMap(e -> e.getKey().partition(), Map.Entry::getValue))));
             }
+        }
+
+        return response;
+    }
 
-            consumer.assign(assignments);
+    /**
+     * @param shares number of scans sharing the budget of the request
+     */
+    RecordScan newScan(byte[] key, RecordSearch search, int shares) {
+        Predicate<ConsumerRecord<byte[], byte[]>> filter = key != null ? RecordScan.keyEquals(key) : null;
 
-            if (timestamp != null) {
-                Long tsMillis = stringToTimestamp(timestamp);
-                Map<TopicPartition, Long> timestampsToSearch =
-                        assignments.stream().collect(Collectors.toMap(Function.identity(), p -> tsMillis));
-                consumer.offsetsForTimes(timestampsToSearch)
-                    .forEach((p, tsOffset) -> {
-                        if (tsOffset != null) {
-                            consumer.seek(p, tsOffset.offset());
-                        } else {
-                            /*
-                             * No offset for the time-stamp (future date?), seek to
-                             * end and return nothing for this partition.
-                             */
-                            consumer.seekToEnd(List.of(p));
-                        }
-                    });
+        if (search != null) {
+            filter = filter != null ? filter.and(search) : search;
+        }
+
+        if (filter == null) {
+            return new RecordScan(null);
+        }
+
+        return new RecordScan(filter, config.getRecordSearchMaxRecords() / shares, config.getRecordSearchMaxBytes() / shares);
+    }
+
+    /**
+     * Seek each partition to its starting offset, or to its end when the offset is
+     * beyond the end. Partitions starting at or beyond their end are not polled.
+     */
+    static void seek(Consumer<byte[], byte[]> consumer,
+                     Map<TopicPartition, Long> startOffsets,
+                     Map<TopicPartition, Long> endOffsets,
+                     Set<TopicPartition> polling) {
+
+        startOffsets.forEach((p, offset) -> {
+            long partitionEnd = endOffsets.get(p);
+
+            if (offset <= partitionEnd) {
+                consumer.seek(p, offset);
             } else {
-                Map<TopicPartition, Long> endOffsets = consumer.endOffsets(assignments);
+                /*
+                 * Requested offset is beyond the end of the partition,
+                 * seek to end and return nothing for this partition.
+                 */
+                consumer.seek(p, partitionEnd);
+            }
 
-                assignments.forEach(p -> {
-                    long partitionEnd = endOffsets.get(p);
-
-                    if (offset == null) {
-                        // Fetch the latest records
-                        consumer.seek(p, Math.max(partitionEnd - limit, 0));
-                    } else if (offset <= partitionEnd) {
-                        consumer.seek(p, offset);
-                    } else {
-                        /*
-                         * Requested offset is beyond the end of the partition,
-                         * seek to end and return nothing for this partition.
-                         */
-                        consumer.seek(p, endOffsets.get(p));
-                    }
-                });
+            if (offset >= partitionEnd) {
+                polling.remove(p);
             }
-            Instant timeout = Instant.now().plusSeconds(2);
-            int maxRecords = assignments.size() * limit;
-            List<Types.Record> results = new ArrayList<>();
-            AtomicInteger recordsConsumed = new AtomicInteger(0);
+        });
+    }
 
-            Iterable<ConsumerRecords<byte[], byte[]>> poll = () -> new Iterator<>() {
-                boolean emptyPoll = false;
+    /**
+     * The planned offsets yielded fewer records than required, or records older
+     * than the planner's target timestamp were selected, e.g. due to create times
+     * out of order. Records preceding the planned offsets may then be later than
+     * those selected. Read the records preceding the planned offset of each
+     * partition, from `limit` records before the partition's end.
+     */
+    void pollBeforePlan(Consumer<byte[], byte[]> consumer,
+                        TopRecords selected,
+                        Set<TopicPartition> polling,
+                        Map<TopicPartition, Long> startOffsets,
+                        Map<TopicPartition, Long> endOffsets,
+                        int limit,
+                        Instant timeout,
+                        int maxRecords,
+                        RecordScan scan) {
 
-                @Override
-                public boolean hasNext() {
-                    return !emptyPoll && recordsConsumed.get() < maxRecords && Instant.now().isBefore(timeout);
+        Map<TopicPartition, Long> previousStart = new HashMap<>();
+
+        for (Map.Entry<TopicPartition, Long> start : startOffsets.entrySet()) {
+            TopicPartition p = start.getKey();
+            long correctedStart = Math.max(endOffsets.get(p) - limit, 0);
+
+            if (correctedStart < start.getValue()) {
+                previousStart.put(p, start.getValue());
+                consumer.seek(p, correctedStart);
+            }
+        }
+
+        if (!previousStart.isEmpty()) {
+            log.debugf("Planned offsets yielded %d of %d records or records older than planned, reading preceding records of %d partitions",
+                       selected.size(), limit, previousStart.size());
+            consumer.pause(consumer.assignment());
+            consumer.resume(previousStart.keySet());
+            polling.clear();
+            polling.addAll(previousStart.keySet());
+            poll(consumer, selected, polling, true, previousStart, timeout, maxRecords, scan);
+        }
+    }
+
+    /**
+     * Select the latest records matching the scan's filter. Since matching records
+     * may be anywhere in the partitions, windows of each partition are read backwards
+     * from the end, doubling the size of the window each round, until enough records
+     * are selected and no unread record can be later than the selected records, the
+     * start of each partition is reached, or the timeout elapses. A window is only
+     * moved once it has been read to its end, a poll may return no records before
+     * it is. A window cut short by the timeout or the budget of the scan ends the
+     * search, reported as the budget being exhausted.
+     */
+    void pollLatestMatching(Consumer<byte[], byte[]> consumer,
+                            TopRecords selected,
+                            Map<TopicPartition, Long> endOffsets,
+                            int limit,
+                            Instant timeout,
+                            RecordScan scan) {
+
+        Map<TopicPartition, Long> windowEnds = new HashMap<>(endOffsets);
+        long window = Math.max(limit, MIN_SCAN_WINDOW);
+
+        while (!windowEnds.isEmpty() && !scan.exhausted && Instant.now().isBefore(timeout)) {
+            final long windowSize = window;
+            Map<TopicPartition, Long> bounds = new HashMap<>(windowEnds);
+
+            bounds.forEach((p, end) -> consumer.seek(p, Math.max(end - windowSize, 0)));
+            scan.resetEarliest();
+            // Partitions whose window has not yet been read to its end
+            Set<TopicPartition> polling = new HashSet<>(bounds.keySet());
+            polling.removeIf(p -> consumer.position(p) >= bounds.get(p));
+
+            while (!polling.isEmpty() && !scan.exhausted && !scan.abandoned && Instant.now().isBefore(timeout)) {
+                consumer.pause(consumer.assignment());
+                consumer.resume(polling);
+                poll(consumer, selected, polling, true, bounds, timeout, Integer.MAX_VALUE, scan);
+                polling.removeIf(p -> consumer.position(p) >= bounds.get(p));
+            }
+
+            if (!polling.isEmpty() || scan.abandoned) {
+                // Window not read to its end, its earlier records are unknown
+                scan.exhausted = true;
+                break;
+            }
+
+            Long last = selected.size() < limit ? null : selected.last().timestamp();
+
+            bounds.forEach((p, end) -> {
+                Long earliest = scan.earliest.get(p);
+
+                if (end <= windowSize || last != null && earliest != null && earliest < last) {
+                    // Start of the partition reached, or its earlier records are older than those selected
+                    windowEnds.remove(p);
+                } else {
+                    windowEnds.put(p, end - windowSize);
                 }
+            });
 
-                @Override
-                public ConsumerRecords<byte[], byte[]> next() {
-                    if (!hasNext()) {
-                        throw new NoSuchElementException();
-                    }
-                    var records = consumer.poll(Duration.ofMillis(100));
-                    int pollSize = records.count();
-                    emptyPoll = pollSize == 0;
-                    recordsConsumed.addAndGet(pollSize);
-                    if (log.isTraceEnabled()) {
-                        log.tracef("next() consumed records: %d; total %s", pollSize, recordsConsumed.get());
-                    }
-                    return records;
+            window *= 2;
+        }
+    }
+
+    /**
+     * Poll the consumer, offering the records to the selection until no partitions
+     * remain to be polled, a poll returns no records, the maximum number of records
+     * has been consumed, the budget of the scan is exhausted, or the timeout elapses.
+     *
+     * @param scan counts the records read and filters the records selected
+     */
+    void poll(Consumer<byte[], byte[]> consumer,
+              TopRecords selected,
+              Set<TopicPartition> polling,
+              boolean latest,
+              Map<TopicPartition, Long> endOffsets,
+              Instant timeout,
+              int maxRecords,
+              RecordScan scan) {
+
+        int recordsConsumed = 0;
+
+        while (!polling.isEmpty() && recordsConsumed < maxRecords && Instant.now().isBefore(timeout)) {
+            ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofMillis(100));
+            int pollSize = records.count();
+
+            if (pollSize == 0) {
+                break;
+            }
+
+            recordsConsumed += pollSize;
+
+            for (TopicPartition p : records.partitions()) {
+                List<ConsumerRecord<byte[], byte[]>> partitionRecords = records.records(p);
+                scan.earliest.putIfAbsent(p, partitionRecords.get(0).timestamp());
+
+                if (select(selected, partitionRecords, latest, endOffsets.getOrDefault(p, Long.MAX_VALUE), scan)) {
+                    consumer.pause(List.of(p));
+                    polling.remove(p);
                 }
-            };
+            }
 
-            Comparator<ConsumerRecord<byte[], byte[]>> comparator = Comparator.comparingLong(ConsumerRecord::timestamp);
-            if (timestamp == null && offset == null) {
-                comparator = comparator.reversed();
+            if (scan.exhausted) {
+                break;
             }
-            comparator = comparator
-                    .thenComparingInt(ConsumerRecord::partition)
-                    .thenComparingLong(ConsumerRecord::offset);
 
-            NavigableSet<ConsumerRecord<byte[], byte[]>> limitSet = new TreeSet<>(comparator) {
-                private static final long serialVersionUID = 1L;
-                @Override
-                public boolean add(ConsumerRecord<byte[], byte[]> rec) {
-                    boolean added = super.add(rec);
-                    if (size() > limit) {
-                        pollLast();
-                    }
-                    return added;
+            if (log.isTraceEnabled()) {
+                log.tracef("poll consumed records: %d; total %d; partitions remaining %d", pollSize, recordsConsumed, polling.size());
+            }
+        }
+    }
+
+    /**
+     * Order of the records returned, oldest first when starting from an offset or
+     * timestamp, otherwise latest first.
+     */
+    static Comparator<ConsumerRecord<byte[], byte[]>> recordOrder(boolean latest) {
+        Comparator<ConsumerRecord<byte[], byte[]>> comparator = Comparator.comparingLong(ConsumerRecord::timestamp);
+
+        if (latest) {
+            comparator = comparator.reversed();
+        }
+
+        return comparator
+                .thenComparingInt(ConsumerRecord::partition)
+                .thenComparingLong(ConsumerRecord::offset);
+    }
+
+    /**
+     * Offer the records polled from a single partition for selection.
+     *
+     * @param selected the records selected so far
+     * @param records records of the partition, in offset order
+     * @param latest whether the latest records are being selected
+     * @param endOffset end offset of the partition when known, otherwise {@link Long#MAX_VALUE}.
+     *        Records at or beyond the end offset are not selected.
+     * @param scan scan filtering the records selected
+     * @return true when no further records of the partition can be selected, i.e. the
+     *         end offset has been reached, the budget of the scan is exhausted, matching a
+     *         record was abandoned at the search's deadline or, when selecting the oldest
+     *         records, a record with a log append time was not selected.
+     *         Only log append times are known not to decrease within a partition, records
+     *         with a create time may be followed by older records.
+     */
+    static boolean select(TopRecords selected, List<ConsumerRecord<byte[], byte[]>> records, boolean latest, long endOffset, RecordScan scan) {
+        ConsumerRecord<byte[], byte[]> lastRead = null;
+        boolean complete = false;
+
+        for (ConsumerRecord<byte[], byte[]> rec : records) {
+            if (rec.offset() >= endOffset || !scan.read(rec)) {
+                complete = true;
+                break;
+            }
+
+            boolean matched = scan.matches(rec);
+
+            if (scan.abandoned) {
+                // Not searched, the partition's position must not move past the record
+                complete = true;
+                break;
+            }
+
+            lastRead = rec;
+
+            if (matched) {
+                boolean retained = selected.offer(rec);
+
+                if (!latest && selected.discarded != null) {
+                    scan.discard(selected.discarded);
                 }
-            };
 
-            StreamSupport.stream(poll.spliterator(), false)
-                    .flatMap(records -> StreamSupport.stream(records.spliterator(), false))
-                    .collect(Collectors.toCollection(() -> limitSet))
-                    .stream()
-                    .map(rec -> getItems(rec, topicName, include, maxValueLength))
-                    .forEach(results::add);
+                if (!retained && !latest && rec.timestampType() == TimestampType.LOG_APPEND_TIME) {
+                    complete = true;
+                    break;
+                }
+            }
 
-            if (log.isDebugEnabled()) {
-                log.debugf("Total consumed records: %d", recordsConsumed.get());
+            if (rec.offset() + 1 >= endOffset) {
+                complete = true;
+                break;
             }
+        }
+
+        if (!latest && lastRead != null) {
+            scan.positions.put(new TopicPartition(lastRead.topic(), lastRead.partition()), lastRead.offset() + 1);
+        }
 
-            return Types.PagedResponse.forItems(Types.Record.class, results);
+        return complete;
+    }
+
+    /**
+     * Open a stream of the records arriving on a topic, or on one of its partitions.
+     * The stream starts at the end of the partitions unless a starting offset or
+     * timestamp is given. A dedicated consumer is created for the stream rather than
+     * borrowed from the pool, since it is held for as long as the stream is open.
+     *
+     * @throws org.bf2.admin.kafka.admin.model.AdminServerException with
+     *         {@link org.bf2.admin.kafka.admin.model.ErrorType#TOO_MANY_REQUESTS TOO_MANY_REQUESTS}
+     *         when the principal already holds the maximum number of streams
+     */
+    public RecordTail tailRecords(String topicName,
+                                  Integer partition,
+                                  Integer offset,
+                                  String timestamp,
+                                  List<String> include,
+                                  Integer maxValueLength,
+                                  boolean serverSentEvents) {
 
+        Runnable release = tails.open(clientFactory.principalKey());
+        Consumer<byte[], byte[]> consumer;
+
+        try {
+            consumer = clientFactory.createConsumer(config.getRecordTailBatchSize());
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
         }
+
+        return tailRecords(consumer, release, topicName, partition, offset, timestamp, include, maxValueLength, serverSentEvents);
+    }
+
+    RecordTail tailRecords(Consumer<byte[], byte[]> consumer,
+                           Runnable onClose,
+                           String topicName,
+                           Integer partition,
+                           Integer offset,
+                           String timestamp,
+                           List<String> include,
+                           Integer maxValueLength,
+                           boolean serverSentEvents) {
+
+        RecordTail tail = new RecordTail(consumer,
+                                         rec -> getItems(rec, topicName, include, maxValueLength),
+                                         mapper.writer(),
+                                         serverSentEvents,
+                                         config.getRecordTailIdleTimeoutMs(),
+                                         config.getRecordTailMaxDurationMs(),
+                                         onClose);
+
+        try {
+            List<TopicPartition> assignments = assign(consumer, topicName, partition);
+
+            if (timestamp != null) {
+                seekToTimestamp(consumer, assignments, timestamp);
+            } else if (offset != null) {
+                Map<TopicPartition, Long> endOffsets = consumer.endOffsets(assignments);
+                // Offsets beyond the end of a partition start from the end
+                assignments.forEach(p -> consumer.seek(p, Math.min(offset, endOffsets.get(p))));
+            } else {
+                consumer.seekToEnd(assignments);
+            }
+        } catch (RuntimeException e) {
+            tail.close();
+            throw e;
+        }
+
+        return tail;
+    }
+
+    /**
+     * Assign the consumer the partitions of the topic, or only the given partition.
+     *
+     * @return the assigned partitions
+     */
+    List<TopicPartition> assign(Consumer<byte[], byte[]> consumer, String topicName, Integer partition) {
+        List<TopicPartition> assignments = partitions(consumer, topicName, partition, null);
+        consumer.assign(assignments);
+        return assignments;
+    }
+
+    /**
+     * Find the partitions of the topic, the given partition, or the partition the
+     * default partitioner assigns records with the given key.
+     *
+     * @param partitionKey serialized record key, used when no partition is given
+     */
+    List<TopicPartition> partitions(Consumer<byte[], byte[]> consumer, String topicName, Integer partition, byte[] partitionKey) {
+        List<PartitionInfo> partitions = partitionsFor(consumer, topicName);
+
+        final Integer assigned = partition == null && partitionKey != null
+                ? Integer.valueOf(keyPartition(partitionKey, partitions.size()))
+                : partition;
+
+        return partitions(topicName, partitions, assigned != null ? Set.of(assigned) : null);
+    }
+
+    /**
+     * Find the given partitions of the topic.
+     */
+    List<TopicPartition> partitions(Consumer<byte[], byte[]> consumer, String topicName, Set<Integer> partitionIds) {
+        return partitions(topicName, partitionsFor(consumer, topicName), partitionIds);
+    }
+
+    static List<TopicPartition> partitions(String topicName, List<PartitionInfo> partitions, Set<Integer> partitionIds) {
+        List<TopicPartition> assignments = partitions.stream()
+            .filter(p -> partitionIds == null || partitionIds.contains(p.partition()))
+            .map(p -> new TopicPartition(p.topic(), p.partition()))
+            .collect(Collectors.toList());
+
+        if (partitionIds != null && assignments.size() < partitionIds.size()) {
+            int missing = partitionIds.stream()
+                .filter(id -> assignments.stream().noneMatch(p -> p.partition() == id))
+                .findFirst()
+                .orElseThrow();
+            throw noSuchTopicPartition(topicName, missing);
+        }
+
+        return assignments;
+    }
+
+    static List<PartitionInfo> partitionsFor(Consumer<byte[], byte[]> consumer, String topicName) {
+        List<PartitionInfo> partitions = consumer.partitionsFor(topicName);
+
+        if (partitions.isEmpty()) {
+            throw noSuchTopic(topicName);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * @return the partition assigned to records with the key by the producer's default
+     *         partitioner, as used by {@link #send(String, Types.Record, Producer, CompletableFuture) send}
+     */
+    static int keyPartition(byte[] key, int partitionCount) {
+        return Utils.toPositive(Utils.murmur2(key)) % partitionCount;
+    }
+
+    void seekToTimestamp(Consumer<byte[], byte[]> consumer, List<TopicPartition> assignments, String timestamp) {
+        Long tsMillis = stringToTimestamp(timestamp);
+        Map<TopicPartition, Long> timestampsToSearch =
+                assignments.stream().collect(Collectors.toMap(Function.identity(), p -> tsMillis));
+        consumer.offsetsForTimes(timestampsToSearch)
+            .forEach((p, tsOffset) -> {
+                if (tsOffset != null) {
+                    consumer.seek(p, tsOffset.offset());
+                } else {
+                    /*
+                     * No offset for the time-stamp (future date?), seek to
+                     * end and return nothing for this partition.
+                     */
+                    consumer.seekToEnd(List.of(p));
+                }
+            });
     }
 
     public Types.Record getItems(ConsumerRecord<byte[], byte[]> rec, String topicName, List<String> include, Integer maxValueLength) {
@@ -199,9 +882,47 @@ public class RecordOperations {
         return item;
     }
 
+    /**
+     * Obtain the end offsets of the assigned partitions. The latest records are
+     * located using the current end offsets, which are then shared with other
+     * requests via the {@link EndOffsetCache}. Otherwise, cached end offsets are used
+     * to determine whether the requested offset is beyond the end of each partition,
+     * with the current end offset fetched when a partition's offset is not cached or
+     * is smaller than the requested offset. The consumer is only used from the calling
+     * thread, requests by other threads are not awaited.
+     */
+    Map<TopicPartition, Long> endOffsets(Consumer<byte[], byte[]> consumer, List<TopicPartition> assignments, Integer offset) {
+        final long fetchedAt = System.currentTimeMillis();
+
+        if (!offsetCache.isEnabled()) {
+            return consumer.endOffsets(assignments);
+        }
+
+        if (offset == null) {
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(assignments);
+            offsetCache.putAll(endOffsets, fetchedAt);
+            return endOffsets;
+        }
+
+        Map<TopicPartition, Long> endOffsets = offsetCache.getCached(assignments, fetchedAt);
+
+        List<TopicPartition> outdated = assignments.stream()
+            .filter(p -> !endOffsets.containsKey(p) || endOffsets.get(p) < offset)
+            .collect(Collectors.toList());
+
+        if (!outdated.isEmpty()) {
+            Map<TopicPartition, Long> current = consumer.endOffsets(outdated);
+            offsetCache.putAll(current, fetchedAt);
+            endOffsets.putAll(current);
+        }
+
+        return endOffsets;
+    }
+
     public CompletionStage<Types.Record> produceRecord(String topicName, Types.Record input) {
         CompletableFuture<Types.Record> promise = new CompletableFuture<>();
-        Producer<String, String> producer = clientFactory.createProducer();
+        ClientCache.Lease<Producer<String, String>> lease = clientFactory.sharedProducer();
+        Producer<String, String> producer = lease.get();
 
         try {
             List<PartitionInfo> partitions = producer.partitionsFor(topicName);
@@ -219,13 +940,8 @@ public class RecordOperations {
             promise.completeExceptionally(e);
         }
 
-        return promise.whenComplete((result, exception) -> {
-            try {
-                producer.close(Duration.ZERO);
-            } catch (Exception e) {
-                log.warnf("Exception closing Kafka Producer", e);
-            }
-        });
+        // The producer is shared, release it to the cache rather than closing it
+        return promise.whenComplete((result, exception) -> lease.close());
     }
 
     void send(String topicName, Types.Record input, Producer<String, String> producer, CompletableFuture<Types.Record> promise) {
@@ -247,8 +963,11 @@ public class RecordOperations {
             .collect(Collectors.toList()) : Collections.emptyList();
 
         ProducerRecord<String, String> request = new ProducerRecord<>(topicName, input.getPartition(), stringToTimestamp(input.getTimestamp()), key, input.getValue(), headers);
+        Timer.Sample sendTime = Timer.start();
 
         producer.send(request, (meta, exception) -> {
+            sendTime.stop(metrics.getRegistry().timer(SEND_TIMER, SEND_RESULT, exception != null ? "failure" : "success"));
+
             if (exception != null) {
                 promise.completeExceptionally(exception);
             } else {
@@ -274,6 +993,12 @@ public class RecordOperations {
         }
     }
 
+    /**
+     * Decode UTF-8 encoded bytes, up to the maximum length when given. Bytes that are
+     * not valid UTF-8 or that decode to the replacement character or to an undefined
+     * character are reported as binary data with {@link #BINARY_DATA_MESSAGE}. Only the
+     * bytes required for the returned prefix are decoded and checked.
+     */
     String bytesToString(byte[] bytes, Integer maxValueLength) {
         if (bytes == null) {
             return null;
@@ -283,28 +1008,63 @@ public class RecordOperations {
             return "";
         }
 
-        int bufferSize = maxValueLength != null ? Math.min(maxValueLength, bytes.length) : bytes.length;
-        StringBuilder buffer = new StringBuilder(bufferSize);
+        // Each byte decodes to at most one char
+        final int maxLength = maxValueLength != null ? Math.min(maxValueLength, bytes.length) : bytes.length;
 
-        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
-            int input;
+        if (isAscii(bytes, maxLength)) {
+            // ASCII characters are single bytes and all are defined
+            return new String(bytes, 0, maxLength, StandardCharsets.US_ASCII);
+        }
 
-            while ((input = reader.read()) > -1) {
-                if (input == REPLACEMENT_CHARACTER || !Character.isDefined(input)) {
-                    return BINARY_DATA_MESSAGE;
-                }
+        CharBuffer chars = decodeBuffer(maxLength);
+        utf8Decoder.reset();
+        CoderResult result = utf8Decoder.decode(ByteBuffer.wrap(bytes), chars, true);
 
-                buffer.append((char) input);
+        if (result.isUnderflow()) {
+            result = utf8Decoder.flush(chars);
+        }
 
-                if (maxValueLength != null && buffer.length() == maxValueLength) {
-                    break;
-                }
-            }
+        final int length = chars.position();
 
-            return buffer.toString();
-        } catch (IOException e) {
+        if (result.isError() && length < maxLength) {
+            // Invalid input within the prefix to be returned
             return BINARY_DATA_MESSAGE;
         }
+
+        final char[] decoded = chars.array();
+
+        for (int i = 0; i < length; i++) {
+            char c = decoded[i];
+
+            if (c >= 0x80 && (c == REPLACEMENT_CHARACTER || !Character.isDefined(c))) {
+                return BINARY_DATA_MESSAGE;
+            }
+        }
+
+        return new String(decoded, 0, length);
+    }
+
+    static boolean isAscii(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the buffer shared by the values decoded for the request, cleared and
+     *         limited to the given length
+     */
+    CharBuffer decodeBuffer(int length) {
+        if (decodeBuffer == null || decodeBuffer.capacity() < length) {
+            decodeBuffer = CharBuffer.allocate(length);
+        }
+
+        decodeBuffer.clear().limit(length);
+        return decodeBuffer;
     }
 
     Map<String, String> headersToMap(Headers headers, Integer maxValueLength) {
@@ -0,0 +1,137 @@
+package org.bf2.admin.kafka.admin;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * State of the records read by a single request: the filter records must match
+ * to be selected, the number of records and bytes read and the budget limiting
+ * them, and the position reached in each partition.
+ */
+class RecordScan {
+
+    final Predicate<ConsumerRecord<byte[], byte[]>> filter;
+    final int maxRecords;
+    final long maxBytes;
+    /**
+     * Timestamp of the first record read from each partition since the last
+     * {@link #resetEarliest()}
+     */
+    final Map<TopicPartition, Long> earliest = new HashMap<>();
+    /**
+     * Offset of the next record to be read from each partition, maintained only
+     * when records are read in offset order.
+     */
+    final Map<TopicPartition, Long> positions = new HashMap<>();
+    /**
+     * Offset of the first matching record of each partition that was read but not
+     * selected, maintained only when records are read in offset order.
+     */
+    final Map<TopicPartition, Long> discarded = new HashMap<>();
+    int records;
+    long bytes;
+    boolean exhausted;
+    /**
+     * Set once matching a record was abandoned at the deadline of the search. That
+     * record and any read after it have not been searched.
+     */
+    boolean abandoned;
+    /**
+     * Time after which no further records are read, when the scan has a time budget
+     */
+    Instant timeout;
+
+    RecordScan(Predicate<ConsumerRecord<byte[], byte[]>> filter) {
+        this(filter, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    RecordScan(Predicate<ConsumerRecord<byte[], byte[]>> filter, int maxRecords, long maxBytes) {
+        this.filter = filter;
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param key serialized key
+     * @return a filter selecting only records with the given key
+     */
+    static Predicate<ConsumerRecord<byte[], byte[]>> keyEquals(byte[] key) {
+        return rec -> Arrays.equals(key, rec.key());
+    }
+
+    boolean isFiltered() {
+        return filter != null;
+    }
+
+    boolean matches(ConsumerRecord<byte[], byte[]> rec) {
+        try {
+            return filter == null || filter.test(rec);
+        } catch (RecordSearch.DeadlineExceededException e) {
+            abandoned = true;
+            return false;
+        }
+    }
+
+    /**
+     * Count the record as read, unless the budget of the scan is exhausted.
+     *
+     * @return true when the record was read, false when the budget is exhausted
+     *         and the record must not be processed
+     */
+    boolean read(ConsumerRecord<byte[], byte[]> rec) {
+        if (records >= maxRecords || bytes >= maxBytes) {
+            exhausted = true;
+            return false;
+        }
+
+        records++;
+        bytes += Math.max(rec.serializedKeySize(), 0) + Math.max(rec.serializedValueSize(), 0);
+        return true;
+    }
+
+    void discard(ConsumerRecord<byte[], byte[]> rec) {
+        discarded.merge(new TopicPartition(rec.topic(), rec.partition()), rec.offset(), Math::min);
+    }
+
+    /**
+     * Add the records read and positions reached by a scan of other partitions
+     * for the same request.
+     */
+    void merge(RecordScan other) {
+        records += other.records;
+        bytes += other.bytes;
+        exhausted |= other.exhausted;
+        abandoned |= other.abandoned;
+        positions.putAll(other.positions);
+        other.discarded.forEach((p, offset) -> discarded.merge(p, offset, Math::min));
+    }
+
+    void resetEarliest() {
+        earliest.clear();
+    }
+
+    /**
+     * @param endOffsets end offsets of the partitions scanned
+     * @return the offset from which the scan of each partition would continue without
+     *         skipping matching records, for partitions not scanned to their end offset
+     */
+    Map<TopicPartition, Long> resumePositions(Map<TopicPartition, Long> endOffsets) {
+        Map<TopicPartition, Long> resume = new HashMap<>();
+
+        positions.forEach((p, position) -> {
+            long next = Math.min(position, discarded.getOrDefault(p, Long.MAX_VALUE));
+
+            if (next < endOffsets.getOrDefault(p, Long.MAX_VALUE)) {
+                resume.put(p, next);
+            }
+        });
+
+        return resume;
+    }
+}
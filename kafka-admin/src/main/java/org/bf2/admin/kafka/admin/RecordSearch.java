@@ -0,0 +1,172 @@
+package org.bf2.admin.kafka.admin;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.bf2.admin.kafka.admin.model.Types;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Matches records containing a text, or a match of a regular expression, in their
+ * key, value, or header values. Text is searched for in the records' bytes without
+ * decoding them, only regular expressions require the bytes to be decoded as UTF-8.
+ *
+ * Matching a regular expression may backtrack for a time exponential in the length
+ * of the data searched. When the search has a deadline, matching is abandoned once
+ * the deadline has passed by throwing {@link DeadlineExceededException}. The record
+ * has then not been searched, neither matching nor not matching.
+ */
+public class RecordSearch implements Predicate<ConsumerRecord<byte[], byte[]>> {
+
+    final byte[] text;
+    final Pattern pattern;
+    final boolean searchKey;
+    final boolean searchValue;
+    final boolean searchHeaders;
+    final Instant deadline;
+
+    RecordSearch(String query, boolean regex, Collection<String> fields) {
+        this.text = regex ? null : query.getBytes(StandardCharsets.UTF_8);
+        this.pattern = regex ? Pattern.compile(query) : null;
+        this.searchKey = fields.isEmpty() || fields.contains(Types.Record.PROP_KEY);
+        this.searchValue = fields.isEmpty() || fields.contains(Types.Record.PROP_VALUE);
+        this.searchHeaders = fields.isEmpty() || fields.contains(Types.Record.PROP_HEADERS);
+        this.deadline = null;
+    }
+
+    RecordSearch(RecordSearch search, Instant deadline) {
+        this.text = search.text;
+        this.pattern = search.pattern;
+        this.searchKey = search.searchKey;
+        this.searchValue = search.searchValue;
+        this.searchHeaders = search.searchHeaders;
+        this.deadline = deadline;
+    }
+
+    /**
+     * @param query text or regular expression to search for, may be null
+     * @param regex whether the query is a regular expression
+     * @param fields record properties searched, all when empty
+     * @return the search, or null when no query is given
+     */
+    public static RecordSearch of(String query, boolean regex, Collection<String> fields) {
+        return query != null ? new RecordSearch(query, regex, fields) : null;
+    }
+
+    /**
+     * @param deadline time after which regular expressions stop being matched
+     * @return a copy of this search, limited by the deadline
+     */
+    RecordSearch until(Instant deadline) {
+        return new RecordSearch(this, deadline);
+    }
+
+    @Override
+    public boolean test(ConsumerRecord<byte[], byte[]> rec) {
+        if (searchKey && matches(rec.key()) || searchValue && matches(rec.value())) {
+            return true;
+        }
+
+        if (searchHeaders) {
+            for (Header header : rec.headers()) {
+                if (matches(header.value())) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    boolean matches(byte[] data) {
+        if (data == null) {
+            return false;
+        }
+
+        if (pattern != null) {
+            String decoded = new String(data, StandardCharsets.UTF_8);
+
+            if (deadline == null) {
+                return pattern.matcher(decoded).find();
+            }
+
+            return pattern.matcher(new DeadlineCharSequence(decoded, deadline.toEpochMilli())).find();
+        }
+
+        return contains(data, text);
+    }
+
+    static boolean contains(byte[] data, byte[] target) {
+        final int last = data.length - target.length;
+
+        if (target.length == 0) {
+            return true;
+        }
+
+        final byte first = target[0];
+
+        for (int i = 0; i <= last; i++) {
+            if (data[i] == first && Arrays.equals(data, i + 1, i + target.length, target, 1, target.length)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Thrown when matching a record is abandoned at the deadline of the search
+     */
+    static class DeadlineExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        DeadlineExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Text checking the deadline periodically as its characters are read by the
+     * matcher, ending the match by throwing {@link DeadlineExceededException}.
+     */
+    static class DeadlineCharSequence implements CharSequence {
+        static final int CHECK_INTERVAL = 4096;
+
+        final CharSequence text;
+        final long deadline;
+        int reads;
+
+        DeadlineCharSequence(CharSequence text, long deadline) {
+            this.text = text;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads % CHECK_INTERVAL == 0 && System.currentTimeMillis() >= deadline) {
+                throw new DeadlineExceededException();
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new DeadlineCharSequence(text.subSequence(start, end), deadline);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.bf2.admin.kafka.admin;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.errors.WakeupException;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.jboss.logging.Logger;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Streams the records arriving on the partitions assigned to a consumer until
+ * the client disconnects, no records arrive within the idle timeout, or the
+ * maximum duration of the stream elapses. Records are written either as
+ * newline-delimited JSON or as server-sent events.
+ *
+ * Records are polled only once the records of the previous poll have been written
+ * and flushed, so a slow client holds back the consumer rather than causing records
+ * to be buffered. Writing therefore blocks and must take place on a worker thread.
+ *
+ * The consumer is owned by the stream and is closed once the stream ends, after
+ * which the close callback is run, e.g. to release the principal's stream permit.
+ * The stream is also ended by {@link #cancel()} when the response ends without
+ * being written or the connection is closed while writing.
+ */
+public class RecordTail implements StreamingOutput {
+
+    private static final Logger log = Logger.getLogger(RecordTail.class);
+
+    static final byte[] SSE_DATA = "data: ".getBytes(StandardCharsets.UTF_8);
+    static final byte[] SSE_KEEPALIVE = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    static final long POLL_TIMEOUT_MS = 1000;
+
+    final Consumer<byte[], byte[]> consumer;
+    final Function<ConsumerRecord<byte[], byte[]>, Types.Record> mapper;
+    final ObjectWriter writer;
+    final boolean serverSentEvents;
+    final long idleTimeoutMs;
+    final long maxDurationMs;
+    final Runnable onClose;
+    final AtomicBoolean started = new AtomicBoolean(false);
+    final AtomicBoolean closed = new AtomicBoolean(false);
+    volatile boolean cancelled;
+    LongSupplier clock = System::currentTimeMillis;
+
+    RecordTail(Consumer<byte[], byte[]> consumer,
+               Function<ConsumerRecord<byte[], byte[]>, Types.Record> mapper,
+               ObjectWriter writer,
+               boolean serverSentEvents,
+               long idleTimeoutMs,
+               long maxDurationMs,
+               Runnable onClose) {
+        this.consumer = consumer;
+        this.mapper = mapper;
+        this.writer = writer;
+        this.serverSentEvents = serverSentEvents;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxDurationMs = maxDurationMs;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        if (!started.compareAndSet(false, true)) {
+            // Cancelled (and closed) before the response was written
+            return;
+        }
+
+        final long start = clock.getAsLong();
+        long lastRecord = start;
+        long written = 0;
+
+        try {
+            for (long now = start; !cancelled && now - start < maxDurationMs && now - lastRecord < idleTimeoutMs; now = clock.getAsLong()) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofMillis(POLL_TIMEOUT_MS));
+
+                if (records.isEmpty()) {
+                    if (serverSentEvents) {
+                        // Comment line, detects disconnected clients while no records arrive
+                        output.write(SSE_KEEPALIVE);
+                        output.flush();
+                    }
+                    continue;
+                }
+
+                for (ConsumerRecord<byte[], byte[]> rec : records) {
+                    write(output, mapper.apply(rec));
+                }
+
+                output.flush();
+                written += records.count();
+                lastRecord = clock.getAsLong();
+            }
+        } catch (IOException e) {
+            log.debugf("Record tail client disconnected: %s", e.getMessage());
+        } catch (WakeupException e) {
+            log.debug("Record tail cancelled");
+        } finally {
+            log.debugf("Record tail closed after %d records", written);
+            close();
+        }
+    }
+
+    void write(OutputStream output, Types.Record rec) throws IOException {
+        if (serverSentEvents) {
+            output.write(SSE_DATA);
+            output.write(writer.writeValueAsBytes(rec));
+            output.write('\n');
+            output.write('\n');
+        } else {
+            output.write(writer.writeValueAsBytes(rec));
+            output.write('\n');
+        }
+    }
+
+    /**
+     * End the stream, e.g. once the response has ended or the connection has been
+     * closed. When the stream has not started to be written, the consumer is closed
+     * immediately. Otherwise the writing thread is woken from its poll and closes
+     * the consumer itself, the consumer not being safe for use by multiple threads.
+     * Cancelling a closed stream has no effect.
+     */
+    public void cancel() {
+        cancelled = true;
+
+        if (started.compareAndSet(false, true)) {
+            close();
+        } else if (!closed.get()) {
+            consumer.wakeup();
+        }
+    }
+
+    /**
+     * Close the consumer and run the close callback. Also used when the stream
+     * is not written, e.g. when the request fails before the response is sent.
+     */
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            consumer.close();
+        } finally {
+            onClose.run();
+        }
+    }
+}
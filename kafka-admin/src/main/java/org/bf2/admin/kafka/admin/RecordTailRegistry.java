@@ -0,0 +1,84 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.core.instrument.Gauge;
+import org.bf2.admin.kafka.admin.model.AdminServerException;
+import org.bf2.admin.kafka.admin.model.ErrorType;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the open record tail streams of each principal, limiting the number of
+ * streams (and therefore consumers and worker threads) a single principal may
+ * hold concurrently, as well as the number of streams open for all principals.
+ */
+@ApplicationScoped
+public class RecordTailRegistry {
+
+    private static final String STREAMS_GAUGE = "record_tail_streams";
+
+    @Inject
+    KafkaAdminConfigRetriever config;
+
+    @Inject
+    HttpMetrics metrics;
+
+    final Map<String, Integer> streams = new ConcurrentHashMap<>();
+    final AtomicInteger total = new AtomicInteger();
+
+    @PostConstruct
+    void initialize() {
+        Gauge.builder(STREAMS_GAUGE, total, AtomicInteger::get)
+            .description("Number of open record tail streams")
+            .register(metrics.getRegistry());
+    }
+
+    /**
+     * Register a new stream for the principal.
+     *
+     * @param principal key identifying the principal opening the stream
+     * @return callback to be run once the stream has been closed, releasing the
+     *         principal's permit. Running the callback more than once has no effect.
+     * @throws AdminServerException with {@link ErrorType#TOO_MANY_REQUESTS} when
+     *         the principal already holds the maximum number of streams, or the
+     *         maximum number of streams are open for all principals
+     */
+    public Runnable open(String principal) {
+        final int maxStreams = config.getRecordTailMaxStreams();
+
+        if (total.incrementAndGet() > config.getRecordTailMaxTotalStreams()) {
+            total.decrementAndGet();
+            throw new AdminServerException(ErrorType.TOO_MANY_REQUESTS);
+        }
+
+        try {
+            streams.compute(principal, (key, count) -> {
+                int current = count != null ? count : 0;
+
+                if (current >= maxStreams) {
+                    throw new AdminServerException(ErrorType.TOO_MANY_REQUESTS);
+                }
+
+                return current + 1;
+            });
+        } catch (AdminServerException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+
+        AtomicBoolean closed = new AtomicBoolean(false);
+
+        return () -> {
+            if (closed.compareAndSet(false, true)) {
+                streams.computeIfPresent(principal, (key, count) -> count > 1 ? count - 1 : null);
+                total.decrementAndGet();
+            }
+        };
+    }
+}
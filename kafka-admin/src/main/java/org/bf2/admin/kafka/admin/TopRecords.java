@@ -0,0 +1,82 @@
+package org.bf2.admin.kafka.admin;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the first {@code limit} records, in the order of a comparator, of all
+ * records offered. Retained records are kept in a heap bounded by the limit with
+ * the last of the retained records at its head, so a record is discarded (and its
+ * key and value may be collected) as soon as it is known not to be among the
+ * first {@code limit} records.
+ */
+class TopRecords {
+
+    /**
+     * Initial capacity of the heap, avoids allocating for the full limit when
+     * fewer records are offered.
+     */
+    static final int MAX_INITIAL_CAPACITY = 1024;
+
+    final int limit;
+    final Comparator<ConsumerRecord<byte[], byte[]>> comparator;
+    final PriorityQueue<ConsumerRecord<byte[], byte[]>> heap;
+    /**
+     * Record discarded by the last offer, either the record offered or the
+     * retained record it replaced. Null when no record was discarded.
+     */
+    ConsumerRecord<byte[], byte[]> discarded;
+
+    TopRecords(int limit, Comparator<ConsumerRecord<byte[], byte[]>> comparator) {
+        this.limit = limit;
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<>(Math.min(limit, MAX_INITIAL_CAPACITY), comparator.reversed());
+    }
+
+    /**
+     * Offer a record for selection, replacing the last of the retained records
+     * when the limit has been reached and the record is ordered before it.
+     *
+     * @return true when the record is retained, false when it was discarded
+     */
+    boolean offer(ConsumerRecord<byte[], byte[]> rec) {
+        if (heap.size() < limit) {
+            heap.add(rec);
+            discarded = null;
+            return true;
+        }
+
+        if (comparator.compare(rec, heap.peek()) < 0) {
+            discarded = heap.poll();
+            heap.add(rec);
+            return true;
+        }
+
+        discarded = rec;
+        return false;
+    }
+
+    int size() {
+        return heap.size();
+    }
+
+    /**
+     * @return the last of the retained records in the order of the comparator, or null when none are retained
+     */
+    ConsumerRecord<byte[], byte[]> last() {
+        return heap.peek();
+    }
+
+    /**
+     * @return the retained records in the order of the comparator
+     */
+    List<ConsumerRecord<byte[], byte[]>> sorted() {
+        List<ConsumerRecord<byte[], byte[]>> sorted = new ArrayList<>(heap);
+        sorted.sort(comparator);
+        return sorted;
+    }
+}
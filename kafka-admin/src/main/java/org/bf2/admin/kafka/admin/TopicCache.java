@@ -0,0 +1,270 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.jboss.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application-wide cache of topic descriptions shared by all requests listing topics,
+ * together with the topic configurations retrieved by each principal. Entries are kept
+ * for a configurable time to live and are replaced or removed when a topic is created,
+ * updated, or deleted through the API. Changes made to topics by other clients are
+ * visible once the cached entry expires.
+ *
+ * The cache does not determine which topics a client may see. Callers must restrict
+ * lookups to the topics returned by a {@code listTopics} request made with the
+ * client's own credentials, i.e. the topics the client is authorized to describe.
+ * Permission to describe a topic's configuration is granted separately, so a cached
+ * configuration is only returned to the principal that retrieved it.
+ */
+@ApplicationScoped
+public class TopicCache {
+
+    private static final Logger log = Logger.getLogger(TopicCache.class);
+
+    private static final String HITS_COUNTER = "topic_cache_hits";
+    private static final String MISSES_COUNTER = "topic_cache_misses";
+    private static final String SIZE_GAUGE = "topic_cache_size";
+    private static final String AGE_GAUGE = "topic_cache_age_seconds";
+
+    @Inject
+    KafkaAdminConfigRetriever config;
+
+    @Inject
+    HttpMetrics metrics;
+
+    /**
+     * Topic descriptions, without configuration, by topic name
+     */
+    final Map<String, CachedTopic> topics = new ConcurrentHashMap<>();
+    /**
+     * Topic configurations by topic name, then by the principal that retrieved them
+     */
+    final Map<String, Map<String, CachedConfig>> configs = new ConcurrentHashMap<>();
+
+    Counter hits;
+    Counter misses;
+
+    @PostConstruct
+    public void initialize() {
+        hits = metrics.getRegistry().counter(HITS_COUNTER);
+        misses = metrics.getRegistry().counter(MISSES_COUNTER);
+        metrics.getRegistry().gaugeMapSize(SIZE_GAUGE, Tags.empty(), topics);
+        Gauge.builder(AGE_GAUGE, this, cache -> TimeUnit.MILLISECONDS.toSeconds(cache.maximumAge(System.currentTimeMillis())))
+            .description("Age of the oldest topic description held in the cache")
+            .register(metrics.getRegistry());
+
+        if (isEnabled()) {
+            log.infof("Topic cache enabled; time to live %d ms", config.getTopicCacheTtlMs());
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.getTopicCacheTtlMs() > 0;
+    }
+
+    /**
+     * Retrieve the cached, unexpired descriptions of the named topics. Expired
+     * entries encountered are removed from the cache. The topics returned are copies
+     * of the cached descriptions, with the configuration set only when the principal
+     * retrieved it.
+     *
+     * @param names names of the topics to retrieve
+     * @param principal key of the principal of the request, see
+     *        {@link org.bf2.admin.kafka.admin.handlers.AdminClientFactory#principalKey()}
+     * @param now current time, epoch milliseconds
+     * @return map of topic name to cached topic, omitting topics not present in the cache
+     */
+    public Map<String, CachedTopic> getAll(Collection<String> names, String principal, long now) {
+        Map<String, CachedTopic> result = new HashMap<>();
+
+        if (!isEnabled()) {
+            return result;
+        }
+
+        final long ttlMs = config.getTopicCacheTtlMs();
+
+        for (String name : names) {
+            CachedTopic cached = topics.get(name);
+
+            if (cached != null && cached.isExpired(now, ttlMs)) {
+                topics.remove(name, cached);
+                cached = null;
+            }
+
+            if (cached != null) {
+                CachedConfig cachedConfig = configs.getOrDefault(name, Collections.emptyMap()).get(principal);
+
+                if (cachedConfig != null && cachedConfig.isExpired(now, ttlMs)) {
+                    cachedConfig = null;
+                }
+
+                result.put(name, cachedConfig != null
+                    ? new CachedTopic(copy(cached.topic, cachedConfig.config), Math.min(cached.fetchedAt, cachedConfig.fetchedAt))
+                    : new CachedTopic(copy(cached.topic, null), cached.fetchedAt));
+            }
+        }
+
+        increment(hits, result.size());
+        increment(misses, names.size() - result.size());
+
+        return result;
+    }
+
+    /**
+     * @param names names of the topics to be retrieved
+     * @param principal key of the principal of the request
+     * @param now current time, epoch milliseconds
+     * @return the time the oldest unexpired description or configuration of the named topics
+     *         was retrieved, configurations only as retrieved by the principal. The current time
+     *         when none of the topics are cached. Hits and misses are not counted.
+     */
+    public long oldestFetchedAt(Collection<String> names, String principal, long now) {
+        long oldest = now;
+
+        if (!isEnabled()) {
+            return oldest;
+        }
+
+        final long ttlMs = config.getTopicCacheTtlMs();
+
+        for (String name : names) {
+            CachedTopic cached = topics.get(name);
+
+            if (cached != null && !cached.isExpired(now, ttlMs)) {
+                oldest = Math.min(oldest, cached.fetchedAt);
+                CachedConfig cachedConfig = configs.getOrDefault(name, Collections.emptyMap()).get(principal);
+
+                if (cachedConfig != null && !cachedConfig.isExpired(now, ttlMs)) {
+                    oldest = Math.min(oldest, cachedConfig.fetchedAt);
+                }
+            }
+        }
+
+        return oldest;
+    }
+
+    /**
+     * Add or replace the description of a topic and, when set, its configuration as
+     * retrieved by the principal. Either is ignored if the cache already holds one
+     * retrieved more recently.
+     *
+     * @param topic topic description, including configuration when retrieved
+     * @param principal key of the principal that retrieved the topic
+     * @param fetchedAt time (epoch milliseconds) the description was requested from Kafka
+     */
+    public void put(Types.Topic topic, String principal, long fetchedAt) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        CachedTopic update = new CachedTopic(copy(topic, null), fetchedAt);
+        topics.merge(topic.getName(), update, (existing, replacement) -> existing.fetchedAt > replacement.fetchedAt ? existing : replacement);
+
+        if (topic.getConfig() != null) {
+            CachedConfig configUpdate = new CachedConfig(new ArrayList<>(topic.getConfig()), fetchedAt);
+            configs.computeIfAbsent(topic.getName(), name -> new ConcurrentHashMap<>())
+                .merge(principal, configUpdate, (existing, replacement) -> existing.fetchedAt > replacement.fetchedAt ? existing : replacement);
+        }
+    }
+
+    public void invalidate(String topicName) {
+        topics.remove(topicName);
+        configs.remove(topicName);
+    }
+
+    /**
+     * Remove all expired entries, including those for topics deleted by other clients
+     * that would otherwise never be requested again.
+     */
+    public void removeExpired(long now) {
+        final long ttlMs = config.getTopicCacheTtlMs();
+        topics.values().removeIf(cached -> cached.isExpired(now, ttlMs));
+        configs.values().forEach(byPrincipal -> byPrincipal.values().removeIf(cached -> cached.isExpired(now, ttlMs)));
+        configs.values().removeIf(Map::isEmpty);
+    }
+
+    /**
+     * Copy a topic, so that topics held by the cache are never modified by or
+     * shared between requests.
+     */
+    static Types.Topic copy(Types.Topic topic, List<Types.ConfigEntry> config) {
+        Types.Topic copy = new Types.Topic();
+        copy.setName(topic.getName());
+        copy.setIsInternal(topic.getIsInternal());
+        copy.setPartitions(topic.getPartitions() != null ? new ArrayList<>(topic.getPartitions()) : null);
+        copy.setConfig(config != null ? new ArrayList<>(config) : null);
+        return copy;
+    }
+
+    long maximumAge(long now) {
+        return topics.values()
+            .stream()
+            .mapToLong(cached -> now - cached.fetchedAt)
+            .max()
+            .orElse(0);
+    }
+
+    static void increment(Counter counter, int amount) {
+        if (counter != null && amount > 0) {
+            counter.increment(amount);
+        }
+    }
+
+    /**
+     * A topic configuration and the time it was retrieved.
+     */
+    static class CachedConfig {
+        final List<Types.ConfigEntry> config;
+        final long fetchedAt;
+
+        CachedConfig(List<Types.ConfigEntry> config, long fetchedAt) {
+            this.config = config;
+            this.fetchedAt = fetchedAt;
+        }
+
+        boolean isExpired(long now, long ttlMs) {
+            return now - fetchedAt >= ttlMs;
+        }
+    }
+
+    /**
+     * A topic description and the time it was retrieved.
+     */
+    public static class CachedTopic {
+        final Types.Topic topic;
+        final long fetchedAt;
+
+        CachedTopic(Types.Topic topic, long fetchedAt) {
+            this.topic = topic;
+            this.fetchedAt = fetchedAt;
+        }
+
+        public Types.Topic getTopic() {
+            return topic;
+        }
+
+        public long getFetchedAt() {
+            return fetchedAt;
+        }
+
+        boolean isExpired(long now, long ttlMs) {
+            return now - fetchedAt >= ttlMs;
+        }
+    }
+}
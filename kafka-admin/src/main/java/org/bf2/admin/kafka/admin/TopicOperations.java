@@ -11,6 +11,7 @@ import io.vertx.kafka.admin.TopicDescription;
 import io.vertx.kafka.client.common.ConfigResource;
 import org.bf2.admin.kafka.admin.model.AdminServerException;
 import org.bf2.admin.kafka.admin.model.ErrorType;
+import org.bf2.admin.kafka.admin.model.KeyedSort;
 import org.bf2.admin.kafka.admin.model.TopicComparator;
 import org.bf2.admin.kafka.admin.model.Types;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
@@ -21,10 +22,14 @@ import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.NoSuchElementException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -40,7 +45,16 @@ public class TopicOperations {
     @ConfigProperty(name = "kafka.admin.replication.factor", defaultValue = "3")
     short replicationFactor;
 
-    public CompletionStage<Types.Topic> createTopic(KafkaAdminClient ac, Types.NewTopic inputTopic) {
+    @Inject
+    KafkaAdminConfigRetriever config;
+
+    @Inject
+    TopicCache topicCache;
+
+    @Inject
+    AdminRequestBatcher batcher;
+
+    public CompletionStage<Types.Topic> createTopic(KafkaAdminClient ac, String principal, Types.NewTopic inputTopic) {
         NewTopic newKafkaTopic = new NewTopic();
         Promise<Types.Topic> prom = Promise.promise();
 
@@ -62,16 +76,14 @@ public class TopicOperations {
         ac.createTopics(Collections.singletonList(newKafkaTopic), res -> {
             if (res.failed()) {
                 prom.fail(res.cause());
-                ac.close();
             } else {
-                getTopicDescAndConf(ac, inputTopic.getName()).future()
+                getTopicDescAndConf(ac, principal, inputTopic.getName()).future()
                     .onComplete(desc -> {
                         if (desc.failed()) {
                             prom.fail(desc.cause());
                         } else {
                             prom.complete(desc.result());
                         }
-                        ac.close();
                     });
             }
         });
@@ -79,11 +91,18 @@ public class TopicOperations {
         return prom.future().toCompletionStage();
     }
 
-    public CompletionStage<Types.Topic> describeTopic(KafkaAdminClient ac, String topicToDescribe) {
-        return getTopicDescAndConf(ac, topicToDescribe).future().toCompletionStage();
+    public CompletionStage<Types.Topic> describeTopic(KafkaAdminClient ac, String principal, String topicToDescribe) {
+        return getTopicDescAndConf(ac, principal, topicToDescribe).future().toCompletionStage();
     }
 
-    private static Promise<Types.Topic> getTopicDescAndConf(KafkaAdminClient ac, String topicToDescribe) {
+    /**
+     * Describe a single topic and its configuration, replacing the entry for the
+     * topic held by the {@link TopicCache} with the result.
+     *
+     * @param principal key of the principal of the request, the configuration is cached for the principal only
+     */
+    private Promise<Types.Topic> getTopicDescAndConf(KafkaAdminClient ac, String principal, String topicToDescribe) {
+        final long fetchedAt = System.currentTimeMillis();
         Promise<Types.Topic> result = Promise.promise();
         Types.Topic tmp = new Types.Topic();
         ConfigResource resource = new ConfigResource(org.apache.kafka.common.config.ConfigResource.Type.TOPIC, topicToDescribe);
@@ -107,6 +126,7 @@ public class TopicOperations {
             }))
             .onComplete(f -> {
                 if (f.succeeded()) {
+                    topicCache.put(f.result(), principal, fetchedAt);
                     result.complete(f.result());
                 } else {
                     result.fail(f.cause());
@@ -115,86 +135,255 @@ public class TopicOperations {
         return result;
     }
 
-    public CompletionStage<Types.TopicList> getTopicList(KafkaAdminClient ac, Pattern pattern, Types.DeprecatedPageRequest pageRequest, Types.TopicSortParams orderByInput) {
-        Promise<Set<String>> describeTopicsNamesPromise = Promise.promise();
-        Promise<Map<String, io.vertx.kafka.admin.TopicDescription>> describeTopicsPromise = Promise.promise();
-        Promise<Map<ConfigResource, Config>> describeTopicConfigPromise = Promise.promise();
+    /**
+     * Strategy used to retrieve a page of topics, chosen according to the information
+     * needed to sort the topics. Each plan avoids requesting information for topics
+     * outside of the requested page where the sort order allows.
+     */
+    enum TopicListPlan {
+        /**
+         * Sort and page the topic names, then describe and fetch the configuration
+         * of only those topics on the requested page.
+         */
+        NAMES_FIRST,
+        /**
+         * Describe all topics to sort and page by number of partitions, then fetch
+         * the configuration of only those topics on the requested page.
+         */
+        DESCRIPTIONS_FIRST,
+        /**
+         * Describe and fetch the configuration of all topics, then sort and page
+         * by a configuration value.
+         */
+        FULL;
+
+        static TopicListPlan forKey(Types.TopicOrderKey key) {
+            switch (key) {
+                case NAME:
+                    return NAMES_FIRST;
+                case PARTITIONS:
+                    return DESCRIPTIONS_FIRST;
+                default:
+                    return FULL;
+            }
+        }
+    }
+
+    /**
+     * @param streamed whether a page with the given number of items will be streamed
+     *        to the client. When topics are sorted by name, streamed pages are described
+     *        while the response is written, see {@link #describeTopicsLazily}.
+     */
+    public CompletionStage<Types.TopicList> getTopicList(KafkaAdminClient ac,
+                                                         String principal,
+                                                         Pattern pattern,
+                                                         Types.DeprecatedPageRequest pageRequest,
+                                                         Types.TopicSortParams orderByInput,
+                                                         IntPredicate streamed) {
         Promise<Types.TopicList> prom = Promise.promise();
+        final long fetchedAt = System.currentTimeMillis();
+        final AtomicLong oldestCached = new AtomicLong(fetchedAt);
+        final TopicListPlan plan = TopicListPlan.forKey(orderByInput.getField());
+        final boolean descending = Types.SortDirectionEnum.DESC.equals(orderByInput.getOrder());
+        final Types.TopicOrderKey orderKey = orderByInput.getField();
+
+        topicCache.removeExpired(fetchedAt);
+
+        /*
+         * The topics returned by listTopics are those the client is authorized to describe. Only
+         * those topics are retrieved from the cache, the remaining topics are described using
+         * the client's credentials and added to the cache. Configurations are only taken from
+         * the cache when retrieved by the same principal, otherwise they are requested with the
+         * client's credentials.
+         */
+        ac.listTopics()
+            .map(topics -> topics.stream()
+                    .filter(topicName -> byName(pattern, prom).test(topicName))
+                    .collect(Collectors.toList()))
+            .compose(topicNames -> {
+                final int total = topicNames.size();
+
+                switch (plan) {
+                    case NAMES_FIRST:
+                        KeyedSort.byText(Function.<String>identity()).sort(topicNames, descending);
+                        return page(pageRequest, topicNames).compose(names -> {
+                            if (streamed.test(names.size())) {
+                                Types.TopicList topicList = topicList(pageRequest, total, names.size());
+                                topicList.setItems(Collections.emptyList());
+                                topicList.setDeferredItems(describeTopicsLazily(ac, principal, names, fetchedAt));
+                                topicList.setCacheAge(fetchedAt - topicCache.oldestFetchedAt(names, principal, fetchedAt));
+                                return Future.succeededFuture(topicList);
+                            }
+
+                            return describeTopics(ac, principal, names, fetchedAt, oldestCached)
+                                .compose(topics -> configureTopics(ac, principal, topics, fetchedAt))
+                                .map(items -> topicList(pageRequest, total, items, fetchedAt - oldestCached.get()));
+                        });
+                    case DESCRIPTIONS_FIRST:
+                        return describeTopics(ac, principal, topicNames, fetchedAt, oldestCached)
+                            .map(topics -> TopicComparator.sort(topics, orderKey, descending))
+                            .compose(topics -> page(pageRequest, topics))
+                            .compose(topics -> configureTopics(ac, principal, topics, fetchedAt))
+                            .map(items -> topicList(pageRequest, total, items, fetchedAt - oldestCached.get()));
+                    default:
+                        return describeTopics(ac, principal, topicNames, fetchedAt, oldestCached)
+                            .compose(topics -> configureTopics(ac, principal, topics, fetchedAt))
+                            .map(topics -> TopicComparator.sort(topics, orderKey, descending))
+                            .compose(topics -> page(pageRequest, topics))
+                            .map(items -> topicList(pageRequest, total, items, fetchedAt - oldestCached.get()));
+                }
+            }).onComplete(finalRes -> {
+                if (finalRes.failed()) {
+                    prom.tryFail(finalRes.cause());
+                } else {
+                    prom.tryComplete(finalRes.result());
+                }
+            });
 
-        List<ConfigResource> configResourceList = new ArrayList<>();
-        List<Types.Topic> fullDescription = new ArrayList<>();
+        return prom.future().toCompletionStage();
+    }
 
-        ac.listTopics(describeTopicsNamesPromise);
-        describeTopicsNamesPromise.future()
-            .compose(topics -> {
-                List<String> filteredList = topics.stream()
-                        .filter(topicName -> byName(pattern, prom).test(topicName))
-                        .collect(Collectors.toList());
-                ac.describeTopics(filteredList, describeTopicsPromise);
-                return describeTopicsPromise.future();
-            }).compose(topics -> {
-                topics.entrySet().forEach(topicWithDescription -> {
-                    Types.Topic desc = getTopicDesc(topicWithDescription.getValue());
-                    fullDescription.add(desc);
-                    ConfigResource resource = new ConfigResource(org.apache.kafka.common.config.ConfigResource.Type.TOPIC, desc.getName());
-                    configResourceList.add(resource);
-                });
-                ac.describeConfigs(configResourceList, describeTopicConfigPromise);
-                return describeTopicConfigPromise.future();
-            }).compose(topicsConfigurations -> {
-                List<Types.Topic> fullTopicDescriptions = new ArrayList<>();
-                fullDescription.forEach(topicWithDescription -> {
-                    ConfigResource resource = new ConfigResource(org.apache.kafka.common.config.ConfigResource.Type.TOPIC, topicWithDescription.getName());
-                    Config cfg = topicsConfigurations.get(resource);
-                    topicWithDescription.setConfig(getTopicConf(cfg));
-                    fullTopicDescriptions.add(topicWithDescription);
-                });
+    static Types.TopicList topicList(Types.DeprecatedPageRequest pageRequest, int total, List<Types.Topic> items, long cacheAge) {
+        Types.TopicList topicList = topicList(pageRequest, total, items.size());
+        topicList.setItems(items);
+        topicList.setCacheAge(cacheAge);
+        return topicList;
+    }
 
-                if (Types.SortDirectionEnum.DESC.equals(orderByInput.getOrder())) {
-                    fullTopicDescriptions.sort(new TopicComparator(orderByInput.getField()).reversed());
-                } else {
-                    fullTopicDescriptions.sort(new TopicComparator(orderByInput.getField()));
-                }
+    static Types.TopicList topicList(Types.DeprecatedPageRequest pageRequest, int total, int count) {
+        Types.TopicList topicList = new Types.TopicList();
+
+        if (pageRequest.isDeprecatedFormat()) {
+            topicList.setOffset(pageRequest.getOffset());
+            topicList.setLimit(pageRequest.getLimit());
+            topicList.setCount(count);
+        } else {
+            topicList.setPage(pageRequest.getPage());
+            topicList.setSize(pageRequest.getSize());
+            topicList.setTotal(total);
+        }
 
+        return topicList;
+    }
 
-                Types.TopicList topicList = new Types.TopicList();
-                List<Types.Topic> croppedList;
-                if (pageRequest.isDeprecatedFormat()) {
-                    // deprecated
-                    if (pageRequest.getOffset() > fullTopicDescriptions.size()) {
-                        return Future.failedFuture(new AdminServerException(ErrorType.INVALID_REQUEST, "Offset (" + pageRequest.getOffset() + ") cannot be greater than topic list size (" + fullTopicDescriptions.size() + ")"));
-                    }
-                    int tmpLimit = pageRequest.getLimit();
-                    if (tmpLimit == 0) {
-                        tmpLimit = fullTopicDescriptions.size();
-                    }
-                    croppedList = fullTopicDescriptions.subList(pageRequest.getOffset(), Math.min(pageRequest.getOffset() + tmpLimit, fullTopicDescriptions.size()));
-                    topicList.setOffset(pageRequest.getOffset());
-                    topicList.setLimit(pageRequest.getLimit());
-                    topicList.setCount(croppedList.size());
-                } else {
-                    if (fullTopicDescriptions.size() > 0 && (pageRequest.getPage() - 1) * pageRequest.getSize() >= fullTopicDescriptions.size()) {
-                        return Future.failedFuture(new AdminServerException(ErrorType.INVALID_REQUEST, "Requested pagination incorrect. Beginning of list greater than full list size (" + fullTopicDescriptions.size() + ")"));
-                    }
-                    croppedList = fullTopicDescriptions.subList((pageRequest.getPage() - 1) * pageRequest.getSize(), Math.min(pageRequest.getPage() * pageRequest.getSize(), fullTopicDescriptions.size()));
-                    topicList.setPage(pageRequest.getPage());
-                    topicList.setSize(pageRequest.getSize());
-                    topicList.setTotal(fullTopicDescriptions.size());
+    /**
+     * Describe the named topics as they are iterated, one chunk of
+     * {@link KafkaAdminConfigRetriever#getDescribeChunkSize()} topics at a time, so that
+     * only the topics of a single chunk are held in memory. Iterating blocks while
+     * a chunk is described and must not be done on an event loop thread.
+     *
+     * @return topic descriptions, including configuration, in the same order as the given names
+     */
+    Iterable<Types.Topic> describeTopicsLazily(KafkaAdminClient ac, String principal, List<String> topicNames, long fetchedAt) {
+        final int chunkSize = Math.max(1, config.getDescribeChunkSize());
+
+        return () -> new Iterator<>() {
+            int described = 0;
+            Iterator<Types.Topic> chunk = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!chunk.hasNext() && described < topicNames.size()) {
+                    List<String> names = topicNames.subList(described, Math.min(described + chunkSize, topicNames.size()));
+                    described += names.size();
+                    chunk = describeTopics(ac, principal, names, fetchedAt, new AtomicLong(fetchedAt))
+                        .compose(topics -> configureTopics(ac, principal, topics, fetchedAt))
+                        .toCompletionStage()
+                        .toCompletableFuture()
+                        .join()
+                        .iterator();
                 }
 
-                topicList.setItems(croppedList);
+                return chunk.hasNext();
+            }
 
-                return Future.succeededFuture(topicList);
-            }).onComplete(finalRes -> {
-                if (finalRes.failed()) {
-                    prom.fail(finalRes.cause());
-                } else {
-                    prom.complete(finalRes.result());
+            @Override
+            public Types.Topic next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
-                ac.close();
-            });
+                return chunk.next();
+            }
+        };
+    }
 
-        return prom.future().toCompletionStage();
+    /**
+     * Select the requested page from the full (sorted) list of items.
+     */
+    static <T> Future<List<T>> page(Types.DeprecatedPageRequest pageRequest, List<T> items) {
+        final int total = items.size();
+
+        if (pageRequest.isDeprecatedFormat()) {
+            // deprecated
+            if (pageRequest.getOffset() > total) {
+                return Future.failedFuture(new AdminServerException(ErrorType.INVALID_REQUEST, "Offset (" + pageRequest.getOffset() + ") cannot be greater than topic list size (" + total + ")"));
+            }
+            int tmpLimit = pageRequest.getLimit();
+            if (tmpLimit == 0) {
+                tmpLimit = total;
+            }
+            return Future.succeededFuture(new ArrayList<>(items.subList(pageRequest.getOffset(), Math.min(pageRequest.getOffset() + tmpLimit, total))));
+        }
+
+        if (total > 0 && (pageRequest.getPage() - 1) * pageRequest.getSize() >= total) {
+            return Future.failedFuture(new AdminServerException(ErrorType.INVALID_REQUEST, "Requested pagination incorrect. Beginning of list greater than full list size (" + total + ")"));
+        }
+
+        return Future.succeededFuture(new ArrayList<>(items.subList((pageRequest.getPage() - 1) * pageRequest.getSize(), Math.min(pageRequest.getPage() * pageRequest.getSize(), total))));
+    }
+
+    /**
+     * Describe the named topics, using the cached description (including configuration)
+     * where available. The configuration is only taken from the cache when retrieved by the
+     * same principal.
+     *
+     * @return topic descriptions in the same order as the given names
+     */
+    Future<List<Types.Topic>> describeTopics(KafkaAdminClient ac, String principal, List<String> topicNames, long fetchedAt, AtomicLong oldestCached) {
+        Map<String, TopicCache.CachedTopic> cachedTopics = topicCache.getAll(topicNames, principal, fetchedAt);
+        cachedTopics.values().forEach(cached -> oldestCached.accumulateAndGet(cached.getFetchedAt(), Math::min));
+
+        List<String> uncached = topicNames.stream()
+                .filter(name -> !cachedTopics.containsKey(name))
+                .collect(Collectors.toList());
+
+        Future<Map<String, TopicDescription>> descriptions = uncached.isEmpty()
+                ? Future.succeededFuture(Collections.emptyMap())
+                : batcher.describeTopics(ac, uncached);
+
+        return descriptions.map(described -> topicNames.stream()
+                .map(name -> cachedTopics.containsKey(name)
+                        ? cachedTopics.get(name).getTopic()
+                        : getTopicDesc(described.get(name)))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Fetch the configuration of any topics in the list not yet having their
+     * configuration set. Fully described topics are added to the cache.
+     *
+     * @return the same list of topics, with configurations set
+     */
+    Future<List<Types.Topic>> configureTopics(KafkaAdminClient ac, String principal, List<Types.Topic> topics, long fetchedAt) {
+        List<ConfigResource> resources = topics.stream()
+                .filter(topic -> topic.getConfig() == null)
+                .map(topic -> new ConfigResource(org.apache.kafka.common.config.ConfigResource.Type.TOPIC, topic.getName()))
+                .collect(Collectors.toList());
+
+        if (resources.isEmpty()) {
+            return Future.succeededFuture(topics);
+        }
+
+        return batcher.describeConfigs(ac, resources).map(configs -> {
+            topics.stream()
+                .filter(topic -> topic.getConfig() == null)
+                .forEach(topic -> {
+                    ConfigResource resource = new ConfigResource(org.apache.kafka.common.config.ConfigResource.Type.TOPIC, topic.getName());
+                    topic.setConfig(getTopicConf(configs.get(resource)));
+                    topicCache.put(topic, principal, fetchedAt);
+                });
+            return topics;
+        });
     }
 
     static Predicate<String> byName(Pattern pattern, Promise<?> prom) {
@@ -217,18 +406,20 @@ public class TopicOperations {
         Promise<List<String>> prom = Promise.promise();
 
         ac.deleteTopics(topicsToDelete, res -> {
+            // Some topics may have been deleted even when the request failed
+            topicsToDelete.forEach(topicCache::invalidate);
+
             if (res.failed()) {
                 prom.fail(res.cause());
             } else {
                 prom.complete(topicsToDelete);
             }
-            ac.close();
         });
 
         return prom.future().toCompletionStage();
     }
 
-    public CompletionStage<Types.Topic> updateTopic(KafkaAdminClient ac, String topicName, Types.TopicSettings topicToUpdate) {
+    public CompletionStage<Types.Topic> updateTopic(KafkaAdminClient ac, String principal, String topicName, Types.TopicSettings topicToUpdate) {
         Promise<Types.Topic> prom = Promise.promise();
         List<ConfigEntry> ceList = new ArrayList<>();
         if (topicToUpdate.getConfig() != null) {
@@ -242,7 +433,7 @@ public class TopicOperations {
         ConfigResource resource = new ConfigResource(org.apache.kafka.common.config.ConfigResource.Type.TOPIC, topicName);
 
         // we have to describe first, otherwise we cannot determine whether the topic exists or not (alterConfigs returns just server error)
-        getTopicDescAndConf(ac, topicName).future()
+        getTopicDescAndConf(ac, principal, topicName).future()
                 .compose(topic -> {
                     Promise<Void> updateTopicPartitions = Promise.promise();
                     if (topicToUpdate.getNumPartitions() != null && topicToUpdate.getNumPartitions() != topic.getPartitions().size()) {
@@ -257,14 +448,19 @@ public class TopicOperations {
                     ac.alterConfigs(Collections.singletonMap(resource, cfg), updateTopicConfigPromise);
                     return updateTopicConfigPromise.future();
                 })
-                .compose(update -> getTopicDescAndConf(ac, topicName).future())
+                .compose(update -> {
+                    // Configurations cached for other principals are out of date
+                    topicCache.invalidate(topicName);
+                    return getTopicDescAndConf(ac, principal, topicName).future();
+                })
                 .onComplete(desc -> {
                     if (desc.failed()) {
+                        // The topic may have been partially updated
+                        topicCache.invalidate(topicName);
                         prom.fail(desc.cause());
                     } else {
                         prom.complete(desc.result());
                     }
-                    ac.close();
                 });
 
         return prom.future().toCompletionStage();
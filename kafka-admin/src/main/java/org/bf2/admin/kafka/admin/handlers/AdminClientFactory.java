@@ -26,6 +26,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 
 @RequestScoped
 public class AdminClientFactory {
@@ -49,6 +50,9 @@ public class AdminClientFactory {
     @Inject
     Instance<HttpHeaders> headers;
 
+    @Inject
+    ClientCache clientCache;
+
     /**
      * Route handler common to all Kafka resource routes. Responsible for creating
      * the map of properties used to configure the Kafka Admin Client. When OAuth
@@ -57,31 +61,75 @@ public class AdminClientFactory {
      * handler when a valid JWT was presented by the client). The configuration property
      * map will be placed in the context under the key identified by the
      * {@link #ADMIN_CLIENT_CONFIG} constant.
+     *
+     * The client is obtained from the {@link ClientCache}, keyed by the credentials
+     * of the request. Callers must close the returned lease rather than the client.
      */
-    public CompletionStage<AdminClient> createAdminClient() {
+    public CompletionStage<ClientCache.Lease<AdminClient>> createAdminClient() {
         Map<String, Object> acConfig = config.getAcConfig();
+        Optional<String> saslJaasConfig = saslJaasConfig();
+        saslJaasConfig.ifPresent(jaasConfig -> acConfig.put(SaslConfigs.SASL_JAAS_CONFIG, jaasConfig));
+
+        return CompletableFuture.supplyAsync(() -> clientCache.adminClient(saslJaasConfig.orElse(null),
+                                                                           credentialExpiration(),
+                                                                           () -> AdminClient.create(acConfig)));
+    }
 
+    /**
+     * Build the SASL JAAS configuration for the credentials presented with the current
+     * request, either the JWT access token (OAuth) or the username and password given
+     * by HTTP Basic authentication.
+     *
+     * @return the JAAS configuration, empty when broker authentication is not used
+     */
+    Optional<String> saslJaasConfig() {
         if (config.isOauthEnabled()) {
             if (token.isResolvable()) {
                 final String accessToken = token.get().getRawToken();
                 if (accessToken == null) {
                     throw new AdminServerException(ErrorType.NOT_AUTHENTICATED);
                 }
-                acConfig.put(SaslConfigs.SASL_JAAS_CONFIG, String.format(SASL_OAUTH_CONFIG_TEMPLATE, accessToken));
+                return Optional.of(String.format(SASL_OAUTH_CONFIG_TEMPLATE, accessToken));
             } else {
                 log.warn("OAuth is enabled, but there is no JWT principal");
             }
         } else if (config.isBasicEnabled()) {
-            extractCredentials(Optional.ofNullable(headers.get().getHeaderString(HttpHeaders.AUTHORIZATION)))
-                .ifPresentOrElse(credentials -> acConfig.put(SaslConfigs.SASL_JAAS_CONFIG, credentials),
-                    () -> {
-                        throw new AdminServerException(ErrorType.NOT_AUTHENTICATED);
-                    });
+            return Optional.of(extractCredentials(Optional.ofNullable(headers.get().getHeaderString(HttpHeaders.AUTHORIZATION)))
+                .orElseThrow(() -> new AdminServerException(ErrorType.NOT_AUTHENTICATED)));
         } else {
             log.debug("OAuth is disabled - no attempt to set access token in Admin Client config");
         }
 
-        return CompletableFuture.supplyAsync(() -> AdminClient.create(acConfig));
+        return Optional.empty();
+    }
+
+    /**
+     * @return the time (epoch milliseconds) when the credentials of the current request
+     *         expire, or {@link ClientCache#NO_EXPIRATION} when they do not expire
+     */
+    long credentialExpiration() {
+        if (config.isOauthEnabled() && token.isResolvable()) {
+            long exp = token.get().getExpirationTime();
+
+            if (exp > 0) {
+                return TimeUnit.SECONDS.toMillis(exp);
+            }
+        }
+
+        return ClientCache.NO_EXPIRATION;
+    }
+
+    /**
+     * @return key identifying the principal of the current request, used to limit the
+     *         resources held concurrently by a single principal. The subject of the JWT
+     *         when OAuth is enabled, otherwise derived from the request's credentials.
+     */
+    public String principalKey() {
+        if (config.isOauthEnabled() && token.isResolvable() && token.get().getSubject() != null) {
+            return token.get().getSubject();
+        }
+
+        return ClientCache.hash(saslJaasConfig().orElse(null));
     }
 
     Optional<String> extractCredentials(Optional<String> authorizationHeader) {
@@ -100,25 +148,44 @@ public class AdminClientFactory {
                 .map(credentials -> String.format(SASL_PLAIN_CONFIG_TEMPLATE, credentials[0], credentials[1]));
     }
 
+    /**
+     * Borrow a consumer from the pool maintained by the {@link ClientCache} for the
+     * credentials of the current request. The consumer is created using the same
+     * configuration as {@link #createConsumer(Integer) createConsumer(null)} when
+     * no idle consumer is available. Callers must close the returned lease rather
+     * than the consumer.
+     */
+    public ClientCache.ConsumerLease borrowConsumer() {
+        Optional<String> saslJaasConfig = saslJaasConfig();
+
+        return clientCache.consumer(saslJaasConfig.orElse(null),
+                                    credentialExpiration(),
+                                    () -> createConsumer(saslJaasConfig, null));
+    }
+
+    /**
+     * Borrow a consumer as {@link #borrowConsumer()}, without waiting for a consumer to
+     * be returned to the pool when the maximum number of consumers are in use.
+     *
+     * @return the lease, or empty when no consumer is available
+     */
+    public Optional<ClientCache.ConsumerLease> tryBorrowConsumer() {
+        Optional<String> saslJaasConfig = saslJaasConfig();
+
+        return Optional.ofNullable(clientCache.consumer(saslJaasConfig.orElse(null),
+                                                        credentialExpiration(),
+                                                        () -> createConsumer(saslJaasConfig, null),
+                                                        false));
+    }
+
     public Consumer<byte[], byte[]> createConsumer(Integer limit) {
+        return createConsumer(saslJaasConfig(), limit);
+    }
+
+    Consumer<byte[], byte[]> createConsumer(Optional<String> saslJaasConfig, Integer limit) {
         Map<String, Object> props = config.getConsumerConfig();
 
-        if (config.isOauthEnabled()) {
-            if (token.isResolvable()) {
-                final String accessToken = token.get().getRawToken();
-                props.put(SaslConfigs.SASL_JAAS_CONFIG, String.format(SASL_OAUTH_CONFIG_TEMPLATE, accessToken));
-            } else {
-                log.warn("OAuth is enabled, but there is no JWT principal");
-            }
-        } else if (config.isBasicEnabled()) {
-            extractCredentials(Optional.ofNullable(headers.get().getHeaderString(HttpHeaders.AUTHORIZATION)))
-                .ifPresentOrElse(credentials -> props.put(SaslConfigs.SASL_JAAS_CONFIG, credentials),
-                    () -> {
-                        throw new AdminServerException(ErrorType.NOT_AUTHENTICATED);
-                    });
-        } else {
-            log.debug("OAuth is disabled - no attempt to set access token in Admin Client config");
-        }
+        saslJaasConfig.ifPresent(jaasConfig -> props.put(SaslConfigs.SASL_JAAS_CONFIG, jaasConfig));
 
         //props.put(ConsumerConfig.GROUP_ID_CONFIG, UUID.randomUUID().toString());
         props.put(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, "false");
@@ -134,25 +201,27 @@ public class AdminClientFactory {
         return new KafkaConsumer<>(props);
     }
 
+    /**
+     * Obtain a lease on the producer shared by all requests presenting the credentials
+     * of the current request. Callers must close the returned lease rather than the
+     * producer.
+     */
+    public ClientCache.Lease<Producer<String, String>> sharedProducer() {
+        Optional<String> saslJaasConfig = saslJaasConfig();
+
+        return clientCache.producer(saslJaasConfig.orElse(null),
+                                    credentialExpiration(),
+                                    () -> createProducer(saslJaasConfig));
+    }
+
     public Producer<String, String> createProducer() {
+        return createProducer(saslJaasConfig());
+    }
+
+    Producer<String, String> createProducer(Optional<String> saslJaasConfig) {
         Map<String, Object> props = config.getProducerConfig();
 
-        if (config.isOauthEnabled()) {
-            if (token.isResolvable()) {
-                final String accessToken = token.get().getRawToken();
-                props.put(SaslConfigs.SASL_JAAS_CONFIG, String.format(SASL_OAUTH_CONFIG_TEMPLATE, accessToken));
-            } else {
-                log.warn("OAuth is enabled, but there is no JWT principal");
-            }
-        } else if (config.isBasicEnabled()) {
-            extractCredentials(Optional.ofNullable(headers.get().getHeaderString(HttpHeaders.AUTHORIZATION)))
-                .ifPresentOrElse(credentials -> props.put(SaslConfigs.SASL_JAAS_CONFIG, credentials),
-                    () -> {
-                        throw new AdminServerException(ErrorType.NOT_AUTHENTICATED);
-                    });
-        } else {
-            log.debug("OAuth is disabled - no attempt to set access token in Admin Client config");
-        }
+        saslJaasConfig.ifPresent(jaasConfig -> props.put(SaslConfigs.SASL_JAAS_CONFIG, jaasConfig));
 
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.StringSerializer");
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.StringSerializer");
@@ -160,6 +229,8 @@ public class AdminClientFactory {
         props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 5000);
         props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
         props.put(ProducerConfig.RETRIES_CONFIG, 0);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, config.getProducerLingerMs());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, config.getProducerBatchSize());
 
         return new KafkaProducer<>(props);
     }
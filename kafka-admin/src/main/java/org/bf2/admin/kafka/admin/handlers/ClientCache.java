@@ -0,0 +1,753 @@
+package org.bf2.admin.kafka.admin.handlers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.bf2.admin.kafka.admin.HttpMetrics;
+import org.bf2.admin.kafka.admin.KafkaAdminConfigRetriever;
+import org.bf2.admin.kafka.admin.model.AdminServerException;
+import org.bf2.admin.kafka.admin.model.ErrorType;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide cache of Kafka clients, keyed by a hash of the credentials
+ * presented with each request. Clients for a credential are created on first use
+ * and shared by subsequent requests presenting the same credential. An entry is
+ * evicted when it has not been used for the configured idle timeout, when the
+ * credential (e.g. a JWT) expires, or when the cache grows beyond its maximum size.
+ * Evicted clients are closed once the last request using them releases its lease.
+ *
+ * In addition to the shared AdminClient, each entry holds a small pool of idle
+ * consumers used to browse topic records. A consumer is borrowed by a single request
+ * at a time and its partition assignment is cleared when it is returned to the pool. The
+ * total number of consumers across all entries is limited, requests exceeding the
+ * limit wait for a consumer to be returned. Finally, each entry holds a producer
+ * shared by all requests for the credential, allowing records sent concurrently to
+ * be batched.
+ */
+@ApplicationScoped
+public class ClientCache {
+
+    private static final Logger log = Logger.getLogger(ClientCache.class);
+
+    static final String EVICTION_IDLE = "idle";
+    static final String EVICTION_EXPIRED = "expired";
+    static final String EVICTION_SIZE = "size";
+    static final long NO_EXPIRATION = Long.MAX_VALUE;
+
+    private static final String HITS_COUNTER = "client_cache_hits";
+    private static final String MISSES_COUNTER = "client_cache_misses";
+    private static final String EVICTIONS_COUNTER = "client_cache_evictions";
+    private static final String EVICTION_REASON = "reason";
+    private static final String SIZE_GAUGE = "client_cache_size";
+    private static final String CONSUMER_HITS_COUNTER = "consumer_pool_hits";
+    private static final String CONSUMER_MISSES_COUNTER = "consumer_pool_misses";
+    private static final String CONSUMER_LEAKS_COUNTER = "consumer_pool_leaks";
+    private static final String CONSUMER_WAIT_TIMER = "consumer_pool_wait_time";
+    private static final String CONSUMER_ACTIVE_GAUGE = "consumer_pool_active";
+    private static final String CONSUMER_IDLE_GAUGE = "consumer_pool_idle";
+    private static final String PRODUCER_BATCH_SIZE_GAUGE = "producer_batch_size_avg";
+    private static final String PRODUCER_RECORDS_PER_REQUEST_GAUGE = "producer_records_per_request_avg";
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+    private static final long MIN_SWEEP_INTERVAL_MS = 1000;
+    private static final long MAX_SWEEP_INTERVAL_MS = 30_000;
+
+    @Inject
+    KafkaAdminConfigRetriever config;
+
+    @Inject
+    HttpMetrics metrics;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    ManagedExecutor executor;
+
+    final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Consumers currently borrowed by a request, mapped to the time they were borrowed.
+     */
+    final Map<ConsumerLease, Long> borrowedConsumers = new ConcurrentHashMap<>();
+
+    Counter hits;
+    Counter misses;
+    Counter consumerHits;
+    Counter consumerMisses;
+    Counter consumerLeaks;
+    Timer consumerWait;
+    Semaphore consumerPermits;
+    long sweepTimerId = -1;
+
+    @PostConstruct
+    public void initialize() {
+        hits = metrics.getRegistry().counter(HITS_COUNTER);
+        misses = metrics.getRegistry().counter(MISSES_COUNTER);
+        metrics.getRegistry().gaugeMapSize(SIZE_GAUGE, Tags.empty(), entries);
+
+        consumerHits = metrics.getRegistry().counter(CONSUMER_HITS_COUNTER);
+        consumerMisses = metrics.getRegistry().counter(CONSUMER_MISSES_COUNTER);
+        consumerLeaks = metrics.getRegistry().counter(CONSUMER_LEAKS_COUNTER);
+        consumerWait = metrics.getRegistry().timer(CONSUMER_WAIT_TIMER);
+        metrics.getRegistry().gaugeMapSize(CONSUMER_ACTIVE_GAUGE, Tags.empty(), borrowedConsumers);
+        Gauge.builder(CONSUMER_IDLE_GAUGE, this, ClientCache::idleConsumerCount).register(metrics.getRegistry());
+        Gauge.builder(PRODUCER_BATCH_SIZE_GAUGE, this, cache -> cache.producerMetricAverage("batch-size-avg"))
+            .baseUnit("bytes")
+            .register(metrics.getRegistry());
+        Gauge.builder(PRODUCER_RECORDS_PER_REQUEST_GAUGE, this, cache -> cache.producerMetricAverage("records-per-request-avg"))
+            .register(metrics.getRegistry());
+
+        consumerPermits = new Semaphore(config.getConsumerPoolMaxTotal(), true);
+    }
+
+    public void start(@Observes StartupEvent event) {
+        if (config.getClientCacheMaxSize() > 0) {
+            long interval = Math.max(MIN_SWEEP_INTERVAL_MS, Math.min(MAX_SWEEP_INTERVAL_MS, config.getClientCacheIdleTimeoutMs() / 2));
+            sweepTimerId = vertx.setPeriodic(interval, id -> evictStale(System.currentTimeMillis()));
+            log.infof("Client cache enabled; maximum size %d, idle timeout %d ms",
+                      config.getClientCacheMaxSize(), config.getClientCacheIdleTimeoutMs());
+        } else {
+            log.info("Client cache disabled; clients will be closed at the end of each request");
+        }
+    }
+
+    public void stop(@Observes ShutdownEvent event) {
+        if (sweepTimerId >= 0) {
+            vertx.cancelTimer(sweepTimerId);
+        }
+
+        entries.values().forEach(entry -> {
+            if (entries.remove(entry.key, entry)) {
+                entry.markEvicted();
+                closeEntry(entry);
+            }
+        });
+    }
+
+    /**
+     * Obtain a lease on the {@link AdminClient} for the given credential, creating the
+     * client when no live client is cached. The lease must be closed when the client is
+     * no longer needed by the caller - the client itself must not be closed.
+     *
+     * @param credential raw credential used to authenticate with Kafka, used (hashed) as the cache key
+     * @param expiresAt time (epoch milliseconds) after which the credential is no longer valid
+     * @param factory supplier of a new AdminClient
+     * @return lease on the cached client
+     */
+    public Lease<AdminClient> adminClient(String credential, long expiresAt, Supplier<AdminClient> factory) {
+        Entry entry = acquire(credential, expiresAt);
+
+        try {
+            return new Lease<>(entry, entry.adminClient(factory));
+        } catch (RuntimeException e) {
+            release(entry);
+            throw e;
+        }
+    }
+
+    /**
+     * Obtain a lease on the {@link Producer} for the given credential, creating the
+     * producer when no live producer is cached. The producer is shared by concurrent
+     * requests and must not be closed by the caller - the lease must be closed once
+     * the records sent by the caller have been acknowledged.
+     *
+     * @param credential raw credential used to authenticate with Kafka, used (hashed) as the cache key
+     * @param expiresAt time (epoch milliseconds) after which the credential is no longer valid
+     * @param factory supplier of a new Producer
+     * @return lease on the cached producer
+     */
+    public Lease<Producer<String, String>> producer(String credential, long expiresAt, Supplier<Producer<String, String>> factory) {
+        Entry entry = acquire(credential, expiresAt);
+
+        try {
+            return new Lease<>(entry, entry.producer(factory));
+        } catch (RuntimeException e) {
+            release(entry);
+            throw e;
+        }
+    }
+
+    /**
+     * Average of the named producer metric over all cached producers that
+     * have recorded a value.
+     */
+    double producerMetricAverage(String name) {
+        return entries.values()
+            .stream()
+            .map(Entry::cachedProducer)
+            .filter(Objects::nonNull)
+            .map(producer -> producerMetric(producer, name))
+            .filter(value -> !Double.isNaN(value))
+            .mapToDouble(Double::doubleValue)
+            .average()
+            .orElse(Double.NaN);
+    }
+
+    static double producerMetric(Producer<?, ?> producer, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> metric : producer.metrics().entrySet()) {
+            MetricName metricName = metric.getKey();
+
+            if (PRODUCER_METRICS_GROUP.equals(metricName.group()) && name.equals(metricName.name())) {
+                Object value = metric.getValue().metricValue();
+                return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+            }
+        }
+
+        return Double.NaN;
+    }
+
+    /**
+     * Borrow a consumer for the given credential, re-using an idle consumer from the
+     * pool when available. The consumer is not assigned any partitions and must not
+     * be subscribed using a group. The lease must be closed when the consumer is no
+     * longer needed, returning it to the pool. Callers that encounter an error using
+     * the consumer should {@link ConsumerLease#invalidate() invalidate} the lease so
+     * that the consumer is closed rather than re-used.
+     *
+     * @param credential raw credential used to authenticate with Kafka, used (hashed) as the cache key
+     * @param expiresAt time (epoch milliseconds) after which the credential is no longer valid
+     * @param factory supplier of a new Consumer
+     * @return lease on the pooled consumer
+     * @throws AdminServerException with {@link ErrorType#TOO_MANY_REQUESTS} when the maximum number
+     *         of consumers are in use and none was returned within the configured wait time
+     */
+    public ConsumerLease consumer(String credential, long expiresAt, Supplier<Consumer<byte[], byte[]>> factory) {
+        return consumer(credential, expiresAt, factory, true);
+    }
+
+    /**
+     * Borrow a consumer as {@link #consumer(String, long, Supplier)}, optionally without
+     * waiting when the maximum number of consumers are in use.
+     *
+     * @param wait whether to wait for a consumer to be returned when the maximum number
+     *        of consumers are in use
+     * @return lease on the pooled consumer, or null when none is available and wait is false
+     */
+    public ConsumerLease consumer(String credential, long expiresAt, Supplier<Consumer<byte[], byte[]>> factory, boolean wait) {
+        Entry entry = acquire(credential, expiresAt);
+        Consumer<byte[], byte[]> consumer = null;
+
+        try {
+            consumer = entry.pollConsumer();
+
+            if (consumer != null) {
+                increment(consumerHits);
+            } else {
+                increment(consumerMisses);
+
+                if (!reserveConsumer(wait)) {
+                    release(entry);
+                    return null;
+                }
+
+                try {
+                    consumer = factory.get();
+                } catch (RuntimeException e) {
+                    consumerPermits.release();
+                    throw e;
+                }
+            }
+
+            ConsumerLease lease = new ConsumerLease(entry, consumer);
+            borrowedConsumers.put(lease, System.currentTimeMillis());
+            return lease;
+        } catch (RuntimeException e) {
+            if (consumer != null) {
+                closeConsumer(consumer);
+            }
+            release(entry);
+            throw e;
+        }
+    }
+
+    /**
+     * @param wait whether to wait for a permit when the maximum number of consumers are in use
+     * @return true when a permit was acquired, false when none is available and wait is false
+     */
+    boolean reserveConsumer(boolean wait) {
+        long start = System.nanoTime();
+
+        try {
+            if (consumerPermits.tryAcquire()) {
+                return true;
+            }
+
+            // Pool exhausted, make room by closing the least recently used idle consumer (if any)
+            reclaimIdleConsumer();
+
+            if (!wait) {
+                return consumerPermits.tryAcquire();
+            }
+
+            if (!consumerPermits.tryAcquire(config.getConsumerPoolMaxWaitMs(), TimeUnit.MILLISECONDS)) {
+                log.warnf("No consumer available within %d ms, %d consumers in use",
+                          config.getConsumerPoolMaxWaitMs(), borrowedConsumers.size());
+                throw new AdminServerException(ErrorType.TOO_MANY_REQUESTS);
+            }
+
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdminServerException(ErrorType.SERVER_ERROR, e);
+        } finally {
+            if (consumerWait != null) {
+                consumerWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    void reclaimIdleConsumer() {
+        entries.values()
+            .stream()
+            .filter(entry -> entry.oldestIdleConsumer() < Long.MAX_VALUE)
+            .min(Comparator.comparingLong(Entry::oldestIdleConsumer))
+            .map(Entry::pollOldestConsumer)
+            .ifPresent(this::closeConsumer);
+    }
+
+    void returnConsumer(ConsumerLease lease, boolean reusable) {
+        Consumer<byte[], byte[]> consumer = lease.get();
+        borrowedConsumers.remove(lease);
+
+        if (reusable) {
+            try {
+                consumer.unsubscribe();
+            } catch (Exception e) {
+                log.debugf("Exception resetting pooled consumer: %s", e.getMessage());
+                reusable = false;
+            }
+        }
+
+        if (!reusable || !lease.entry.offerConsumer(consumer, System.currentTimeMillis(), config.getConsumerPoolMaxIdle())) {
+            closeConsumer(consumer);
+        }
+    }
+
+    void closeConsumer(Consumer<byte[], byte[]> consumer) {
+        executor.execute(() -> {
+            try {
+                consumer.close(CLOSE_TIMEOUT);
+            } catch (Exception e) {
+                log.warnf("Exception closing Kafka Consumer", e);
+            } finally {
+                consumerPermits.release();
+            }
+        });
+    }
+
+    int idleConsumerCount() {
+        return entries.values().stream().mapToInt(Entry::idleConsumerCount).sum();
+    }
+
+    Entry acquire(String credential, long expiresAt) {
+        final long now = System.currentTimeMillis();
+        final String key = hash(credential);
+
+        if (config.getClientCacheMaxSize() <= 0) {
+            // Caching disabled, the entry is closed when its only lease is released
+            Entry entry = new Entry(key, expiresAt);
+            entry.retain(now);
+            entry.evicted = true;
+            return entry;
+        }
+
+        Entry[] expired = new Entry[1];
+
+        Entry entry = entries.compute(key, (k, existing) -> {
+            if (existing != null) {
+                if (!existing.isExpired(now)) {
+                    increment(hits);
+                    existing.retain(now);
+                    return existing;
+                }
+
+                expired[0] = existing;
+            }
+
+            increment(misses);
+            Entry created = new Entry(k, expiresAt);
+            created.retain(now);
+            return created;
+        });
+
+        if (expired[0] != null) {
+            evicted(expired[0], EVICTION_EXPIRED);
+        }
+
+        enforceMaximumSize(entry);
+
+        return entry;
+    }
+
+    void release(Entry entry) {
+        if (entry.release()) {
+            close(entry);
+        }
+    }
+
+    void evictStale(long now) {
+        entries.values().forEach(entry -> {
+            if (entry.isExpired(now)) {
+                evict(entry, EVICTION_EXPIRED);
+            } else if (entry.isIdle(now, config.getClientCacheIdleTimeoutMs())) {
+                evict(entry, EVICTION_IDLE);
+            } else {
+                entry.removeIdleConsumers(now, config.getConsumerPoolIdleTimeoutMs()).forEach(this::closeConsumer);
+            }
+        });
+
+        detectLeaks(now);
+    }
+
+    void detectLeaks(long now) {
+        borrowedConsumers.forEach((lease, borrowedAt) -> {
+            if (now - borrowedAt >= config.getConsumerPoolLeakThresholdMs() && lease.reportLeak()) {
+                increment(consumerLeaks);
+
+                if (lease.borrowSite != null) {
+                    log.warnf(lease.borrowSite, "Consumer borrowed %d ms ago has not been returned to the pool", now - borrowedAt);
+                } else {
+                    log.warnf("Consumer borrowed %d ms ago has not been returned to the pool", now - borrowedAt);
+                }
+            }
+        });
+    }
+
+    void enforceMaximumSize(Entry current) {
+        int excess = entries.size() - config.getClientCacheMaxSize();
+
+        if (excess <= 0) {
+            return;
+        }
+
+        List<Entry> candidates = new ArrayList<>(entries.values());
+        candidates.remove(current);
+        // Prefer evicting entries not in use by any request, least recently used first
+        candidates.sort(Comparator.comparing(Entry::inUse).thenComparingLong(Entry::lastAccess));
+        candidates.stream().limit(excess).forEach(entry -> evict(entry, EVICTION_SIZE));
+    }
+
+    void evict(Entry entry, String reason) {
+        if (entries.remove(entry.key, entry)) {
+            evicted(entry, reason);
+        }
+    }
+
+    void evicted(Entry entry, String reason) {
+        log.debugf("Evicting cached clients, reason: %s", reason);
+        increment(metrics.getRegistry().counter(EVICTIONS_COUNTER, EVICTION_REASON, reason));
+
+        if (entry.markEvicted()) {
+            close(entry);
+        }
+    }
+
+    void close(Entry entry) {
+        executor.execute(() -> closeEntry(entry));
+    }
+
+    void closeEntry(Entry entry) {
+        entry.close().forEach(this::closeConsumer);
+    }
+
+    static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    static String hash(String credential) {
+        if (credential == null) {
+            return "";
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(credential.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Clients cached for a single credential.
+     */
+    static class Entry {
+        final String key;
+        final long expiresAt;
+        int leases = 0;
+        long lastAccess;
+        boolean evicted = false;
+        boolean closed = false;
+        AdminClient adminClient;
+        final Deque<IdleConsumer> idleConsumers = new ArrayDeque<>();
+        Producer<String, String> producer;
+
+        Entry(String key, long expiresAt) {
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+
+        synchronized void retain(long now) {
+            leases++;
+            lastAccess = now;
+        }
+
+        /**
+         * @return true when the entry was evicted and this was its last lease
+         */
+        synchronized boolean release() {
+            leases--;
+            return evicted && leases == 0 && !closed;
+        }
+
+        /**
+         * @return true when the entry has no outstanding leases and may be closed
+         */
+        synchronized boolean markEvicted() {
+            evicted = true;
+            return leases == 0 && !closed;
+        }
+
+        synchronized boolean inUse() {
+            return leases > 0;
+        }
+
+        synchronized long lastAccess() {
+            return lastAccess;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        synchronized boolean isIdle(long now, long idleTimeoutMs) {
+            return leases == 0 && now - lastAccess >= idleTimeoutMs;
+        }
+
+        synchronized AdminClient adminClient(Supplier<AdminClient> factory) {
+            if (adminClient == null) {
+                adminClient = factory.get();
+            }
+            return adminClient;
+        }
+
+        synchronized Producer<String, String> producer(Supplier<Producer<String, String>> factory) {
+            if (producer == null) {
+                producer = factory.get();
+            }
+            return producer;
+        }
+
+        synchronized Producer<String, String> cachedProducer() {
+            return producer;
+        }
+
+        synchronized Consumer<byte[], byte[]> pollConsumer() {
+            IdleConsumer idle = idleConsumers.pollFirst();
+            return idle != null ? idle.consumer : null;
+        }
+
+        synchronized Consumer<byte[], byte[]> pollOldestConsumer() {
+            IdleConsumer idle = idleConsumers.pollLast();
+            return idle != null ? idle.consumer : null;
+        }
+
+        /**
+         * Return a consumer to the pool. The most recently returned consumers are
+         * re-used first so that surplus consumers age out of the pool.
+         *
+         * @return true when the consumer was added to the pool, false when it must be closed
+         */
+        synchronized boolean offerConsumer(Consumer<byte[], byte[]> consumer, long now, int maxIdle) {
+            if (evicted || closed || idleConsumers.size() >= maxIdle) {
+                return false;
+            }
+            idleConsumers.offerFirst(new IdleConsumer(consumer, now));
+            return true;
+        }
+
+        synchronized List<Consumer<byte[], byte[]>> removeIdleConsumers(long now, long idleTimeoutMs) {
+            List<Consumer<byte[], byte[]>> removed = new ArrayList<>();
+            Iterator<IdleConsumer> oldestFirst = idleConsumers.descendingIterator();
+
+            while (oldestFirst.hasNext()) {
+                IdleConsumer idle = oldestFirst.next();
+
+                if (now - idle.returnedAt < idleTimeoutMs) {
+                    break;
+                }
+
+                oldestFirst.remove();
+                removed.add(idle.consumer);
+            }
+
+            return removed;
+        }
+
+        synchronized long oldestIdleConsumer() {
+            IdleConsumer idle = idleConsumers.peekLast();
+            return idle != null ? idle.returnedAt : Long.MAX_VALUE;
+        }
+
+        synchronized int idleConsumerCount() {
+            return idleConsumers.size();
+        }
+
+        /**
+         * Close the entry's AdminClient and producer, and remove any idle consumers from the pool.
+         * Records buffered by the producer are sent before it is closed.
+         *
+         * @return the idle consumers, to be closed by the caller
+         */
+        List<Consumer<byte[], byte[]>> close() {
+            AdminClient admin;
+            Producer<String, String> sharedProducer;
+            List<Consumer<byte[], byte[]>> consumers = new ArrayList<>();
+
+            synchronized (this) {
+                if (closed) {
+                    return consumers;
+                }
+                closed = true;
+                admin = adminClient;
+                adminClient = null;
+                sharedProducer = producer;
+                producer = null;
+                idleConsumers.forEach(idle -> consumers.add(idle.consumer));
+                idleConsumers.clear();
+            }
+
+            if (admin != null) {
+                try {
+                    admin.close(CLOSE_TIMEOUT);
+                } catch (Exception e) {
+                    log.warnf("Exception closing Kafka AdminClient", e);
+                }
+            }
+
+            if (sharedProducer != null) {
+                try {
+                    sharedProducer.close(CLOSE_TIMEOUT);
+                } catch (Exception e) {
+                    log.warnf("Exception closing Kafka Producer", e);
+                }
+            }
+
+            return consumers;
+        }
+    }
+
+    static class IdleConsumer {
+        final Consumer<byte[], byte[]> consumer;
+        final long returnedAt;
+
+        IdleConsumer(Consumer<byte[], byte[]> consumer, long returnedAt) {
+            this.consumer = consumer;
+            this.returnedAt = returnedAt;
+        }
+    }
+
+    /**
+     * A client borrowed from the cache for the duration of a single request.
+     * Closing the lease returns the client to the cache, it does not close the
+     * client unless the entry has been evicted in the meantime.
+     *
+     * @param <T> type of the client
+     */
+    public class Lease<T> implements AutoCloseable {
+        final Entry entry;
+        private final T client;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        Lease(Entry entry, T client) {
+            this.entry = entry;
+            this.client = client;
+        }
+
+        public T get() {
+            return client;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                onRelease();
+                release(entry);
+            }
+        }
+
+        void onRelease() {
+            // No additional resources held by the lease
+        }
+    }
+
+    /**
+     * A consumer borrowed from the pool for the duration of a single request. Closing
+     * the lease returns the consumer to the pool unless the lease was invalidated.
+     */
+    public final class ConsumerLease extends Lease<Consumer<byte[], byte[]>> {
+        final Throwable borrowSite;
+        private final AtomicBoolean leakReported = new AtomicBoolean(false);
+        private volatile boolean reusable = true;
+
+        ConsumerLease(Entry entry, Consumer<byte[], byte[]> consumer) {
+            super(entry, consumer);
+            // Capturing the stack is costly, only done when it will be logged
+            borrowSite = log.isDebugEnabled() ? new Throwable("Consumer borrowed here") : null;
+        }
+
+        /**
+         * Mark the consumer as unusable, it will be closed rather than returned
+         * to the pool when the lease is closed.
+         */
+        public void invalidate() {
+            reusable = false;
+        }
+
+        boolean reportLeak() {
+            return leakReported.compareAndSet(false, true);
+        }
+
+        @Override
+        void onRelease() {
+            returnConsumer(this, reusable);
+        }
+    }
+}
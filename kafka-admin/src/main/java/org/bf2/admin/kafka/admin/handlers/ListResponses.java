@@ -0,0 +1,122 @@
+package org.bf2.admin.kafka.admin.handlers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.vertx.ext.web.RoutingContext;
+import org.bf2.admin.kafka.admin.KafkaAdminConfigRetriever;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.eclipse.microprofile.context.ManagedExecutor;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.UnaryOperator;
+
+/**
+ * Builds the responses of the list endpoints. Lists with at least the configured
+ * number of items are written using a {@link StreamingListOutput} from a worker
+ * thread, smaller lists are serialized as usual.
+ *
+ * Lists with {@link Types.PagedResponse#getDeferredItems() deferred items}, i.e. topics
+ * sorted by name, retrieve their items while being written, so that the memory used
+ * does not grow with the number of items. Other lists (topics sorted by other
+ * properties, consumer groups, and ACL bindings) are built in memory in full before
+ * being written, only the serialized form is not held in full.
+ */
+@ApplicationScoped
+public class ListResponses {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON_TYPE = MediaType.valueOf(APPLICATION_NDJSON);
+
+    @Inject
+    KafkaAdminConfigRetriever config;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    ManagedExecutor executor;
+
+    @Inject
+    RoutingContext routingContext;
+
+    ObjectMapper envelopeMapper;
+    ObjectWriter itemWriter;
+
+    @PostConstruct
+    void initialize() {
+        envelopeMapper = StreamingListOutput.envelopeMapper(mapper);
+        itemWriter = mapper.writer();
+    }
+
+    public CompletionStage<Response> ok(Types.PagedResponse<?> list) {
+        return ok(list, UnaryOperator.identity());
+    }
+
+    /**
+     * @param list the list to be returned
+     * @param customizer function to add headers, etc. to the response
+     * @return the response, completed on a worker thread when the list will be streamed
+     */
+    public CompletionStage<Response> ok(Types.PagedResponse<?> list, UnaryOperator<ResponseBuilder> customizer) {
+        if (!isStreamed(list)) {
+            return CompletableFuture.completedFuture(customizer.apply(Response.ok().entity(list)).build());
+        }
+
+        /*
+         * The response is written on the thread completing the stage. Writes block
+         * (rather than buffer) while the connection is not writable only when not
+         * running on an event loop thread.
+         */
+        return CompletableFuture.supplyAsync(() -> customizer.apply(Response.ok()
+                                                                 .type(MediaType.APPLICATION_JSON_TYPE)
+                                                                 .entity(new StreamingListOutput(envelopeMapper, itemWriter, list)))
+                                             .build(),
+                                             executor);
+    }
+
+    /**
+     * Run the action once the response to the current request has been written, or
+     * the connection closed before it was, e.g. to release resources used while a
+     * streamed response is written. Must be called while handling the request.
+     */
+    public void onResponseEnd(Runnable action) {
+        routingContext.addEndHandler(result -> action.run());
+    }
+
+    <T> StreamingResultsOutput<T> results() {
+        return new StreamingResultsOutput<>(itemWriter);
+    }
+
+    /**
+     * @param results the results to be returned as newline-delimited JSON
+     * @return the response, completed on a worker thread that writes each result as it is added
+     */
+    public CompletionStage<Response> stream(StreamingResultsOutput<?> results) {
+        return CompletableFuture.supplyAsync(() -> Response.ok()
+                                                 .type(APPLICATION_NDJSON)
+                                                 .entity(results)
+                                                 .build(),
+                                             executor);
+    }
+
+    boolean isStreamed(Types.PagedResponse<?> list) {
+        return list.getDeferredItems() != null || list.getItems() != null && isStreamed(list.getItems().size());
+    }
+
+    /**
+     * @param count number of items of a list
+     * @return whether a list with the number of items is streamed to the client
+     */
+    public boolean isStreamed(int count) {
+        int threshold = config.getStreamingMinItems();
+        return threshold >= 0 && count >= threshold;
+    }
+}
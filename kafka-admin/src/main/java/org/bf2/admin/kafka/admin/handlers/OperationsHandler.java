@@ -1,9 +1,11 @@
 package org.bf2.admin.kafka.admin.handlers;
 
 import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.apache.kafka.common.ConsumerGroupState;
 import org.bf2.admin.kafka.admin.Operations;
 import org.bf2.admin.kafka.admin.model.Types;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.Explode;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.ExampleObject;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -170,6 +172,7 @@ public interface OperationsHandler {
     @APIResponse(responseCode = "400", ref = "BadRequest")
     @APIResponse(responseCode = "401", ref = "NotAuthorized")
     @APIResponse(responseCode = "403", ref = "Forbidden")
+    @APIResponse(responseCode = "429", ref = "TooManyRequests")
     @APIResponse(responseCode = "500", ref = "ServerError")
     @APIResponse(responseCode = "503", ref = "ServiceUnavailable")
     Response consumeRecords(@PathParam("topicName") String topicName,
@@ -204,6 +207,36 @@ public interface OperationsHandler {
     @APIResponse(responseCode = "503", ref = "ServiceUnavailable")
     CompletionStage<Response> produceRecord(@PathParam("topicName") String topicName, @Valid Types.Record input);
 
+    @GET
+    @Path("topics/{topicName}/records/tail")
+    @Produces({ ListResponses.APPLICATION_NDJSON, MediaType.SERVER_SENT_EVENTS })
+    // OpenAPI
+    @Tag(name = "records")
+    @Operation(
+        operationId = Operations.TAIL_RECORDS,
+        summary = "Stream new records from a topic",
+        description = "Stream the records arriving on a topic, optionally limited to a single partition, as newline-delimited JSON "
+                + "or as server-sent events. The stream starts at the end of the topic unless an offset or timestamp is given, "
+                + "and ends when no records arrive within the server's idle timeout or the server's maximum stream duration elapses.")
+    @Parameter(
+        name = "topicName",
+        description = "Topic name")
+    @APIResponse(
+        responseCode = "200",
+        description = "Records of the topic, in the order they are received from each partition.",
+        content = {
+            @Content(mediaType = ListResponses.APPLICATION_NDJSON, schema = @Schema(implementation = Types.Record.class)),
+            @Content(mediaType = MediaType.SERVER_SENT_EVENTS, schema = @Schema(implementation = Types.Record.class))
+        })
+    @APIResponse(responseCode = "400", ref = "BadRequest")
+    @APIResponse(responseCode = "401", ref = "NotAuthorized")
+    @APIResponse(responseCode = "403", ref = "Forbidden")
+    @APIResponse(responseCode = "429", ref = "TooManyRequests")
+    @APIResponse(responseCode = "500", ref = "ServerError")
+    @APIResponse(responseCode = "503", ref = "ServiceUnavailable")
+    Response tailRecords(@PathParam("topicName") String topicName,
+                         @Valid @BeanParam Types.RecordTailParams tailParams);
+
     @GET
     @Path("consumer-groups")
     @Produces(MediaType.APPLICATION_JSON)
@@ -219,6 +252,16 @@ public interface OperationsHandler {
     @Parameter(
         name = "topic",
         description = "Return consumer groups where the topic name contains this value")
+    @Parameter(
+        name = "state",
+        description = "Return only the consumer groups in one of these states. The states are applied by Kafka when listing the groups.",
+        explode = Explode.FALSE,
+        schema = @Schema(implementation = ConsumerGroupState[].class))
+    @Parameter(
+        name = "fields",
+        description = "Comma-separated list of the consumer group properties to return, one or more of `groupId`, `state`, `consumers`, and `metrics`. "
+                + "The `groupId` is always returned and `consumers` is empty when not requested. When neither `consumers` nor `metrics` are requested and no `topic` is given, the groups' offsets and lag are not retrieved. "
+                + "All properties are returned when not specified.")
     @APIResponseSchema(
         responseCode = "200",
         value = Types.ConsumerGroupList.class,
@@ -230,6 +273,8 @@ public interface OperationsHandler {
     @APIResponse(responseCode = "503", ref = "ServiceUnavailable")
     CompletionStage<Response> listGroups(@QueryParam("group-id-filter") String groupFilter,
                                          @QueryParam("topic") String topicFilter,
+                                         @QueryParam("state") String state,
+                                         @QueryParam("fields") String fields,
                                          @Valid @BeanParam Types.DeprecatedPageRequest pageParams,
                                          @Valid @BeanParam Types.ConsumerGroupSortParams sortParams);
 
@@ -247,7 +292,7 @@ public interface OperationsHandler {
         description = "Value of partition to include. Value -1 means filter is not active.")
     @Parameter(
         name = "topic",
-        description = "Filter consumer groups for a specific topic")
+        description = "Name of a topic to include. When given, the consumers returned are limited to the partitions of this topic.")
     @APIResponse(
         responseCode = "200",
         description = "Consumer group details.",
@@ -264,6 +309,33 @@ public interface OperationsHandler {
                                             @QueryParam("topic") String topicFilter,
                                             @BeanParam Types.ConsumerGroupDescriptionSortParams sortParams);
 
+    @GET
+    @Path("consumer-groups/{consumerGroupId}/lag-history")
+    @Produces(MediaType.APPLICATION_JSON)
+    // OpenAPI
+    @Tag(name = "groups")
+    @Operation(
+        operationId = Operations.GET_CONSUMER_GROUP_LAG_HISTORY,
+        summary = "Get the lag history of a consumer group.",
+        description = "Returns the lag samples retained for each of the consumer group's partitions, together with the estimated time lag and the rate at which the lag is changing. A sample of the group's current lag is recorded by this request.")
+    @Parameter(
+        name = "consumerGroupId",
+        description = "Consumer group identifier")
+    @Parameter(
+        name = "topic",
+        description = "Return the lag history of the partitions of this topic only")
+    @APIResponseSchema(
+        responseCode = "200",
+        value = Types.ConsumerGroupLagHistory.class,
+        responseDescription = "Consumer group lag history.")
+    @APIResponse(responseCode = "401", ref = "NotAuthorized")
+    @APIResponse(responseCode = "403", ref = "Forbidden")
+    @APIResponse(responseCode = "404", ref = "NotFound")
+    @APIResponse(responseCode = "500", ref = "ServerError")
+    @APIResponse(responseCode = "503", ref = "ServiceUnavailable")
+    CompletionStage<Response> getGroupLagHistory(@PathParam("consumerGroupId") String consumerGroupId,
+                                                 @QueryParam("topic") String topicFilter);
+
     @DELETE
     @Path("consumer-groups/{consumerGroupId}")
     // OpenAPI
@@ -318,6 +390,30 @@ public interface OperationsHandler {
     CompletionStage<Response> resetGroupOffset(@PathParam("consumerGroupId") String consumerGroupId,
                                                @Valid Types.ConsumerGroupOffsetResetParameters parameters);
 
+    @POST
+    @Path("consumer-groups/offsets/reset")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({ MediaType.APPLICATION_JSON, ListResponses.APPLICATION_NDJSON })
+    // OpenAPI
+    @Tag(name = "groups")
+    @Operation(
+        operationId = Operations.RESET_CONSUMER_GROUPS_OFFSETS,
+        summary = "Reset the offsets of multiple consumer groups.",
+        description = "Reset the offsets of several consumer groups to the same position. The target offset of each "
+                + "partition is determined once and used for all groups. The result of each group is written to the "
+                + "response as a line of JSON as soon as the group's offsets have been reset or the group could not be reset.")
+    @RequestBody(required = true)
+    @APIResponse(
+        responseCode = "200",
+        description = "Newline-delimited result of each consumer group, in the order the groups complete.",
+        content = @Content(mediaType = ListResponses.APPLICATION_NDJSON, schema = @Schema(implementation = Types.ConsumerGroupResetOffsetStatus.class)))
+    @APIResponse(responseCode = "400", ref = "BadRequest")
+    @APIResponse(responseCode = "401", ref = "NotAuthorized")
+    @APIResponse(responseCode = "403", ref = "Forbidden")
+    @APIResponse(responseCode = "500", ref = "ServerError")
+    @APIResponse(responseCode = "503", ref = "ServiceUnavailable")
+    CompletionStage<Response> resetGroupsOffsets(@Valid Types.ConsumerGroupsOffsetResetParameters parameters);
+
     @GET
     @Path("acls/resource-operations")
     @Produces(MediaType.APPLICATION_JSON)
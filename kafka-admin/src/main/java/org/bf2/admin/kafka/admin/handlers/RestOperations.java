@@ -3,18 +3,25 @@ package org.bf2.admin.kafka.admin.handlers;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
 import io.smallrye.common.annotation.Blocking;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Vertx;
 import io.vertx.kafka.admin.KafkaAdminClient;
 import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.common.ConsumerGroupState;
 import org.bf2.admin.kafka.admin.AccessControlOperations;
+import org.bf2.admin.kafka.admin.AdminRequestBatcher;
 import org.bf2.admin.kafka.admin.ConsumerGroupOperations;
+import org.bf2.admin.kafka.admin.EndOffsetCache;
 import org.bf2.admin.kafka.admin.KafkaAdminConfigRetriever;
+import org.bf2.admin.kafka.admin.LagHistory;
 import org.bf2.admin.kafka.admin.RecordOperations;
+import org.bf2.admin.kafka.admin.RecordSearch;
 import org.bf2.admin.kafka.admin.TopicOperations;
 import org.bf2.admin.kafka.admin.model.AdminServerException;
 import org.bf2.admin.kafka.admin.model.ErrorType;
 import org.bf2.admin.kafka.admin.model.Types;
 import org.bf2.admin.kafka.admin.model.Types.RecordFilterParams;
+import org.bf2.admin.kafka.admin.model.Types.RecordTailParams;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.context.ThreadContext;
 import org.jboss.logging.Logger;
@@ -23,6 +30,7 @@ import javax.inject.Inject;
 import javax.ws.rs.BeanParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
@@ -30,9 +38,13 @@ import javax.ws.rs.core.UriBuilder;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -43,6 +55,7 @@ public class RestOperations implements OperationsHandler {
     private static final Logger log = Logger.getLogger(RestOperations.class);
 
     private static final Pattern MATCH_ALL = Pattern.compile(".*");
+    private static final String AGE_HEADER = "Age";
 
     @Inject
     Vertx vertx;
@@ -63,12 +76,27 @@ public class RestOperations implements OperationsHandler {
     @Inject
     TopicOperations topicOperations;
 
+    @Inject
+    AdminRequestBatcher batcher;
+
+    @Inject
+    EndOffsetCache offsetCache;
+
+    @Inject
+    LagHistory lagHistory;
+
     @Inject
     RecordOperations recordOperations;
 
+    @Inject
+    ListResponses listResponses;
+
     @Inject
     ThreadContext threadContext;
 
+    @Inject
+    HttpHeaders httpHeaders;
+
     @Override
     @Counted("create_topic_requests")
     @Timed("create_topic_request_time")
@@ -78,7 +106,9 @@ public class RestOperations implements OperationsHandler {
                                                                           String.format("numPartitions must be between 1 and %d (inclusive)", maxPartitions)));
         }
 
-        return withAdminClient(client -> topicOperations.createTopic(KafkaAdminClient.create(vertx, client), inputTopic))
+        final String principal = clientFactory.principalKey();
+
+        return withAdminClient(client -> topicOperations.createTopic(KafkaAdminClient.create(vertx, client), principal, inputTopic))
                 .thenApply(createdTopic -> Response.status(Status.CREATED).header(HttpHeaders.LOCATION, uriBuilder("describeTopic").build(createdTopic.getName()))
                         .entity(createdTopic).build());
     }
@@ -87,7 +117,9 @@ public class RestOperations implements OperationsHandler {
     @Counted("describe_topic_requests")
     @Timed("describe_topic_request_time")
     public CompletionStage<Response> describeTopic(String topicToDescribe) {
-        return withAdminClient(client -> topicOperations.describeTopic(KafkaAdminClient.create(vertx, client), topicToDescribe))
+        final String principal = clientFactory.principalKey();
+
+        return withAdminClient(client -> topicOperations.describeTopic(KafkaAdminClient.create(vertx, client), principal, topicToDescribe))
                 .thenApply(topic -> Response.ok().entity(topic).build());
     }
 
@@ -100,7 +132,9 @@ public class RestOperations implements OperationsHandler {
                                                                           String.format("numPartitions must be between 1 and %d (inclusive)", maxPartitions)));
         }
 
-        return withAdminClient(client -> topicOperations.updateTopic(KafkaAdminClient.create(vertx, client), topicName, updatedTopic))
+        final String principal = clientFactory.principalKey();
+
+        return withAdminClient(client -> topicOperations.updateTopic(KafkaAdminClient.create(vertx, client), principal, topicName, updatedTopic))
                 .thenApply(topic -> Response.ok().entity(topic).build());
     }
 
@@ -125,9 +159,13 @@ public class RestOperations implements OperationsHandler {
         }
 
         sortParams.setDefaultsIfNecessary();
+        final String principal = clientFactory.principalKey();
 
-        return withAdminClient(client -> topicOperations.getTopicList(KafkaAdminClient.create(vertx, client), pattern, pageParams, sortParams))
-               .thenApply(topicList -> Response.ok().entity(topicList).build());
+        // Topics may be described while a streamed response is written, see TopicOperations#describeTopicsLazily
+        return withResponseAdminClient(client -> topicOperations.getTopicList(KafkaAdminClient.create(vertx, client), principal, pattern, pageParams, sortParams,
+                                                                               listResponses::isStreamed))
+               .thenCompose(topicList -> listResponses.ok(topicList, response ->
+                          response.header(AGE_HEADER, TimeUnit.MILLISECONDS.toSeconds(topicList.getCacheAge()))));
     }
 
     @Counted("consume_records_requests")
@@ -136,10 +174,37 @@ public class RestOperations implements OperationsHandler {
     public Response consumeRecords(String topicName,
                                    RecordFilterParams params) {
 
-        var result = recordOperations.consumeRecords(topicName, params.getPartition(), params.getOffset(), params.getTimestamp(), params.getLimit(), params.getIncludeList(), params.getMaxValueLength());
+        var result = recordOperations.consumeRecords(topicName, params.getPartition(), params.getOffset(), params.getTimestamp(), params.getLimit(), params.getIncludeList(), params.getMaxValueLength(),
+                params.getKey(), !Boolean.FALSE.equals(params.getDefaultPartitioner()),
+                RecordSearch.of(params.getSearch(), Boolean.TRUE.equals(params.getSearchRegex()), params.getSearchInList()),
+                params.getResumeFromPositions());
         return Response.ok(result).build();
     }
 
+    @Counted("tail_records_requests")
+    @Blocking
+    public Response tailRecords(String topicName, RecordTailParams params) {
+        // Newline-delimited JSON unless server-sent events are preferred by the client
+        boolean serverSentEvents = httpHeaders.getAcceptableMediaTypes()
+            .stream()
+            .filter(type -> isType(type, MediaType.SERVER_SENT_EVENTS_TYPE) || isType(type, ListResponses.APPLICATION_NDJSON_TYPE))
+            .findFirst()
+            .map(type -> isType(type, MediaType.SERVER_SENT_EVENTS_TYPE))
+            .orElse(false);
+
+        var tail = recordOperations.tailRecords(topicName, params.getPartition(), params.getOffset(), params.getTimestamp(), params.getIncludeList(), params.getMaxValueLength(), serverSentEvents);
+        // Release the consumer and stream permit when the response is aborted or never written
+        listResponses.onResponseEnd(tail::cancel);
+
+        return Response.ok(tail)
+                .type(serverSentEvents ? MediaType.SERVER_SENT_EVENTS_TYPE : ListResponses.APPLICATION_NDJSON_TYPE)
+                .build();
+    }
+
+    static boolean isType(MediaType type, MediaType expected) {
+        return expected.getType().equalsIgnoreCase(type.getType()) && expected.getSubtype().equalsIgnoreCase(type.getSubtype());
+    }
+
     @Counted("produce_record_requests")
     @Timed("produce_record_request_time")
     public CompletionStage<Response> produceRecord(String topicName, Types.Record input) {
@@ -152,23 +217,63 @@ public class RestOperations implements OperationsHandler {
     @Override
     @Counted("list_groups_requests")
     @Timed("list_groups_request_time")
-    public CompletionStage<Response> listGroups(String consumerGroupIdFilter, String topicFilter, Types.DeprecatedPageRequest pageParams, Types.ConsumerGroupSortParams sortParams) {
+    public CompletionStage<Response> listGroups(String consumerGroupIdFilter, String topicFilter, String state, String fields, Types.DeprecatedPageRequest pageParams, Types.ConsumerGroupSortParams sortParams) {
         final Pattern topicPattern = filterPattern(topicFilter);
         final Pattern groupPattern = filterPattern(consumerGroupIdFilter);
+        final Set<ConsumerGroupState> states = ConsumerGroupOperations.parseStates(state);
+        final Set<Types.ConsumerGroupField> groupFields = Types.ConsumerGroupField.parse(fields);
 
-        return withAdminClient(client -> ConsumerGroupOperations.getGroupList(KafkaAdminClient.create(vertx, client), topicPattern, groupPattern, pageParams, sortParams))
-                .thenApply(groupList -> Response.ok().entity(groupList).build());
+        return withAdminClient(client -> ConsumerGroupOperations.getGroupList(client, KafkaAdminClient.create(vertx, client), batcher, offsetCache,
+                                                                              topicPattern, groupPattern, states, groupFields, pageParams, sortParams))
+                .thenCompose(groupList -> listResponses.ok(groupList, response ->
+                    response.header(AGE_HEADER, TimeUnit.MILLISECONDS.toSeconds(offsetsAge(groupList.getItems())))));
+    }
+
+    /**
+     * @return age in milliseconds of the oldest end offset used for the groups' lag
+     */
+    static long offsetsAge(List<Types.ConsumerGroup> groups) {
+        return groups.stream()
+            .map(Types.ConsumerGroup::getOffsetsAge)
+            .filter(Objects::nonNull)
+            .mapToLong(Long::longValue)
+            .max()
+            .orElse(0);
     }
 
     @Override
     @Counted("get_group_requests")
     @Timed("describe_group_request_time")
     public CompletionStage<Response> describeGroup(String groupToDescribe, Optional<Integer> partitionFilter, String topicFilter, @BeanParam Types.ConsumerGroupDescriptionSortParams sortParams) {
-        // FIXME: topicFilter exposed in API but not implemented
         sortParams.setDefaultsIfNecessary();
+        final Pattern topicPattern = topicFilter == null || topicFilter.isBlank() ? MATCH_ALL : Pattern.compile("^" + Pattern.quote(topicFilter) + "$");
+
+        return withAdminClient(client -> ConsumerGroupOperations.describeGroup(KafkaAdminClient.create(vertx, client), batcher, offsetCache, groupToDescribe, topicPattern, sortParams, partitionFilter.orElse(-1)))
+                .thenApply(consumerGroup -> {
+                    lagHistory.record(consumerGroup);
+                    return Response.ok()
+                           .entity(consumerGroup)
+                           .header(AGE_HEADER, TimeUnit.MILLISECONDS.toSeconds(offsetsAge(List.of(consumerGroup))))
+                           .build();
+                });
+    }
 
-        return withAdminClient(client -> ConsumerGroupOperations.describeGroup(KafkaAdminClient.create(vertx, client), groupToDescribe, sortParams, partitionFilter.orElse(-1)))
-                .thenApply(consumerGroup -> Response.ok().entity(consumerGroup).build());
+    @Override
+    @Counted("get_group_lag_history_requests")
+    @Timed("get_group_lag_history_request_time")
+    public CompletionStage<Response> getGroupLagHistory(String groupId, String topicFilter) {
+        Types.ConsumerGroupDescriptionSortParams sortParams = new Types.ConsumerGroupDescriptionSortParams(Types.ConsumerGroupDescriptionOrderKey.PARTITION, Types.SortDirectionEnum.ASC);
+
+        /*
+         * The group is described using the client's credentials, verifying that the
+         * client is authorized to view the group and recording a sample of its lag.
+         * Only the history of the partitions in the description is returned.
+         */
+        return withAdminClient(client -> ConsumerGroupOperations.describeGroup(KafkaAdminClient.create(vertx, client), batcher, offsetCache, groupId, MATCH_ALL, sortParams, -1))
+                .thenApply(consumerGroup -> {
+                    lagHistory.record(consumerGroup);
+                    return Response.ok(lagHistory.getHistory(consumerGroup, Optional.ofNullable(topicFilter))).build();
+                });
     }
 
     @Override
@@ -185,10 +290,52 @@ public class RestOperations implements OperationsHandler {
     public CompletionStage<Response> resetGroupOffset(String groupToReset, Types.ConsumerGroupOffsetResetParameters parameters) {
         parameters.setGroupId(groupToReset);
 
-        return withAdminClient(client -> ConsumerGroupOperations.resetGroupOffset(KafkaAdminClient.create(vertx, client), parameters))
+        return withAdminClient(client -> ConsumerGroupOperations.resetGroupOffset(KafkaAdminClient.create(vertx, client), batcher, parameters))
                 .thenApply(groupList -> Response.ok().entity(groupList).build());
     }
 
+    @Override
+    @Counted("reset_groups_offsets_requests")
+    @Timed("reset_groups_offsets_request_time")
+    public CompletionStage<Response> resetGroupsOffsets(Types.ConsumerGroupsOffsetResetParameters parameters) {
+        StreamingResultsOutput<Types.ConsumerGroupResetOffsetStatus> results = listResponses.results();
+        CompletableFuture<Void> planned = new CompletableFuture<>();
+
+        /*
+         * The response is started once the first group's result is available. When the
+         * reset fails for all groups before that, an error response is returned instead.
+         */
+        withAdminClient(client -> ConsumerGroupOperations.resetGroupOffsets(KafkaAdminClient.create(vertx, client),
+                                                                            batcher,
+                                                                            parameters,
+                                                                            config.getResetOffsetsConcurrency(),
+                                                                            (groupId, result) -> {
+                                                                                results.add(resetStatus(groupId, result));
+                                                                                planned.complete(null);
+                                                                            })
+                                   .toCompletionStage())
+            .whenComplete((nothing, error) -> {
+                results.complete();
+
+                if (error != null) {
+                    planned.completeExceptionally(error);
+                } else {
+                    planned.complete(null);
+                }
+            });
+
+        return planned.thenCompose(nothing -> listResponses.stream(results));
+    }
+
+    static Types.ConsumerGroupResetOffsetStatus resetStatus(String groupId, AsyncResult<List<Types.TopicPartitionResetResult>> result) {
+        if (result.succeeded()) {
+            return new Types.ConsumerGroupResetOffsetStatus(groupId, result.result(), null);
+        }
+
+        Types.Error error = (Types.Error) CommonHandler.processFailure(result.cause()).build().getEntity();
+        return new Types.ConsumerGroupResetOffsetStatus(groupId, null, error);
+    }
+
     @Override
     @Counted("get_acl_resource_operations_requests")
     @Timed("get_acl_resource_operations_request_time")
@@ -203,7 +350,7 @@ public class RestOperations implements OperationsHandler {
         sortParams.setDefaultsIfNecessary();
 
         return withAdminClient(client -> aclOperations.getAcls(client, filterParams, pageParams, sortParams))
-                .thenApply(aclList -> Response.ok().entity(aclList).build());
+                .thenCompose(listResponses::ok);
     }
 
     @Override
@@ -220,7 +367,7 @@ public class RestOperations implements OperationsHandler {
     @Timed("delete_acls_request_time")
     public CompletionStage<Response> deleteAcls(@BeanParam Types.AclBindingFilterParams filterParams) {
         return withAdminClient(client -> aclOperations.deleteAcls(client, filterParams))
-                .thenApply(aclList -> Response.ok().entity(aclList).build());
+                .thenCompose(listResponses::ok);
     }
 
     @Override
@@ -295,15 +442,30 @@ public class RestOperations implements OperationsHandler {
 
     <R> CompletionStage<R> withAdminClient(Function<AdminClient, CompletionStage<R>> function) {
         return threadContext.withContextCapture(clientFactory.createAdminClient())
-            .thenCompose(client -> function.apply(client).whenComplete((result, error) -> close(client)));
+            .thenCompose(lease -> {
+                try {
+                    return function.apply(lease.get()).whenComplete((result, error) -> lease.close());
+                } catch (RuntimeException e) {
+                    lease.close();
+                    throw e;
+                }
+            });
     }
 
-    void close(AdminClient client) {
-        try {
-            client.close();
-        } catch (Exception e) {
-            log.warnf("Exception closing Kafka AdminClient", e);
-        }
+    /**
+     * As {@link #withAdminClient(Function)}, but the admin client is held until the response
+     * has been written, or the connection closed before it was, for results that use the
+     * client while the response is written. Must be called from the request's thread.
+     */
+    <R> CompletionStage<R> withResponseAdminClient(Function<AdminClient, CompletionStage<R>> function) {
+        CompletableFuture<Void> responseEnd = new CompletableFuture<>();
+        listResponses.onResponseEnd(() -> responseEnd.complete(null));
+
+        return threadContext.withContextCapture(clientFactory.createAdminClient())
+            .thenCompose(lease -> {
+                responseEnd.thenRun(lease::close);
+                return function.apply(lease.get());
+            });
     }
 
     CompletionStage<Response> badRequest(String message) {
@@ -0,0 +1,90 @@
+package org.bf2.admin.kafka.admin.handlers;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.bf2.admin.kafka.admin.model.Types;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Writes a {@link Types.PagedResponse} to the response one item at a time using a
+ * Jackson {@link JsonGenerator}, rather than serializing the complete response to a
+ * buffer before it is sent. The JSON is equivalent to that of the serialized
+ * {@link Types.PagedResponse}, except that the {@code items} array is written last.
+ *
+ * When written from a worker thread, the response output stream blocks while the
+ * connection's write queue is full, so that no more than a small number of
+ * serialized items are held in memory at a time. {@link Types.PagedResponse#getDeferredItems()
+ * Deferred items} are retrieved as they are written.
+ */
+class StreamingListOutput implements StreamingOutput {
+
+    static final String ITEMS = "items";
+
+    /**
+     * Mix-in used to serialize the properties of a list response other than the items.
+     */
+    @JsonIgnoreProperties(ITEMS)
+    abstract static class ListEnvelope {
+    }
+
+    private final ObjectMapper envelopeMapper;
+    private final ObjectWriter itemWriter;
+    private final Types.PagedResponse<?> list;
+
+    /**
+     * @param envelopeMapper mapper used to write the properties of the list other than the items, see {@link #envelopeMapper(ObjectMapper)}
+     * @param itemWriter writer used for each item of the list
+     * @param list the list response to write
+     */
+    StreamingListOutput(ObjectMapper envelopeMapper, ObjectWriter itemWriter, Types.PagedResponse<?> list) {
+        this.envelopeMapper = envelopeMapper;
+        this.itemWriter = itemWriter;
+        this.list = list;
+    }
+
+    static ObjectMapper envelopeMapper(ObjectMapper mapper) {
+        return mapper.copy().addMixIn(Types.PagedResponse.class, ListEnvelope.class);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        JsonNode envelope = envelopeMapper.valueToTree(list);
+
+        try (JsonGenerator generator = envelopeMapper.getFactory().createGenerator(output, JsonEncoding.UTF8)) {
+            // The response stream is closed by the caller
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+
+            for (Iterator<Map.Entry<String, JsonNode>> fields = envelope.fields(); fields.hasNext();) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                generator.writeFieldName(field.getKey());
+                generator.writeTree(field.getValue());
+            }
+
+            generator.writeFieldName(ITEMS);
+            generator.writeStartArray();
+
+            Iterable<?> items = list.getDeferredItems() != null ? list.getDeferredItems() : list.getItems();
+
+            if (items != null) {
+                for (Object item : items) {
+                    // Written to the output stream whenever the generator's buffer is full
+                    itemWriter.writeValue(generator, item);
+                }
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.bf2.admin.kafka.admin.handlers;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Writes results to the response as newline-delimited JSON as they are added, so
+ * that clients receive the result of each item of a long-running operation as
+ * soon as it is available rather than once all items have completed.
+ *
+ * Writing blocks until {@link #complete()} is called and must therefore take place
+ * on a worker thread, see {@link ListResponses#stream(StreamingResultsOutput)}.
+ *
+ * @param <T> type of the results written
+ */
+class StreamingResultsOutput<T> implements StreamingOutput {
+
+    private final ObjectWriter writer;
+    private final BlockingQueue<Optional<T>> results = new LinkedBlockingQueue<>();
+
+    StreamingResultsOutput(ObjectWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Add a result to be written to the response.
+     */
+    void add(T result) {
+        results.add(Optional.of(result));
+    }
+
+    /**
+     * Indicate that no more results will be added, ending the response once all
+     * results have been written.
+     */
+    void complete() {
+        results.add(Optional.empty());
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try {
+            for (Optional<T> result = results.take(); result.isPresent(); result = results.take()) {
+                output.write(writer.writeValueAsBytes(result.get()));
+                output.write('\n');
+                output.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted awaiting results");
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.bf2.admin.kafka.admin.model;
 
 import java.util.Comparator;
+import java.util.List;
 
 public class ConsumerGroupComparator implements Comparator<Types.ConsumerGroup> {
 
@@ -25,4 +26,15 @@ public class ConsumerGroupComparator implements Comparator<Types.ConsumerGroup>
         }
         return 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sort the consumer groups in place by the given key. Each group's sort key is
+     * extracted only once, see {@link KeyedSort}.
+     */
+    public static List<Types.ConsumerGroup> sort(List<Types.ConsumerGroup> groups, Types.ConsumerGroupOrderKey key, boolean descending) {
+        if (Types.ConsumerGroupOrderKey.NAME.equals(key)) {
+            KeyedSort.byText(Types.ConsumerGroup::getGroupId).sort(groups, descending);
+        }
+        return groups;
+    }
+}
@@ -37,6 +37,8 @@ public enum ErrorType {
     //
     RESOURCE_NOT_FOUND("17", "No such resource found", Status.NOT_FOUND),
     //
+    TOO_MANY_REQUESTS("18", "Too many concurrent requests, try again later", Status.TOO_MANY_REQUESTS),
+    //
     SERVER_ERROR("99", "Server has encountered an unexpected error", Status.INTERNAL_SERVER_ERROR);
 
     public static boolean isCausedBy(Throwable error, Class<? extends Throwable> searchCause) {
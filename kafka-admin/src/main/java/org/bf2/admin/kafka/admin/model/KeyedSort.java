@@ -0,0 +1,137 @@
+package org.bf2.admin.kafka.admin.model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Sorts a list of items using sort keys extracted once per item, rather than on
+ * each comparison as done by a {@link Comparator} over the items themselves.
+ * Items are ordered by an optional numeric key followed by a case-insensitive
+ * text key. The sort is stable, items with equal keys retain their relative
+ * order.
+ *
+ * @param <T> type of the items sorted
+ */
+public final class KeyedSort<T> {
+
+    private static final Comparator<Keyed<?>> ASCENDING = (k1, k2) -> {
+        int result = Long.compare(k1.number, k2.number);
+        return result != 0 ? result : k1.text.compareTo(k2.text);
+    };
+
+    private static final Comparator<Keyed<?>> DESCENDING = (k1, k2) -> {
+        int result = Long.compare(k2.number, k1.number);
+        return result != 0 ? result : k2.text.compareTo(k1.text);
+    };
+
+    /**
+     * Descending by numeric key, the text key remains ascending to break ties.
+     */
+    private static final Comparator<Keyed<?>> DESCENDING_NUMBER = (k1, k2) -> {
+        int result = Long.compare(k2.number, k1.number);
+        return result != 0 ? result : k1.text.compareTo(k2.text);
+    };
+
+    /**
+     * Items with no numeric key, sorted after all other items regardless of the sort
+     * direction.
+     */
+    private static final Comparator<Keyed<?>> MISSING_LAST = (k1, k2) -> Boolean.compare(k1.missing, k2.missing);
+
+    static final class Keyed<T> {
+        final T item;
+        final boolean missing;
+        final long number;
+        final String text;
+
+        Keyed(T item, Long number, String text) {
+            this.item = item;
+            this.missing = number == null;
+            this.number = number != null ? number : 0;
+            this.text = text;
+        }
+    }
+
+    private final Function<T, Long> numberKey;
+    private final Function<T, String> textKey;
+    private final Comparator<Keyed<?>> descendingOrder;
+
+    private KeyedSort(Function<T, Long> numberKey, Function<T, String> textKey, Comparator<Keyed<?>> descendingOrder) {
+        this.numberKey = numberKey;
+        this.textKey = textKey;
+        this.descendingOrder = descendingOrder;
+    }
+
+    /**
+     * Sort items by a text key, ignoring case (equivalent to {@link String#compareToIgnoreCase(String)}).
+     */
+    public static <T> KeyedSort<T> byText(Function<T, String> textKey) {
+        return new KeyedSort<>(item -> 0L, textKey, DESCENDING);
+    }
+
+    /**
+     * Sort items by a numeric key. Items with equal numeric keys are ordered by the
+     * text key in ascending order, independent of the direction of the sort. Items
+     * with a null numeric key are placed after all other items.
+     */
+    public static <T> KeyedSort<T> byNumber(Function<T, Long> numberKey, Function<T, String> textKey) {
+        return new KeyedSort<>(numberKey, textKey, DESCENDING_NUMBER);
+    }
+
+    /**
+     * Sort the items in place.
+     *
+     * @param items the list to sort, must be modifiable
+     * @param descending true when the items should be placed in descending order
+     * @return the sorted list
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> sort(List<T> items, boolean descending) {
+        final int size = items.size();
+
+        if (size < 2) {
+            return items;
+        }
+
+        Keyed<T>[] keys = new Keyed[size];
+        int i = 0;
+
+        for (T item : items) {
+            String text = textKey.apply(item);
+            keys[i++] = new Keyed<>(item, numberKey.apply(item), text != null ? foldCase(text) : "");
+        }
+
+        Arrays.sort(keys, MISSING_LAST.thenComparing(descending ? descendingOrder : ASCENDING));
+
+        for (i = 0; i < size; i++) {
+            items.set(i, keys[i].item);
+        }
+
+        return items;
+    }
+
+    /**
+     * Fold the case of each character in the same way as {@link String#compareToIgnoreCase(String)},
+     * so that the folded values may be compared using {@link String#compareTo(String)}.
+     */
+    static String foldCase(String value) {
+        final int length = value.length();
+        char[] folded = null;
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            char f = Character.toLowerCase(Character.toUpperCase(c));
+
+            if (f != c) {
+                if (folded == null) {
+                    folded = value.toCharArray();
+                }
+                folded[i] = f;
+            }
+        }
+
+        return folded != null ? new String(folded) : value;
+    }
+}
@@ -1,6 +1,7 @@
 package org.bf2.admin.kafka.admin.model;
 
 import java.util.Comparator;
+import java.util.List;
 
 public class TopicComparator implements Comparator<Types.Topic> {
 
@@ -23,18 +24,73 @@ public class TopicComparator implements Comparator<Types.Topic> {
 
             case RETENTION_BYTES:
             case RETENTION_MS:
-                String keyValue = key.getValue();
-                Types.ConfigEntry first = firstTopic.getConfig().stream().filter(entry -> entry.getKey().equals(keyValue)).findFirst().orElseGet(() -> null);
-                Types.ConfigEntry second = secondTopic.getConfig().stream().filter(entry -> entry.getKey().equals(keyValue)).findFirst().orElseGet(() -> null);
+                Long first = configValue(firstTopic, key);
+                Long second = configValue(secondTopic, key);
 
-                if (first == null || second == null || first.getValue() == null || second.getValue() == null) {
+                if (first == null || second == null) {
                     return 0;
                 } else {
-                    return Long.compare(first.getValue().equals("-1") ? Long.MAX_VALUE : Long.parseLong(first.getValue()), second.getValue().equals("-1") ? Long.MAX_VALUE : Long.parseLong(second.getValue()));
+                    return Long.compare(first, second);
                 }
 
             default:
                 return 0;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Sort the topics in place by the given key. Each topic's sort key is extracted
+     * only once, see {@link KeyedSort}. Topics with the same partition count or
+     * retention are ordered by name and topics without a value for the requested
+     * retention setting are placed last.
+     */
+    public static List<Types.Topic> sort(List<Types.Topic> topics, Types.TopicOrderKey key, boolean descending) {
+        final KeyedSort<Types.Topic> sort;
+
+        switch (key) {
+            case PARTITIONS:
+                sort = KeyedSort.byNumber(topic -> (long) topic.getPartitions().size(), Types.Topic::getName);
+                break;
+            case RETENTION_BYTES:
+            case RETENTION_MS:
+                sort = KeyedSort.byNumber(topic -> configValue(topic, key), Types.Topic::getName);
+                break;
+            case NAME:
+            default:
+                sort = KeyedSort.byText(Types.Topic::getName);
+                break;
+        }
+
+        return sort.sort(topics, descending);
+    }
+
+    /**
+     * Retrieve the numeric value of the topic's configuration entry for the key,
+     * with the value {@code -1} (unlimited) mapped to {@link Long#MAX_VALUE}.
+     *
+     * @return the value, or null if the topic has no (non-null) value for the entry
+     */
+    static Long configValue(Types.Topic topic, Types.TopicOrderKey key) {
+        List<Types.ConfigEntry> config = topic.getConfig();
+
+        if (config == null) {
+            return null;
+        }
+
+        final String keyValue = key.getValue();
+
+        for (Types.ConfigEntry entry : config) {
+            if (keyValue.equals(entry.getKey())) {
+                String value = entry.getValue();
+
+                if (value == null) {
+                    return null;
+                }
+
+                return "-1".equals(value) ? Long.MAX_VALUE : Long.parseLong(value);
+            }
+        }
+
+        return null;
+    }
+}
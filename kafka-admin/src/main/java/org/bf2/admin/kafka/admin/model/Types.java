@@ -29,6 +29,7 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.UriBuilder;
@@ -38,14 +39,18 @@ import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
 public class Types {
@@ -498,6 +503,11 @@ public class Types {
 
         private List<@Valid TopicsToResetOffset> topics;
 
+        @Schema(
+            description = "When true, the new offsets are determined and returned without being committed for the consumer group.",
+            defaultValue = "false")
+        private boolean dryRun;
+
         public ConsumerGroupOffsetResetParameters() {
         }
 
@@ -531,6 +541,14 @@ public class Types {
             this.offset = offset;
         }
 
+        public boolean isDryRun() {
+            return dryRun;
+        }
+
+        public void setDryRun(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
         public String getValue() {
             return value;
         }
@@ -540,6 +558,76 @@ public class Types {
         }
     }
 
+    @Schema(name = "ConsumerGroupsResetOffsetParameters")
+    public static class ConsumerGroupsOffsetResetParameters extends ConsumerGroupOffsetResetParameters {
+
+        @NotNull
+        @Size(min = 1)
+        @Schema(description = "Identifiers of the consumer groups to reset. The same `offset` and `topics` are reset for each group.")
+        private List<@NotBlank String> groupIds;
+
+        public ConsumerGroupsOffsetResetParameters() {
+        }
+
+        public ConsumerGroupsOffsetResetParameters(List<String> groupIds, OffsetType offset, String value, List<TopicsToResetOffset> topics) {
+            super(offset, value, topics);
+            this.groupIds = groupIds;
+        }
+
+        public List<String> getGroupIds() {
+            return groupIds;
+        }
+
+        public void setGroupIds(List<String> groupIds) {
+            this.groupIds = groupIds;
+        }
+    }
+
+    @Schema(
+        name = "ConsumerGroupResetOffsetStatus",
+        description = "Result of resetting the offsets of a single consumer group. "
+                + "Either `items` or `error` is present.")
+    @JsonInclude(Include.NON_NULL)
+    public static class ConsumerGroupResetOffsetStatus {
+
+        private String groupId;
+        private List<TopicPartitionResetResult> items;
+        private Error error;
+
+        public ConsumerGroupResetOffsetStatus() {
+        }
+
+        public ConsumerGroupResetOffsetStatus(String groupId, List<TopicPartitionResetResult> items, Error error) {
+            this.groupId = groupId;
+            this.items = items;
+            this.error = error;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public void setGroupId(String groupId) {
+            this.groupId = groupId;
+        }
+
+        public List<TopicPartitionResetResult> getItems() {
+            return items;
+        }
+
+        public void setItems(List<TopicPartitionResetResult> items) {
+            this.items = items;
+        }
+
+        public Error getError() {
+            return error;
+        }
+
+        public void setError(Error error) {
+            this.error = error;
+        }
+    }
+
     public static class PageRequest {
         @QueryParam("page")
         @DefaultValue("1")
@@ -793,14 +881,19 @@ public class Types {
         @Schema(description = "Unique identifier for the consumer group")
         private String groupId;
 
+        @JsonInclude(Include.NON_NULL)
         private ConsumerGroupState state;
 
         @NotNull
         @Schema(description = "The list of consumers associated with this consumer group")
         private List<Consumer> consumers;
 
+        @JsonInclude(Include.NON_NULL)
         private ConsumerGroupMetrics metrics;
 
+        @JsonIgnore
+        private Long offsetsAge;
+
         public ConsumerGroup() {
             super("consumer-groups");
         }
@@ -845,6 +938,18 @@ public class Types {
         public void setMetrics(ConsumerGroupMetrics metrics) {
             this.metrics = metrics;
         }
+
+        /**
+         * @return age in milliseconds of the oldest partition end offset used to
+         *         calculate the group's lag
+         */
+        public Long getOffsetsAge() {
+            return offsetsAge;
+        }
+
+        public void setOffsetsAge(Long offsetsAge) {
+            this.offsetsAge = offsetsAge;
+        }
     }
 
     public static class ConsumerGroupMetrics {
@@ -886,6 +991,170 @@ public class Types {
         }
     }
 
+    @Schema(description = "History of a consumer group's lag, sampled when the group is described")
+    public static class ConsumerGroupLagHistory {
+
+        @NotBlank
+        @Schema(description = "Unique identifier for the consumer group")
+        private String groupId;
+
+        @NotNull
+        @Schema(description = "Lag history of each of the group's partitions with committed offsets")
+        private List<PartitionLagHistory> partitions;
+
+        public ConsumerGroupLagHistory() {
+        }
+
+        public ConsumerGroupLagHistory(String groupId, List<PartitionLagHistory> partitions) {
+            this.groupId = groupId;
+            this.partitions = partitions;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public void setGroupId(String groupId) {
+            this.groupId = groupId;
+        }
+
+        public List<PartitionLagHistory> getPartitions() {
+            return partitions;
+        }
+
+        public void setPartitions(List<PartitionLagHistory> partitions) {
+            this.partitions = partitions;
+        }
+    }
+
+    @JsonInclude(Include.NON_NULL)
+    public static class PartitionLagHistory {
+
+        @NotNull
+        private String topic;
+
+        @NotNull
+        private Integer partition;
+
+        @Schema(description = "Estimated time in milliseconds since the record at the group's committed offset was written, derived from the samples. Absent when the samples are not sufficient for an estimate.")
+        private Long estimatedTimeLag;
+
+        @Schema(description = "Change in the offset lag per second over the sampled interval, positive when the lag is growing. Absent when fewer than two samples are available.")
+        private Double lagRate;
+
+        @NotNull
+        @Schema(description = "Lag samples, oldest first")
+        private List<LagSample> samples;
+
+        public PartitionLagHistory() {
+        }
+
+        public PartitionLagHistory(String topic, Integer partition, Long estimatedTimeLag, Double lagRate, List<LagSample> samples) {
+            this.topic = topic;
+            this.partition = partition;
+            this.estimatedTimeLag = estimatedTimeLag;
+            this.lagRate = lagRate;
+            this.samples = samples;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+
+        public Integer getPartition() {
+            return partition;
+        }
+
+        public void setPartition(Integer partition) {
+            this.partition = partition;
+        }
+
+        public Long getEstimatedTimeLag() {
+            return estimatedTimeLag;
+        }
+
+        public void setEstimatedTimeLag(Long estimatedTimeLag) {
+            this.estimatedTimeLag = estimatedTimeLag;
+        }
+
+        public Double getLagRate() {
+            return lagRate;
+        }
+
+        public void setLagRate(Double lagRate) {
+            this.lagRate = lagRate;
+        }
+
+        public List<LagSample> getSamples() {
+            return samples;
+        }
+
+        public void setSamples(List<LagSample> samples) {
+            this.samples = samples;
+        }
+    }
+
+    public static class LagSample {
+
+        @Schema(description = "Time the sample was taken, epoch milliseconds", required = true)
+        private long timestamp;
+
+        @Schema(description = "The group's committed offset", required = true)
+        private long offset;
+
+        @Schema(description = "The partition's log end offset", required = true)
+        private long logEndOffset;
+
+        @Schema(description = "Offset lag", required = true)
+        private long lag;
+
+        public LagSample() {
+        }
+
+        public LagSample(long timestamp, long offset, long logEndOffset) {
+            this.timestamp = timestamp;
+            this.offset = offset;
+            this.logEndOffset = logEndOffset;
+            this.lag = Math.max(0, logEndOffset - offset);
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public void setOffset(long offset) {
+            this.offset = offset;
+        }
+
+        public long getLogEndOffset() {
+            return logEndOffset;
+        }
+
+        public void setLogEndOffset(long logEndOffset) {
+            this.logEndOffset = logEndOffset;
+        }
+
+        public long getLag() {
+            return lag;
+        }
+
+        public void setLag(long lag) {
+            this.lag = lag;
+        }
+    }
+
     @JsonInclude(Include.NON_NULL)
     @Schema(name = "List")
     public static class PagedResponse<T> {
@@ -906,6 +1175,12 @@ public class Types {
         @Schema(description = "Current page number (returned for fetch requests)")
         private Integer page;
 
+        /**
+         * Items retrieved while the response is written, in place of the items
+         */
+        @JsonIgnore
+        private Iterable<T> deferredItems;
+
         public static <I> PagedResponse<I> forItems(Class<I> kind, List<I> items) {
             PageRequest allResults = new PageRequest();
             allResults.setPage(1);
@@ -984,6 +1259,18 @@ public class Types {
             this.total = total;
         }
 
+        /**
+         * @return the items to be retrieved while the response is written, or null
+         *         when the response holds all of its items
+         */
+        public Iterable<T> getDeferredItems() {
+            return deferredItems;
+        }
+
+        public void setDeferredItems(Iterable<T> deferredItems) {
+            this.deferredItems = deferredItems;
+        }
+
     }
 
     @JsonInclude(Include.NON_NULL)
@@ -1102,6 +1389,50 @@ public class Types {
         }
     }
 
+    /**
+     * Properties of a {@link ConsumerGroup} that may be requested using a sparse
+     * fieldset. The group's ID is always included.
+     */
+    public enum ConsumerGroupField {
+        GROUP_ID("groupId"),
+        STATE("state"),
+        CONSUMERS("consumers"),
+        METRICS("metrics");
+
+        String value;
+
+        private ConsumerGroupField(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * @param fields comma-separated list of field names, null or blank for all fields
+         * @return the set of fields requested
+         * @throws AdminServerException when a field name is not known
+         */
+        public static Set<ConsumerGroupField> parse(String fields) {
+            if (fields == null || fields.isBlank()) {
+                return EnumSet.allOf(ConsumerGroupField.class);
+            }
+
+            Set<ConsumerGroupField> result = EnumSet.of(GROUP_ID);
+
+            for (String name : fields.split(",")) {
+                String trimmed = name.trim();
+                result.add(Arrays.stream(values())
+                           .filter(v -> v.getValue().equals(trimmed))
+                           .findFirst()
+                           .orElseThrow(() -> new AdminServerException(ErrorType.INVALID_REQUEST, "Unknown consumer group field: " + trimmed)));
+            }
+
+            return result;
+        }
+    }
+
     @Schema(name = "TopicsList",
             description = "A list of topics.",
             requiredProperties = "items",
@@ -1110,9 +1441,24 @@ public class Types {
             },
             allOf = { PagedResponseDeprecated.class, TopicList.class })
     public static class TopicList extends PagedResponseDeprecated<Topic> {
+        @JsonIgnore
+        private Long cacheAge;
+
         public TopicList() {
             super(Topic.class);
         }
+
+        /**
+         * @return age in milliseconds of the oldest cached topic description
+         *         included in the list, zero when no cached description was used
+         */
+        public Long getCacheAge() {
+            return cacheAge;
+        }
+
+        public void setCacheAge(Long cacheAge) {
+            this.cacheAge = cacheAge;
+        }
     }
 
     @Schema(name = "TopicOrderKey")
@@ -1873,9 +2219,64 @@ public class Types {
         },
         allOf = { PagedResponse.class, RecordList.class })
     public static class RecordList extends PagedResponse<Record> {
+        @Schema(description = "Number of records read from the topic to select the records returned")
+        private Integer recordsScanned;
+
+        @Schema(description = "Number of bytes of record keys and values read from the topic to select the records returned")
+        private Long bytesScanned;
+
+        @Schema(description = "Whether reading records for a `key` or `search` stopped because the scan budget "
+                + "of the request was exhausted. The records returned may then be incomplete.")
+        private Boolean budgetExhausted;
+
+        @Schema(description = "Positions from which to continue reading records for a `key` or `search` when "
+                + "the partitions were not read to their end, given as the `resumeFrom` parameter of the next request. "
+                + "Not returned when all records were read or when the latest records were requested.")
+        private String resumeFrom;
+
         public RecordList() {
             super(Record.class);
         }
+
+        public RecordList(List<Record> items, int recordsScanned, long bytesScanned) {
+            this();
+            setItems(items);
+            setTotal(items.size());
+            this.recordsScanned = recordsScanned;
+            this.bytesScanned = bytesScanned;
+        }
+
+        public Integer getRecordsScanned() {
+            return recordsScanned;
+        }
+
+        public void setRecordsScanned(Integer recordsScanned) {
+            this.recordsScanned = recordsScanned;
+        }
+
+        public Long getBytesScanned() {
+            return bytesScanned;
+        }
+
+        public void setBytesScanned(Long bytesScanned) {
+            this.bytesScanned = bytesScanned;
+        }
+
+        public Boolean getBudgetExhausted() {
+            return budgetExhausted;
+        }
+
+        public void setBudgetExhausted(Boolean budgetExhausted) {
+            this.budgetExhausted = budgetExhausted;
+        }
+
+        public String getResumeFrom() {
+            return resumeFrom;
+        }
+
+        public void setResumeFrom(String resumeFrom) {
+            this.resumeFrom = resumeFrom;
+        }
     }
 
     @Schema(
@@ -2021,8 +2422,11 @@ public class Types {
         }
     }
 
-    public static class RecordFilterParams {
-        public static final String PROP_LIMIT = "limit";
+    /**
+     * Parameters common to consuming a limited number of records and to tailing
+     * the records of a topic.
+     */
+    public static class RecordTailParams {
         public static final String PROP_MAX_VALUE_LENGTH = "maxValueLength";
         public static final String PROP_INCLUDE = "include";
 
@@ -2041,12 +2445,6 @@ public class Types {
             schema = @Schema(format = "date-time"))
         String timestamp;
 
-        @QueryParam(PROP_LIMIT)
-        @DefaultValue("20")
-        @Parameter(description = "Limit the number of records fetched and returned")
-        @Positive
-        Integer limit;
-
         @QueryParam(PROP_INCLUDE)
         @Parameter(
             description = "List of properties to include for each record in the response",
@@ -2076,7 +2474,11 @@ public class Types {
 
         @JsonIgnore
         public List<String> getIncludeList() {
-            return include == null ? Collections.emptyList() : Arrays.stream(include.split(","))
+            return splitList(include);
+        }
+
+        static List<String> splitList(String list) {
+            return list == null ? Collections.emptyList() : Arrays.stream(list.split(","))
                 .map(String::trim)
                 .filter(Predicate.not(String::isEmpty))
                 .collect(Collectors.toList());
@@ -2106,14 +2508,6 @@ public class Types {
             this.timestamp = timestamp;
         }
 
-        public Integer getLimit() {
-            return limit;
-        }
-
-        public void setLimit(Integer limit) {
-            this.limit = limit;
-        }
-
         public String getInclude() {
             return include;
         }
@@ -2131,6 +2525,184 @@ public class Types {
         }
     }
 
+    public static class RecordFilterParams extends RecordTailParams {
+        public static final String PROP_LIMIT = "limit";
+        public static final String PROP_DEFAULT_PARTITIONER = "defaultPartitioner";
+        public static final String PROP_SEARCH = "search";
+        public static final String PROP_SEARCH_IN = "searchIn";
+        public static final String PROP_SEARCH_REGEX = "searchRegex";
+        public static final String PROP_RESUME_FROM = "resumeFrom";
+
+        @QueryParam(PROP_LIMIT)
+        @DefaultValue("20")
+        @Parameter(description = "Limit the number of records fetched and returned")
+        @Positive
+        Integer limit;
+
+        @QueryParam(Record.PROP_KEY)
+        @Parameter(description = "Retrieve only messages with this key. Unless `partition` is given or `defaultPartitioner` is false, "
+                + "only the partition the key is assigned to by the default partitioner is read.")
+        String key;
+
+        @QueryParam(PROP_DEFAULT_PARTITIONER)
+        @DefaultValue("true")
+        @Parameter(description = "Whether the topic's records were produced using the default partitioner. When false, "
+                + "all partitions are read to find messages with the `key`, as required for topics produced using a custom partitioner.")
+        Boolean defaultPartitioner;
+
+        @QueryParam(PROP_SEARCH)
+        @Parameter(description = "Retrieve only messages containing this text, or a match of this regular expression when "
+                + "`searchRegex` is true, in their key, value, or header values. Messages are read until `limit` "
+                + "matching messages are found or the scan budget of the request is exhausted.")
+        String search;
+
+        @QueryParam(PROP_SEARCH_IN)
+        @Parameter(
+            description = "List of properties of each record searched for `search`. All are searched when not given.",
+            explode = Explode.FALSE,
+            schema = @Schema(implementation = RecordSearchProperty[].class))
+        String searchIn;
+
+        @QueryParam(PROP_SEARCH_REGEX)
+        @DefaultValue("false")
+        @Parameter(description = "Whether `search` is a regular expression rather than text")
+        Boolean searchRegex;
+
+        @QueryParam(PROP_RESUME_FROM)
+        @Parameter(description = "Positions from which to continue reading messages, as returned in the `resumeFrom` "
+                + "property of a previous response. Only the partitions listed are read. If given, `offset` and `timestamp` are ignored.")
+        @Pattern(regexp = "^\\d{1,9}:\\d{1,18}(,\\d{1,9}:\\d{1,18})*$")
+        String resumeFrom;
+
+        @AssertTrue(message = "invalid search pattern")
+        public boolean isSearchValid() {
+            if (search == null || !Boolean.TRUE.equals(searchRegex)) {
+                return true;
+            }
+
+            try {
+                java.util.regex.Pattern.compile(search);
+                return true;
+            } catch (PatternSyntaxException e) {
+                return false;
+            }
+        }
+
+        @AssertTrue(message = "duplicate partition in resumeFrom")
+        public boolean isResumeFromValid() {
+            if (resumeFrom == null) {
+                return true;
+            }
+
+            Set<Integer> partitions = new HashSet<>();
+
+            try {
+                return splitList(resumeFrom).stream()
+                    .map(position -> Integer.valueOf(position.split(":")[0]))
+                    .allMatch(partitions::add);
+            } catch (NumberFormatException e) {
+                // Invalid format, reported by the @Pattern constraint
+                return true;
+            }
+        }
+
+        @JsonIgnore
+        public List<String> getSearchInList() {
+            return splitList(searchIn);
+        }
+
+        /**
+         * @return the offset of each partition given by {@link #resumeFrom}
+         */
+        @JsonIgnore
+        public Map<Integer, Long> getResumeFromPositions() {
+            return parsePositions(resumeFrom);
+        }
+
+        /**
+         * @param positions positions in the format of {@link #resumeFrom}, may be null
+         * @return the offset of each partition
+         */
+        public static Map<Integer, Long> parsePositions(String positions) {
+            return splitList(positions)
+                .stream()
+                .map(position -> position.split(":"))
+                .collect(Collectors.toMap(position -> Integer.valueOf(position[0]), position -> Long.valueOf(position[1])));
+        }
+
+        /**
+         * @return the positions in the format of {@link #resumeFrom}, ordered by partition,
+         *         or null when no positions are given
+         */
+        public static String formatPositions(Map<Integer, Long> positions) {
+            if (positions.isEmpty()) {
+                return null;
+            }
+
+            return positions.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> e.getKey() + ":" + e.getValue())
+                .collect(Collectors.joining(","));
+        }
+
+        public Integer getLimit() {
+            return limit;
+        }
+
+        public void setLimit(Integer limit) {
+            this.limit = limit;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public Boolean getDefaultPartitioner() {
+            return defaultPartitioner;
+        }
+
+        public void setDefaultPartitioner(Boolean defaultPartitioner) {
+            this.defaultPartitioner = defaultPartitioner;
+        }
+
+        public String getSearch() {
+            return search;
+        }
+
+        public void setSearch(String search) {
+            this.search = search;
+        }
+
+        public String getSearchIn() {
+            return searchIn;
+        }
+
+        public void setSearchIn(String searchIn) {
+            this.searchIn = searchIn;
+        }
+
+        public Boolean getSearchRegex() {
+            return searchRegex;
+        }
+
+        public void setSearchRegex(Boolean searchRegex) {
+            this.searchRegex = searchRegex;
+        }
+
+        public String getResumeFrom() {
+            return resumeFrom;
+        }
+
+        public void setResumeFrom(String resumeFrom) {
+            this.resumeFrom = resumeFrom;
+        }
+    }
+
     @Schema(
         name = "RecordIncludedProperty",
         type = SchemaType.STRING,
@@ -2145,4 +2717,15 @@ public class Types {
         })
     public static class RecordIncludedProperty {
     }
+
+    @Schema(
+        name = "RecordSearchProperty",
+        type = SchemaType.STRING,
+        enumeration = {
+            Record.PROP_KEY,
+            Record.PROP_VALUE,
+            Record.PROP_HEADERS
+        })
+    public static class RecordSearchProperty {
+    }
 }
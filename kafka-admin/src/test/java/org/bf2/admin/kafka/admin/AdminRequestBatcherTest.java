@@ -0,0 +1,154 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.kafka.admin.ConsumerGroupDescription;
+import io.vertx.kafka.admin.KafkaAdminClient;
+import io.vertx.kafka.client.common.Node;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.errors.TopicAuthorizationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdminRequestBatcherTest {
+
+    PrometheusMeterRegistry registry;
+    AdminRequestBatcher target;
+
+    @BeforeEach
+    void setup() {
+        KafkaAdminConfigRetriever config = mock(KafkaAdminConfigRetriever.class);
+        when(config.getDescribeChunkSize()).thenReturn(10);
+        when(config.getDescribeChunkConcurrency()).thenReturn(2);
+        when(config.getGroupOffsetsConcurrency()).thenReturn(3);
+
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        HttpMetrics metrics = mock(HttpMetrics.class);
+        when(metrics.getRegistry()).thenReturn(registry);
+
+        target = new AdminRequestBatcher();
+        target.config = config;
+        target.metrics = metrics;
+    }
+
+    static List<Integer> keys(int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    void testSmallRequestNotChunked() {
+        List<List<Integer>> requests = new ArrayList<>();
+
+        Future<Map<Integer, String>> result = target.execute("test", keys(10), chunk -> {
+            requests.add(chunk);
+            return Future.succeededFuture(chunk.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)));
+        });
+
+        assertEquals(1, requests.size());
+        assertEquals(10, result.result().size());
+        assertEquals(1, registry.timer("admin_chunk_request_time", "operation", "test", "result", "success").count());
+    }
+
+    @Test
+    void testChunksLimitedByConcurrencyAndMerged() {
+        List<Promise<Map<Integer, String>>> pending = new ArrayList<>();
+        List<List<Integer>> requests = new ArrayList<>();
+
+        Future<Map<Integer, String>> result = target.execute("test", keys(45), chunk -> {
+            Promise<Map<Integer, String>> promise = Promise.promise();
+            requests.add(chunk);
+            pending.add(promise);
+            return promise.future();
+        });
+
+        // Only 2 chunks requested concurrently
+        assertEquals(2, requests.size());
+
+        for (int completed = 0; completed < pending.size(); completed++) {
+            List<Integer> chunk = requests.get(completed);
+            pending.get(completed).complete(chunk.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)));
+            assertTrue(pending.size() - completed - 1 <= 2);
+        }
+
+        assertEquals(5, requests.size());
+        assertEquals(List.of(5, 10, 10, 10, 10), requests.stream().map(List::size).sorted().collect(Collectors.toList()));
+        assertTrue(result.succeeded());
+        assertEquals(45, result.result().size());
+        assertEquals(5, registry.timer("admin_chunk_request_time", "operation", "test", "result", "success").count());
+    }
+
+    @Test
+    void testFailedChunkStopsRemainingChunks() {
+        List<Promise<Map<Integer, String>>> pending = new ArrayList<>();
+        TopicAuthorizationException error = new TopicAuthorizationException("Not authorized");
+
+        Future<Map<Integer, String>> result = target.execute("test", keys(45), chunk -> {
+            Promise<Map<Integer, String>> promise = Promise.promise();
+            pending.add(promise);
+            return promise.future();
+        });
+
+        pending.get(0).fail(error);
+        assertTrue(result.failed());
+        assertSame(error, result.cause());
+
+        pending.get(1).complete(Map.of());
+        // No chunks requested after the failure
+        assertEquals(2, pending.size());
+        assertFalse(result.succeeded());
+    }
+
+    @Test
+    void testGroupOffsetsRequestsAlternateCoordinators() {
+        KafkaAdminClient client = mock(KafkaAdminClient.class);
+        List<String> requested = new ArrayList<>();
+        List<Promise<Map<TopicPartition, OffsetAndMetadata>>> pending = new ArrayList<>();
+
+        when(client.listConsumerGroupOffsets(anyString())).thenAnswer(invocation -> {
+            Promise<Map<TopicPartition, OffsetAndMetadata>> promise = Promise.promise();
+            requested.add(invocation.getArgument(0));
+            pending.add(promise);
+            return promise.future();
+        });
+
+        // Groups g0..g5 coordinated by broker 0, g6..g8 by broker 1
+        List<ConsumerGroupDescription> groups = IntStream.range(0, 9)
+                .mapToObj(i -> new ConsumerGroupDescription()
+                        .setGroupId("g" + i)
+                        .setCoordinator(new Node().setId(i < 6 ? 0 : 1)))
+                .collect(Collectors.toList());
+
+        Future<Map<String, Map<TopicPartition, OffsetAndMetadata>>> result = target.listConsumerGroupOffsets(client, groups);
+
+        assertEquals(List.of("g0", "g6", "g1"), requested);
+
+        for (int i = 0; i < pending.size(); i++) {
+            pending.get(i).complete(Map.of(new TopicPartition("t", i), new OffsetAndMetadata(i, null)));
+            // No more than 3 requests in flight
+            assertTrue(pending.size() - i - 1 <= 3);
+        }
+
+        assertEquals(List.of("g0", "g6", "g1", "g7", "g2", "g8", "g3", "g4", "g5"), requested);
+        assertTrue(result.succeeded());
+        assertEquals(9, result.result().size());
+        assertEquals(9, registry.summary("admin_request_fanout", "operation", "listConsumerGroupOffsets").totalAmount());
+    }
+}
@@ -0,0 +1,151 @@
+package org.bf2.admin.kafka.admin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding record values of {@code size} bytes for the response, with and
+ * without a {@code maxValueLength} of 100 (zero for none). {@link RecordOperations#bytesToString(byte[], Integer)}
+ * is compared with the previous decoding by an {@link InputStreamReader}, one character at a time.
+ *
+ * Payloads are ASCII JSON, text with multi-byte characters, or random binary data.
+ *
+ * Not run as part of the build. After {@code mvn test-compile}, run {@link #main(String[])}
+ * or {@code org.openjdk.jmh.Main BytesToStringBenchmark} using the module's test class path.
+ * Add {@code -prof gc} to report the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BytesToStringBenchmark {
+
+    @Param({ "100", "10000", "1000000" })
+    int size;
+
+    @Param({ "0", "100" })
+    int maxValueLength;
+
+    @Param({ "ascii", "utf8", "binary" })
+    String payload;
+
+    byte[] value;
+    RecordOperations operations;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        String unit;
+
+        switch (payload) {
+            case "ascii":
+                unit = "{\"id\":12345,\"name\":\"record\",\"tags\":[\"a\",\"b\"]},";
+                break;
+            case "utf8":
+                unit = "Grüße aus Köln, 日本語のテキスト. ";
+                break;
+            default:
+                unit = null;
+                break;
+        }
+
+        if (unit == null) {
+            value = new byte[size];
+            random.nextBytes(value);
+        } else {
+            byte[] unitBytes = unit.getBytes(StandardCharsets.UTF_8);
+            value = new byte[size];
+
+            for (int i = 0; i < size; i++) {
+                value[i] = unitBytes[i % unitBytes.length];
+            }
+
+            // Keep the value valid UTF-8 by ending with a complete character
+            int end = size;
+            while (end > 0 && (value[end - 1] & 0xC0) == 0x80) {
+                end--;
+            }
+            if (end > 0 && value[end - 1] < 0) {
+                end--;
+            }
+            for (int i = end; i < size; i++) {
+                value[i] = ' ';
+            }
+        }
+
+        operations = new RecordOperations();
+    }
+
+    Integer maxValueLength() {
+        return maxValueLength > 0 ? maxValueLength : null;
+    }
+
+    @Benchmark
+    public String decoder() {
+        return operations.bytesToString(value, maxValueLength());
+    }
+
+    @Benchmark
+    public String reader() {
+        return readerBytesToString(value, maxValueLength());
+    }
+
+    static String readerBytesToString(byte[] bytes, Integer maxValueLength) {
+        if (bytes == null) {
+            return null;
+        }
+
+        if (bytes.length == 0) {
+            return "";
+        }
+
+        int bufferSize = maxValueLength != null ? Math.min(maxValueLength, bytes.length) : bytes.length;
+        StringBuilder buffer = new StringBuilder(bufferSize);
+
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+            int input;
+
+            while ((input = reader.read()) > -1) {
+                if (input == RecordOperations.REPLACEMENT_CHARACTER || !Character.isDefined(input)) {
+                    return RecordOperations.BINARY_DATA_MESSAGE;
+                }
+
+                buffer.append((char) input);
+
+                if (maxValueLength != null && buffer.length() == maxValueLength) {
+                    break;
+                }
+            }
+
+            return buffer.toString();
+        } catch (IOException e) {
+            return RecordOperations.BINARY_DATA_MESSAGE;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BytesToStringBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package org.bf2.admin.kafka.admin;
+
+import io.vertx.kafka.admin.ConsumerGroupDescription;
+import io.vertx.kafka.admin.ListOffsetsResultInfo;
+import io.vertx.kafka.admin.MemberAssignment;
+import io.vertx.kafka.admin.MemberDescription;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.ConsumerGroupState;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures building the description of a single consumer group with a growing
+ * number of partitions, with one member for every 5 partitions (e.g. 500 partitions
+ * and 100 members).
+ *
+ * Not run as part of the build. After {@code mvn test-compile}, run {@link #main(String[])}
+ * or {@code org.openjdk.jmh.Main ConsumerGroupDescriptionBenchmark} using the module's test class path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsumerGroupDescriptionBenchmark {
+
+    static final Pattern MATCH_ALL = Pattern.compile(".*");
+    static final Types.ConsumerGroupDescriptionSortParams ORDER =
+            new Types.ConsumerGroupDescriptionSortParams(Types.ConsumerGroupDescriptionOrderKey.LAG, Types.SortDirectionEnum.DESC);
+
+    @Param({ "50", "500", "5000" })
+    int partitions;
+
+    List<ConsumerGroupDescription> groups;
+    Map<TopicPartition, OffsetAndMetadata> groupOffsets;
+    Map<TopicPartition, ListOffsetsResultInfo> topicOffsets;
+
+    @Setup
+    public void setup() {
+        final int memberCount = partitions / 5;
+        List<Set<TopicPartition>> assignments = new ArrayList<>();
+        groupOffsets = new HashMap<>();
+        topicOffsets = new HashMap<>();
+
+        for (int m = 0; m < memberCount; m++) {
+            assignments.add(new HashSet<>());
+        }
+
+        for (int p = 0; p < partitions; p++) {
+            // 10 topics, partitions assigned round-robin to the members
+            TopicPartition partition = new TopicPartition("topic-" + (p % 10), p / 10);
+            assignments.get(p % memberCount).add(partition);
+            groupOffsets.put(partition, new OffsetAndMetadata(p * 10L, null));
+            topicOffsets.put(partition, new ListOffsetsResultInfo(p * 11L, -1, null));
+        }
+
+        List<MemberDescription> members = new ArrayList<>();
+
+        for (int m = 0; m < memberCount; m++) {
+            members.add(new MemberDescription("member-" + m, "client-" + m, "localhost", new MemberAssignment(assignments.get(m))));
+        }
+
+        groups = List.of(new ConsumerGroupDescription("group", false, members, "range", ConsumerGroupState.STABLE, null, Collections.emptySet()));
+    }
+
+    @Benchmark
+    public List<Types.ConsumerGroup> describe() {
+        return ConsumerGroupOperations.getConsumerGroupsDescription(MATCH_ALL, ORDER, -1, groups, groupOffsets, topicOffsets);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ConsumerGroupDescriptionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
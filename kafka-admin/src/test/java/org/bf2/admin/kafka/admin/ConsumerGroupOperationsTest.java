@@ -0,0 +1,445 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.kafka.admin.ConsumerGroupDescription;
+import io.vertx.kafka.admin.KafkaAdminClient;
+import io.vertx.kafka.admin.ListOffsetsResultInfo;
+import io.vertx.kafka.admin.MemberAssignment;
+import io.vertx.kafka.admin.MemberDescription;
+import io.vertx.kafka.admin.OffsetSpec;
+import io.vertx.kafka.admin.TopicDescription;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.common.TopicPartitionInfo;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListConsumerGroupsOptions;
+import org.apache.kafka.clients.admin.ListConsumerGroupsResult;
+import org.apache.kafka.common.ConsumerGroupState;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.bf2.admin.kafka.admin.model.AdminServerException;
+import org.bf2.admin.kafka.admin.model.ErrorType;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.bf2.admin.kafka.admin.model.Types.ConsumerGroupOffsetResetParameters.OffsetType;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class ConsumerGroupOperationsTest {
+
+    static final Pattern MATCH_ALL = Pattern.compile(".*");
+    static final Types.ConsumerGroupDescriptionSortParams PARTITION_ORDER =
+            new Types.ConsumerGroupDescriptionSortParams(Types.ConsumerGroupDescriptionOrderKey.PARTITION, Types.SortDirectionEnum.ASC);
+
+    static MemberDescription member(String id, TopicPartition... assignment) {
+        return new MemberDescription(id, "client-" + id, "localhost", new MemberAssignment(Set.of(assignment)));
+    }
+
+    static ConsumerGroupDescription group(MemberDescription... members) {
+        return new ConsumerGroupDescription("g1", false, List.of(members), "range", ConsumerGroupState.STABLE, null, Collections.emptySet());
+    }
+
+    final TopicPartition t0 = new TopicPartition("t1", 0);
+    final TopicPartition t1 = new TopicPartition("t1", 1);
+    final TopicPartition t2 = new TopicPartition("t1", 2);
+    final Map<TopicPartition, OffsetAndMetadata> groupOffsets = new HashMap<>();
+    final Map<TopicPartition, ListOffsetsResultInfo> topicOffsets = new HashMap<>();
+
+    {
+        for (TopicPartition partition : List.of(t0, t1, t2)) {
+            groupOffsets.put(partition, new OffsetAndMetadata(10L * partition.getPartition(), null));
+            topicOffsets.put(partition, new ListOffsetsResultInfo(100, -1, null));
+        }
+    }
+
+    Types.ConsumerGroup describe(ConsumerGroupDescription group, Pattern pattern, int partitionFilter) {
+        List<Types.ConsumerGroup> result = ConsumerGroupOperations.getConsumerGroupsDescription(pattern, PARTITION_ORDER, partitionFilter, List.of(group), groupOffsets, topicOffsets);
+        assertEquals(1, result.size());
+        return result.get(0);
+    }
+
+    static List<String> memberIds(Types.ConsumerGroup group) {
+        return group.getConsumers().stream().map(Types.Consumer::getMemberId).collect(Collectors.toList());
+    }
+
+    @Test
+    void testPartitionsMappedToAssignedMembers() {
+        Types.ConsumerGroup result = describe(group(member("m1", t0, t2), member("m2", t1), member("m3")), MATCH_ALL, -1);
+
+        // Idle member listed with partition -1
+        assertEquals(List.of("m3", "m1", "m2", "m1"), memberIds(result));
+        assertEquals(List.of(-1, 0, 1, 2), result.getConsumers().stream().map(Types.Consumer::getPartition).collect(Collectors.toList()));
+        assertEquals(List.of(0L, 100L, 90L, 80L), result.getConsumers().stream().map(Types.Consumer::getLag).collect(Collectors.toList()));
+        assertEquals(3, result.getMetrics().getActiveConsumers());
+        assertEquals(0, result.getMetrics().getUnassignedPartitions());
+    }
+
+    @Test
+    void testUnassignedPartitionsHaveNoMember() {
+        Types.ConsumerGroup result = describe(group(member("m1", t1)), MATCH_ALL, -1);
+
+        assertEquals("m1", memberIds(result).get(1));
+        assertNull(memberIds(result).get(0));
+        assertNull(memberIds(result).get(2));
+        assertEquals(2, result.getMetrics().getUnassignedPartitions());
+    }
+
+    @Test
+    void testEmptyGroupListsAllPartitions() {
+        Types.ConsumerGroup result = describe(group(), MATCH_ALL, -1);
+
+        assertEquals(3, result.getConsumers().size());
+        assertEquals(3, result.getMetrics().getUnassignedPartitions());
+    }
+
+    @Test
+    void testPartitionFilterExcludesIdleMembers() {
+        Types.ConsumerGroup result = describe(group(member("m1", t0, t1, t2), member("m2")), MATCH_ALL, 1);
+
+        assertEquals(List.of("m1"), memberIds(result));
+        assertEquals(1, result.getConsumers().get(0).getPartition());
+    }
+
+    @Test
+    void testNoMatchingTopicsHasNoConsumers() {
+        Types.ConsumerGroup result = describe(group(member("m1", t0), member("m2")), Pattern.compile("other"), -1);
+
+        assertTrue(result.getConsumers().isEmpty());
+        assertEquals(0, result.getMetrics().getUnassignedPartitions());
+    }
+
+    @Test
+    void testFilterOffsets() {
+        groupOffsets.put(new TopicPartition("t2", 1), new OffsetAndMetadata(0, null));
+
+        assertEquals(groupOffsets, ConsumerGroupOperations.filterOffsets(groupOffsets, MATCH_ALL, -1));
+        assertEquals(Set.of(t0, t1, t2), ConsumerGroupOperations.filterOffsets(groupOffsets, Pattern.compile("^t1$"), -1).keySet());
+        assertEquals(Set.of(t1, new TopicPartition("t2", 1)), ConsumerGroupOperations.filterOffsets(groupOffsets, MATCH_ALL, 1).keySet());
+        assertEquals(Set.of(t1), ConsumerGroupOperations.filterOffsets(groupOffsets, Pattern.compile("^t1$"), 1).keySet());
+        assertTrue(ConsumerGroupOperations.filterOffsets(null, MATCH_ALL, -1).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDescribeGroupRequestsEndOffsetsOfMatchingTopic() throws Exception {
+        KafkaAdminClient ac = mock(KafkaAdminClient.class);
+        AdminRequestBatcher batcher = mock(AdminRequestBatcher.class);
+        EndOffsetCache offsetCache = new EndOffsetCache();
+        offsetCache.config = mock(KafkaAdminConfigRetriever.class);
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(groupOffsets);
+        for (int i = 0; i < 300; i++) {
+            offsets.put(new TopicPartition("other-" + i, 0), new OffsetAndMetadata(0, null));
+        }
+
+        when(ac.describeConsumerGroups(List.of("g1"))).thenReturn(Future.succeededFuture(Map.of("g1", group(member("m1", t0, t1, t2)))));
+        when(batcher.listConsumerGroupOffsets(eq(ac), any())).thenReturn(Future.succeededFuture(Map.of("g1", offsets)));
+        when(ac.listOffsets(anyMap())).thenAnswer(invocation -> {
+            Map<TopicPartition, OffsetSpec> request = invocation.getArgument(0);
+            return Future.succeededFuture(request.keySet().stream().collect(Collectors.toMap(Function.identity(), partition -> new ListOffsetsResultInfo(100, -1, null))));
+        });
+
+        Types.ConsumerGroup result = ConsumerGroupOperations.describeGroup(ac, batcher, offsetCache, "g1", Pattern.compile("^t1$"), PARTITION_ORDER, -1)
+            .toCompletableFuture()
+            .get();
+
+        ArgumentCaptor<Map<TopicPartition, OffsetSpec>> request = ArgumentCaptor.forClass(Map.class);
+        verify(ac).listOffsets(request.capture());
+        assertEquals(Set.of(t0, t1, t2), request.getValue().keySet());
+        assertEquals(3, result.getConsumers().size());
+        assertEquals(List.of(100L, 90L, 80L), result.getConsumers().stream().map(Types.Consumer::getLag).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testParseFields() {
+        assertEquals(EnumSet.allOf(Types.ConsumerGroupField.class), Types.ConsumerGroupField.parse(null));
+        assertEquals(EnumSet.of(Types.ConsumerGroupField.GROUP_ID, Types.ConsumerGroupField.STATE),
+                     Types.ConsumerGroupField.parse("state"));
+        assertEquals(EnumSet.of(Types.ConsumerGroupField.GROUP_ID, Types.ConsumerGroupField.STATE, Types.ConsumerGroupField.METRICS),
+                     Types.ConsumerGroupField.parse("groupId, state,metrics"));
+        assertThrows(AdminServerException.class, () -> Types.ConsumerGroupField.parse("groupId,lag"));
+    }
+
+    static Admin listing(String... groupIds) {
+        Admin client = mock(Admin.class);
+        ListConsumerGroupsResult result = mock(ListConsumerGroupsResult.class);
+        Collection<org.apache.kafka.clients.admin.ConsumerGroupListing> listings = Arrays.stream(groupIds)
+                .map(groupId -> new org.apache.kafka.clients.admin.ConsumerGroupListing(groupId, false))
+                .collect(Collectors.toList());
+
+        when(result.all()).thenReturn(KafkaFuture.completedFuture(listings));
+        when(client.listConsumerGroups(any(ListConsumerGroupsOptions.class))).thenReturn(result);
+        return client;
+    }
+
+    @SuppressWarnings("unchecked")
+    static KafkaAdminClient describing() {
+        KafkaAdminClient ac = mock(KafkaAdminClient.class);
+
+        when(ac.describeConsumerGroups(anyList())).thenAnswer(invocation -> {
+            List<String> groupIds = invocation.getArgument(0);
+            return Future.succeededFuture(groupIds.stream()
+                .collect(Collectors.toMap(Function.identity(),
+                                          groupId -> new ConsumerGroupDescription(groupId, false, List.of(), "range", ConsumerGroupState.STABLE, null, Collections.emptySet()))));
+        });
+
+        return ac;
+    }
+
+    static Types.DeprecatedPageRequest page(int page, int size) {
+        Types.DeprecatedPageRequest pageRequest = new Types.DeprecatedPageRequest();
+        pageRequest.setPage(page);
+        pageRequest.setSize(size);
+        return pageRequest;
+    }
+
+    static Types.ConsumerGroupSortParams byName(Types.SortDirectionEnum direction) {
+        Types.ConsumerGroupSortParams sortParams = new Types.ConsumerGroupSortParams();
+        sortParams.setField(Types.ConsumerGroupOrderKey.NAME);
+        sortParams.setOrder(direction);
+        return sortParams;
+    }
+
+    @Test
+    void testGroupListWithoutLagOnlyDescribesGroups() throws Exception {
+        Admin client = listing("g1");
+        KafkaAdminClient ac = describing();
+
+        Types.PagedResponse<Types.ConsumerGroup> result = ConsumerGroupOperations.getGroupList(client, ac, null, null, MATCH_ALL, MATCH_ALL,
+                Set.of(), Types.ConsumerGroupField.parse("groupId,state"), page(1, 10), byName(Types.SortDirectionEnum.ASC))
+            .toCompletableFuture()
+            .get();
+
+        assertEquals(1, result.getItems().size());
+        Types.ConsumerGroup group = result.getItems().get(0);
+        assertEquals("g1", group.getGroupId());
+        assertEquals(ConsumerGroupState.STABLE, group.getState());
+        assertEquals(List.of(), group.getConsumers());
+        assertNull(group.getMetrics());
+
+        verify(ac).describeConsumerGroups(List.of("g1"));
+        verifyNoMoreInteractions(ac);
+    }
+
+    @Test
+    void testGroupListStatesPassedToKafka() throws Exception {
+        Admin client = listing("g1");
+        ArgumentCaptor<ListConsumerGroupsOptions> options = ArgumentCaptor.forClass(ListConsumerGroupsOptions.class);
+
+        ConsumerGroupOperations.getGroupList(client, describing(), null, null, MATCH_ALL, MATCH_ALL,
+                ConsumerGroupOperations.parseStates("stable,Empty"), Types.ConsumerGroupField.parse("state"), page(1, 10), byName(Types.SortDirectionEnum.ASC))
+            .toCompletableFuture()
+            .get();
+
+        verify(client).listConsumerGroups(options.capture());
+        assertEquals(Set.of(ConsumerGroupState.STABLE, ConsumerGroupState.EMPTY), options.getValue().states());
+        assertThrows(AdminServerException.class, () -> ConsumerGroupOperations.parseStates("stable,sleeping"));
+        assertTrue(ConsumerGroupOperations.parseStates(null).isEmpty());
+    }
+
+    @Test
+    void testGroupListDescribesOnlyRequestedPage() throws Exception {
+        String[] groupIds = IntStream.range(0, 25).mapToObj(i -> String.format("g%02d", i)).toArray(String[]::new);
+        KafkaAdminClient ac = describing();
+
+        Types.PagedResponse<Types.ConsumerGroup> result = ConsumerGroupOperations.getGroupList(listing(groupIds), ac, null, null, MATCH_ALL, MATCH_ALL,
+                Set.of(), Types.ConsumerGroupField.parse("state"), page(2, 10), byName(Types.SortDirectionEnum.DESC))
+            .toCompletableFuture()
+            .get();
+
+        List<String> expected = IntStream.range(5, 15).map(i -> 19 - i).mapToObj(i -> String.format("g%02d", i)).collect(Collectors.toList());
+
+        assertEquals(25, result.getTotal());
+        assertEquals(expected, result.getItems().stream().map(Types.ConsumerGroup::getGroupId).collect(Collectors.toList()));
+        verify(ac).describeConsumerGroups(argThat(requested -> requested.size() == 10 && requested.containsAll(expected)));
+        verifyNoMoreInteractions(ac);
+    }
+
+    KafkaAdminClient resetting(AdminRequestBatcher batcher, MemberDescription... members) {
+        KafkaAdminClient ac = mock(KafkaAdminClient.class);
+        List<TopicPartitionInfo> partitions = IntStream.range(0, 3)
+                .mapToObj(p -> new TopicPartitionInfo(List.of(), null, p, List.of()))
+                .collect(Collectors.toList());
+        Map<String, TopicDescription> topics = Map.of("t1", new TopicDescription(false, "t1", partitions, null, null));
+
+        when(ac.listConsumerGroupOffsets("g1")).thenReturn(Future.succeededFuture(groupOffsets));
+        when(ac.describeConsumerGroups(List.of("g1"))).thenReturn(Future.succeededFuture(Map.of("g1", group(members))));
+        when(ac.listOffsets(anyMap())).thenAnswer(args -> {
+            Map<TopicPartition, OffsetSpec> request = args.getArgument(0);
+            return Future.succeededFuture(request.keySet().stream().collect(Collectors.toMap(Function.identity(), topicOffsets::get)));
+        });
+        when(ac.alterConsumerGroupOffsets(eq("g1"), anyMap())).thenReturn(Future.succeededFuture());
+        when(ac.describeTopics(List.of("t1"))).thenReturn(Future.succeededFuture(topics));
+        when(batcher.describeTopics(ac, List.of("t1"))).thenReturn(Future.succeededFuture(topics));
+
+        return ac;
+    }
+
+    static Types.ConsumerGroupOffsetResetParameters reset(OffsetType offset, String value, boolean dryRun, Types.TopicsToResetOffset... topics) {
+        Types.ConsumerGroupOffsetResetParameters parameters = new Types.ConsumerGroupOffsetResetParameters(offset, value, List.of(topics));
+        parameters.setGroupId("g1");
+        parameters.setDryRun(dryRun);
+        return parameters;
+    }
+
+    @Test
+    void testResetGroupOffsetDryRunReturnsPlannedOffsets() throws Exception {
+        AdminRequestBatcher batcher = mock(AdminRequestBatcher.class);
+        KafkaAdminClient ac = resetting(batcher);
+
+        Types.PagedResponse<Types.TopicPartitionResetResult> result = ConsumerGroupOperations.resetGroupOffset(ac, batcher, reset(OffsetType.LATEST, null, true))
+            .toCompletableFuture()
+            .get();
+
+        assertEquals(List.of(new Types.TopicPartitionResetResult("t1", 0, 100L),
+                             new Types.TopicPartitionResetResult("t1", 1, 100L),
+                             new Types.TopicPartitionResetResult("t1", 2, 100L)),
+                     result.getItems());
+        verify(ac).listConsumerGroupOffsets("g1");
+        verify(ac).describeConsumerGroups(List.of("g1"));
+        verify(ac).listOffsets(argThat(request -> request.keySet().equals(groupOffsets.keySet())));
+        verify(batcher).describeTopics(ac, List.of("t1"));
+        verifyNoMoreInteractions(ac);
+    }
+
+    @Test
+    void testResetGroupOffsetAltersRequestedPartitions() throws Exception {
+        AdminRequestBatcher batcher = mock(AdminRequestBatcher.class);
+        KafkaAdminClient ac = resetting(batcher, member("m1"));
+
+        Types.PagedResponse<Types.TopicPartitionResetResult> result = ConsumerGroupOperations.resetGroupOffset(ac, batcher,
+                reset(OffsetType.ABSOLUTE, "5", false, new Types.TopicsToResetOffset("t1", List.of(1))))
+            .toCompletableFuture()
+            .get();
+
+        assertEquals(List.of(new Types.TopicPartitionResetResult("t1", 0, 0L),
+                             new Types.TopicPartitionResetResult("t1", 1, 5L),
+                             new Types.TopicPartitionResetResult("t1", 2, 20L)),
+                     result.getItems());
+        verify(ac).listConsumerGroupOffsets("g1");
+        verify(ac).listOffsets(Map.of(t1, OffsetSpec.LATEST));
+        verify(ac).alterConsumerGroupOffsets(eq("g1"), argThat(offsets -> offsets.size() == 1 && offsets.get(t1).getOffset() == 5));
+    }
+
+    @Test
+    void testResetGroupOffsetRejectsConsumedPartitions() {
+        AdminRequestBatcher batcher = mock(AdminRequestBatcher.class);
+        KafkaAdminClient ac = resetting(batcher, member("m1", t2));
+
+        var result = ConsumerGroupOperations.resetGroupOffset(ac, batcher, reset(OffsetType.EARLIEST, null, false, new Types.TopicsToResetOffset("t1", null)))
+            .toCompletableFuture();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+        assertEquals(ErrorType.GROUP_NOT_EMPTY, ((AdminServerException) thrown.getCause()).getError());
+        verify(ac, never()).alterConsumerGroupOffsets(any(), anyMap());
+    }
+
+    @Test
+    void testResetGroupOffsetInvalidPartitionPrecedesListOffsetsFailure() {
+        AdminRequestBatcher batcher = mock(AdminRequestBatcher.class);
+        KafkaAdminClient ac = resetting(batcher);
+        when(ac.listOffsets(anyMap())).thenReturn(Future.failedFuture(new UnknownTopicOrPartitionException("t1-5")));
+
+        var result = ConsumerGroupOperations.resetGroupOffset(ac, batcher, reset(OffsetType.EARLIEST, null, false, new Types.TopicsToResetOffset("t1", List.of(5))))
+            .toCompletableFuture();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+        assertEquals(ErrorType.TOPIC_PARTITION_INVALID, ((AdminServerException) thrown.getCause()).getError());
+        verify(ac, never()).alterConsumerGroupOffsets(any(), anyMap());
+    }
+
+    AdminRequestBatcher batcher() {
+        KafkaAdminConfigRetriever config = mock(KafkaAdminConfigRetriever.class);
+        when(config.getDescribeChunkSize()).thenReturn(10);
+        when(config.getDescribeChunkConcurrency()).thenReturn(1);
+        when(config.getGroupOffsetsConcurrency()).thenReturn(1);
+        HttpMetrics metrics = mock(HttpMetrics.class);
+        when(metrics.getRegistry()).thenReturn(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+
+        AdminRequestBatcher batcher = new AdminRequestBatcher();
+        batcher.config = config;
+        batcher.metrics = metrics;
+        return batcher;
+    }
+
+    Map<String, AsyncResult<List<Types.TopicPartitionResetResult>>> resetGroups(KafkaAdminClient ac, Types.ConsumerGroupsOffsetResetParameters parameters) throws Exception {
+        Map<String, AsyncResult<List<Types.TopicPartitionResetResult>>> results = new HashMap<>();
+
+        ConsumerGroupOperations.resetGroupOffsets(ac, batcher(), parameters, 2, results::put)
+            .toCompletionStage()
+            .toCompletableFuture()
+            .get();
+
+        return results;
+    }
+
+    @Test
+    void testResetGroupOffsetsListsTargetOffsetsOnce() throws Exception {
+        KafkaAdminClient ac = resetting(mock(AdminRequestBatcher.class));
+        when(ac.listConsumerGroupOffsets(anyString())).thenReturn(Future.succeededFuture(groupOffsets));
+        when(ac.describeConsumerGroups(List.of("g1", "g2"))).thenReturn(Future.succeededFuture(Map.of(
+            "g1", group(),
+            "g2", new ConsumerGroupDescription("g2", false, List.of(member("m1", t2)), "range", ConsumerGroupState.STABLE, null, Collections.emptySet()))));
+
+        Types.ConsumerGroupsOffsetResetParameters parameters = new Types.ConsumerGroupsOffsetResetParameters(List.of("g1", "g2", "g1"), OffsetType.LATEST, null,
+                List.of(new Types.TopicsToResetOffset("t1", null)));
+        var results = resetGroups(ac, parameters);
+
+        assertEquals(2, results.size());
+        assertEquals(List.of(new Types.TopicPartitionResetResult("t1", 0, 100L),
+                             new Types.TopicPartitionResetResult("t1", 1, 100L),
+                             new Types.TopicPartitionResetResult("t1", 2, 100L)),
+                     results.get("g1").result());
+        assertEquals(ErrorType.GROUP_NOT_EMPTY, ((AdminServerException) results.get("g2").cause()).getError());
+        verify(ac).listOffsets(argThat(request -> request.keySet().equals(groupOffsets.keySet())));
+        verify(ac).alterConsumerGroupOffsets(eq("g1"), anyMap());
+        verify(ac, never()).alterConsumerGroupOffsets(eq("g2"), anyMap());
+    }
+
+    @Test
+    void testResetGroupOffsetsInvalidPartitionFailsAllGroups() throws Exception {
+        KafkaAdminClient ac = resetting(mock(AdminRequestBatcher.class));
+        when(ac.listConsumerGroupOffsets(anyString())).thenReturn(Future.succeededFuture(groupOffsets));
+        when(ac.describeConsumerGroups(List.of("g1"))).thenReturn(Future.succeededFuture(Map.of("g1", group())));
+        when(ac.listOffsets(anyMap())).thenReturn(Future.failedFuture(new UnknownTopicOrPartitionException("t1-5")));
+
+        Types.ConsumerGroupsOffsetResetParameters parameters = new Types.ConsumerGroupsOffsetResetParameters(List.of("g1"), OffsetType.EARLIEST, null,
+                List.of(new Types.TopicsToResetOffset("t1", List.of(5))));
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> resetGroups(ac, parameters));
+        assertEquals(ErrorType.TOPIC_PARTITION_INVALID, ((AdminServerException) thrown.getCause()).getError());
+        verify(ac, never()).alterConsumerGroupOffsets(any(), anyMap());
+    }
+}
@@ -0,0 +1,124 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConsumerLagSamplerTest {
+
+    PrometheusMeterRegistry registry;
+    KafkaAdminConfigRetriever config;
+    ConsumerLagSampler target;
+
+    @BeforeEach
+    void setup() {
+        config = mock(KafkaAdminConfigRetriever.class);
+        when(config.getLagSamplerGroupInclude()).thenReturn("app-.*");
+        when(config.getLagSamplerGroupExclude()).thenReturn(Optional.of("app-test-.*"));
+        when(config.getLagSamplerMaxSeries()).thenReturn(100);
+
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        HttpMetrics metrics = mock(HttpMetrics.class);
+        when(metrics.getRegistry()).thenReturn(registry);
+
+        target = new ConsumerLagSampler();
+        target.config = config;
+        target.metrics = metrics;
+        target.lagHistory = mock(LagHistory.class);
+        target.initialize();
+    }
+
+    static Types.ConsumerGroup group(String groupId, Types.Consumer... consumers) {
+        Types.ConsumerGroup group = new Types.ConsumerGroup();
+        group.setGroupId(groupId);
+        group.setConsumers(new ArrayList<>(List.of(consumers)));
+        return group;
+    }
+
+    static Types.Consumer consumer(String groupId, String topic, int partition, long lag) {
+        Types.Consumer consumer = new Types.Consumer();
+        consumer.setGroupId(groupId);
+        consumer.setTopic(topic);
+        consumer.setPartition(partition);
+        consumer.setLag(lag);
+        return consumer;
+    }
+
+    Double gauge(String name, String... tags) {
+        Gauge gauge = registry.find(name).tags(tags).gauge();
+        return gauge != null ? gauge.value() : null;
+    }
+
+    @Test
+    void testGroupFilter() {
+        assertTrue(target.isIncluded("app-orders"));
+        assertFalse(target.isIncluded("app-test-orders"));
+        assertFalse(target.isIncluded("other"));
+    }
+
+    @Test
+    void testLagPublishedPerGroupTopicAndPartition() {
+        target.publish(List.of(group("g1",
+                                     consumer("g1", "t1", 0, 5),
+                                     consumer("g1", "t1", 1, 7),
+                                     consumer("g1", "t2", 0, 3),
+                                     consumer("g1", null, -1, 0)),
+                               group("g2")));
+
+        assertEquals(15.0, gauge(ConsumerLagSampler.GROUP_LAG, "group", "g1"));
+        assertEquals(0.0, gauge(ConsumerLagSampler.GROUP_LAG, "group", "g2"));
+        assertEquals(12.0, gauge(ConsumerLagSampler.TOPIC_LAG, "group", "g1", "topic", "t1"));
+        assertEquals(3.0, gauge(ConsumerLagSampler.TOPIC_LAG, "group", "g1", "topic", "t2"));
+        assertEquals(7.0, gauge(ConsumerLagSampler.PARTITION_LAG, "group", "g1", "topic", "t1", "partition", "1"));
+        assertEquals(2.0, gauge("consumer_lag_sampled_groups"));
+        assertEquals(0.0, gauge("consumer_lag_dropped_series"));
+    }
+
+    @Test
+    void testMaximumSeriesPrefersGroupsAndTopics() {
+        when(config.getLagSamplerMaxSeries()).thenReturn(4);
+
+        target.publish(List.of(group("g1",
+                                     consumer("g1", "t1", 0, 5),
+                                     consumer("g1", "t1", 1, 7)),
+                               group("g2",
+                                     consumer("g2", "t1", 0, 1))));
+
+        assertEquals(12.0, gauge(ConsumerLagSampler.GROUP_LAG, "group", "g1"));
+        assertEquals(1.0, gauge(ConsumerLagSampler.GROUP_LAG, "group", "g2"));
+        assertEquals(12.0, gauge(ConsumerLagSampler.TOPIC_LAG, "group", "g1", "topic", "t1"));
+        assertEquals(1.0, gauge(ConsumerLagSampler.TOPIC_LAG, "group", "g2", "topic", "t1"));
+        assertNull(gauge(ConsumerLagSampler.PARTITION_LAG));
+        assertEquals(3.0, gauge("consumer_lag_dropped_series"));
+    }
+
+    @Test
+    void testStaleSeriesRemoved() {
+        target.publish(List.of(group("g1", consumer("g1", "t1", 0, 5)),
+                               group("g2", consumer("g2", "t1", 0, 1))));
+
+        assertEquals(1.0, gauge(ConsumerLagSampler.GROUP_LAG, "group", "g2"));
+
+        target.publish(List.of(group("g1", consumer("g1", "t1", 0, 9))));
+
+        assertEquals(9.0, gauge(ConsumerLagSampler.GROUP_LAG, "group", "g1"));
+        assertEquals(9.0, gauge(ConsumerLagSampler.PARTITION_LAG, "group", "g1", "topic", "t1", "partition", "0"));
+        assertNull(gauge(ConsumerLagSampler.GROUP_LAG, "group", "g2"));
+        assertNull(gauge(ConsumerLagSampler.TOPIC_LAG, "group", "g2", "topic", "t1"));
+        assertEquals(3, target.series.size());
+    }
+}
@@ -0,0 +1,122 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TopicAuthorizationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EndOffsetCacheTest {
+
+    static final TopicPartition P0 = new TopicPartition("t1", 0);
+    static final TopicPartition P1 = new TopicPartition("t1", 1);
+
+    PrometheusMeterRegistry registry;
+    KafkaAdminConfigRetriever config;
+    EndOffsetCache target;
+
+    List<Set<TopicPartition>> requests;
+    List<CompletableFuture<Map<TopicPartition, Long>>> pending;
+    Function<Set<TopicPartition>, CompletionStage<Map<TopicPartition, Long>>> fetch;
+
+    @BeforeEach
+    void setup() {
+        config = mock(KafkaAdminConfigRetriever.class);
+        when(config.getEndOffsetCacheTtlMs()).thenReturn(60_000L);
+
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        HttpMetrics metrics = mock(HttpMetrics.class);
+        when(metrics.getRegistry()).thenReturn(registry);
+
+        target = new EndOffsetCache();
+        target.config = config;
+        target.metrics = metrics;
+        target.initialize();
+
+        requests = new ArrayList<>();
+        pending = new ArrayList<>();
+        fetch = partitions -> {
+            CompletableFuture<Map<TopicPartition, Long>> result = new CompletableFuture<>();
+            requests.add(Set.copyOf(partitions));
+            pending.add(result);
+            return result;
+        };
+    }
+
+    static Map<TopicPartition, Long> endOffsets(Set<TopicPartition> partitions) {
+        return partitions.stream().collect(Collectors.toMap(Function.identity(), p -> 100L + p.partition()));
+    }
+
+    @Test
+    void testConcurrentRequestsCoalesced() {
+        CompletableFuture<EndOffsetCache.EndOffsets> first = target.getEndOffsets(List.of(P0), fetch).toCompletableFuture();
+        CompletableFuture<EndOffsetCache.EndOffsets> second = target.getEndOffsets(List.of(P0, P1), fetch).toCompletableFuture();
+
+        // Second request only fetches the partition not already requested by the first
+        assertEquals(List.of(Set.of(P0), Set.of(P1)), requests);
+
+        pending.get(1).complete(endOffsets(requests.get(1)));
+        assertFalse(second.isDone());
+        pending.get(0).complete(endOffsets(requests.get(0)));
+
+        assertEquals(Map.of(P0, 100L), first.join().getOffsets());
+        assertEquals(Map.of(P0, 100L, P1, 101L), second.join().getOffsets());
+        assertEquals(1, registry.counter("end_offset_cache_coalesced").count());
+        assertEquals(2, registry.counter("end_offset_cache_misses").count());
+        assertTrue(target.pending.isEmpty());
+    }
+
+    @Test
+    void testCachedOffsetsReused() {
+        target.getEndOffsets(List.of(P0, P1), fetch);
+        pending.get(0).complete(endOffsets(requests.get(0)));
+
+        EndOffsetCache.EndOffsets result = target.getEndOffsets(List.of(P0, P1), fetch).toCompletableFuture().join();
+
+        assertEquals(1, requests.size());
+        assertEquals(Map.of(P0, 100L, P1, 101L), result.getOffsets());
+        assertEquals(2, registry.counter("end_offset_cache_hits").count());
+        assertEquals(Map.of(P1, 101L), target.getCached(List.of(P1), System.currentTimeMillis()));
+    }
+
+    @Test
+    void testFailedCoalescedRequestRetried() {
+        CompletableFuture<EndOffsetCache.EndOffsets> first = target.getEndOffsets(List.of(P0), fetch).toCompletableFuture();
+        CompletableFuture<EndOffsetCache.EndOffsets> second = target.getEndOffsets(List.of(P0), fetch).toCompletableFuture();
+
+        pending.get(0).completeExceptionally(new TopicAuthorizationException("Not authorized"));
+
+        assertTrue(first.isCompletedExceptionally());
+        // Second request fetches the partition using its own fetch function
+        assertEquals(2, requests.size());
+        pending.get(1).complete(endOffsets(requests.get(1)));
+        assertEquals(Map.of(P0, 100L), second.join().getOffsets());
+    }
+
+    @Test
+    void testDisabledCacheAlwaysFetches() {
+        when(config.getEndOffsetCacheTtlMs()).thenReturn(0L);
+
+        target.getEndOffsets(List.of(P0), fetch);
+        target.getEndOffsets(List.of(P0), fetch);
+
+        assertEquals(2, requests.size());
+        assertTrue(target.offsets.isEmpty());
+    }
+}
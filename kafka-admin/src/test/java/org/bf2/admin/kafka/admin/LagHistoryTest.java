@@ -0,0 +1,140 @@
+package org.bf2.admin.kafka.admin;
+
+import org.bf2.admin.kafka.admin.model.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LagHistoryTest {
+
+    KafkaAdminConfigRetriever config;
+    LagHistory target;
+
+    @BeforeEach
+    void setup() {
+        config = mock(KafkaAdminConfigRetriever.class);
+        when(config.getLagHistorySamples()).thenReturn(3);
+        when(config.getLagHistoryMinIntervalMs()).thenReturn(0L);
+        when(config.getLagHistoryMaxPartitions()).thenReturn(2);
+        when(config.getLagHistoryMaxGroups()).thenReturn(2);
+
+        target = new LagHistory();
+        target.config = config;
+    }
+
+    static Types.ConsumerGroup group(String groupId, long offsetsAge, Types.Consumer... consumers) {
+        Types.ConsumerGroup group = new Types.ConsumerGroup();
+        group.setGroupId(groupId);
+        group.setConsumers(List.of(consumers));
+        group.setOffsetsAge(offsetsAge);
+        return group;
+    }
+
+    static Types.Consumer consumer(String topic, int partition, long offset, long logEndOffset) {
+        return new Types.Consumer(null, "g1", topic, partition, offset, logEndOffset - offset, logEndOffset);
+    }
+
+    static Types.LagSample sample(long timestamp, long offset, long logEndOffset) {
+        return new Types.LagSample(timestamp, offset, logEndOffset);
+    }
+
+    @Test
+    void testRingBufferRetainsLatestSamples() {
+        Types.ConsumerGroup group = null;
+
+        for (int i = 0; i < 5; i++) {
+            // offsetsAge decreasing, so that timestamps are increasing
+            group = group("g1", 1000 - i * 100, consumer("t1", 0, i * 10, i * 10 + 5));
+            target.record(group);
+        }
+
+        List<Types.PartitionLagHistory> partitions = target.getHistory(group, Optional.empty()).getPartitions();
+        assertEquals(1, partitions.size());
+        assertEquals(List.of(20L, 30L, 40L), partitions.get(0).getSamples().stream().map(Types.LagSample::getOffset).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testMinimumIntervalBetweenSamples() {
+        when(config.getLagHistoryMinIntervalMs()).thenReturn(60_000L);
+
+        target.record(group("g1", 0, consumer("t1", 0, 0, 5)));
+        Types.ConsumerGroup group = group("g1", 0, consumer("t1", 0, 1, 5));
+        target.record(group);
+
+        assertEquals(1, target.getHistory(group, Optional.empty()).getPartitions().get(0).getSamples().size());
+    }
+
+    @Test
+    void testPartitionsAndGroupsBounded() {
+        Types.ConsumerGroup g1 = group("g1", 0,
+                                       consumer("t1", 0, 0, 5),
+                                       consumer("t1", 1, 0, 5),
+                                       consumer("t2", 0, 0, 5),
+                                       consumer(null, -1, 0, 0));
+        target.record(g1);
+
+        assertEquals(2, target.getHistory(g1, Optional.empty()).getPartitions().size());
+        assertEquals(2, target.getHistory(g1, Optional.of("t1")).getPartitions().size());
+        assertTrue(target.getHistory(g1, Optional.of("t2")).getPartitions().isEmpty());
+
+        Types.ConsumerGroup g3 = group("g3", 0, consumer("t1", 0, 0, 5));
+        target.record(group("g2", 0, consumer("t1", 0, 0, 5)));
+        target.record(g3);
+
+        assertTrue(target.getHistory(g1, Optional.empty()).getPartitions().isEmpty());
+        assertEquals(1, target.getHistory(g3, Optional.empty()).getPartitions().size());
+    }
+
+    @Test
+    void testHistoryLimitedToDescribedPartitions() {
+        // Sampled with credentials able to describe both topics
+        target.record(group("g1", 0,
+                            consumer("t1", 0, 0, 5),
+                            consumer("t2", 0, 0, 5)));
+
+        // Described by a client only able to see t1
+        Types.ConsumerGroup described = group("g1", 0, consumer("t1", 0, 1, 5));
+
+        List<Types.PartitionLagHistory> partitions = target.getHistory(described, Optional.empty()).getPartitions();
+        assertEquals(1, partitions.size());
+        assertEquals("t1", partitions.get(0).getTopic());
+        assertTrue(target.getHistory(described, Optional.of("t2")).getPartitions().isEmpty());
+        assertTrue(target.getHistory(group("g1", 0), Optional.empty()).getPartitions().isEmpty());
+    }
+
+    @Test
+    void testEstimateTimeLagInterpolated() {
+        // committed offset 150 was reached by the log end half way between the first two samples
+        List<Types.LagSample> samples = List.of(sample(1000, 0, 100),
+                                                sample(2000, 50, 200),
+                                                sample(3000, 150, 300));
+        assertEquals(1500L, LagHistory.estimateTimeLag(samples));
+        assertEquals(25d, LagHistory.lagRate(samples));
+    }
+
+    @Test
+    void testEstimateTimeLagExtrapolated() {
+        // log end grows by 100 per second, lag of 500 at the latest sample
+        List<Types.LagSample> samples = List.of(sample(1000, 0, 1000),
+                                                sample(2000, 0, 1100),
+                                                sample(3000, 700, 1200));
+        assertEquals(5000L, LagHistory.estimateTimeLag(samples));
+    }
+
+    @Test
+    void testEstimateTimeLagWithoutLagOrSamples() {
+        assertEquals(0L, LagHistory.estimateTimeLag(List.of(sample(1000, 10, 10))));
+        assertNull(LagHistory.estimateTimeLag(List.of(sample(1000, 0, 10))));
+        assertNull(LagHistory.estimateTimeLag(List.of()));
+        assertNull(LagHistory.lagRate(List.of(sample(1000, 0, 10))));
+    }
+}
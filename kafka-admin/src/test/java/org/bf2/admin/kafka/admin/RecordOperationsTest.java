@@ -1,5 +1,21 @@
 package org.bf2.admin.kafka.admin;
 
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.internals.DefaultPartitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.eclipse.microprofile.context.ManagedExecutor;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -10,9 +26,27 @@ import java.io.ByteArrayOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class RecordOperationsTest {
 
@@ -89,4 +123,595 @@ class RecordOperationsTest {
         }, null);
         assertEquals(RecordOperations.BINARY_DATA_MESSAGE, out);
     }
+
+    @ParameterizedTest
+    @CsvSource({
+        "Valid value,     5, Valid",
+        "Valid value,    20, Valid value",
+        "Gr\u00fc\u00dfe,          3, Gr\u00fc",
+        "\u65e5\u672c\u8a9e,           2, \u65e5\u672c",
+        "\u65e5\u672c\u8a9e,         100, \u65e5\u672c\u8a9e",
+        "a\ud83d\ude00b,    3, a\ud83d\ude00",
+    })
+    void testBytesToStringTruncated(String input, int maxValueLength, String expected) {
+        RecordOperations target = new RecordOperations();
+        assertEquals(expected, target.bytesToString(input.getBytes(StandardCharsets.UTF_8), maxValueLength));
+    }
+
+    @Test
+    void testBytesToStringChecksOnlyTruncatedPrefix() {
+        RecordOperations target = new RecordOperations();
+        byte[] bytes = {
+            'a', (byte) 0xc3, (byte) 0xa9, 'b', (byte) 0xff
+        };
+
+        assertEquals("a\u00e9b", target.bytesToString(bytes, 3));
+        assertEquals(RecordOperations.BINARY_DATA_MESSAGE, target.bytesToString(bytes, 4));
+        assertEquals(RecordOperations.BINARY_DATA_MESSAGE, target.bytesToString(bytes, null));
+    }
+
+    @Test
+    void testBytesToStringReusesDecoder() {
+        RecordOperations target = new RecordOperations();
+
+        assertEquals(RecordOperations.BINARY_DATA_MESSAGE, target.bytesToString("\uFFFD".getBytes(StandardCharsets.UTF_8), null));
+        // Decoder state is reset following a malformed value
+        assertEquals(RecordOperations.BINARY_DATA_MESSAGE, target.bytesToString(new byte[] {
+            (byte) 0xe6, (byte) 0x97
+        }, null));
+        assertEquals("\u00e9t\u00e9", target.bytesToString("\u00e9t\u00e9".getBytes(StandardCharsets.UTF_8), null));
+        assertEquals("\u00e9", target.bytesToString("\u00e9".getBytes(StandardCharsets.UTF_8), null));
+    }
+
+    /**
+     * Mock consumer returning the records appended to its partitions from the
+     * consumer's position on every poll, like a log.
+     */
+    static class LogConsumer extends MockConsumer<byte[], byte[]> {
+        final String topic;
+        final List<ConsumerRecord<byte[], byte[]>> log = new ArrayList<>();
+        int timestampProbes;
+        /**
+         * Number of polls returning no records, e.g. slow fetches following a seek
+         */
+        int emptyPolls;
+
+        LogConsumer(String topic, long... endOffsets) {
+            super(OffsetResetStrategy.EARLIEST);
+            this.topic = topic;
+            Node node = new Node(0, "localhost", 9092);
+            Node[] nodes = {
+                node
+            };
+            updatePartitions(topic, IntStream.range(0, endOffsets.length)
+                             .mapToObj(p -> new PartitionInfo(topic, p, node, nodes, nodes))
+                             .collect(Collectors.toList()));
+            updateBeginningOffsets(IntStream.range(0, endOffsets.length)
+                                   .boxed()
+                                   .collect(Collectors.toMap(p -> new TopicPartition(topic, p), p -> 0L)));
+            updateEndOffsets(IntStream.range(0, endOffsets.length)
+                             .boxed()
+                             .collect(Collectors.toMap(p -> new TopicPartition(topic, p), p -> endOffsets[p])));
+        }
+
+        LogConsumer append(int partition, long offset, long timestamp) {
+            log.add(record(topic, partition, offset, timestamp));
+            return this;
+        }
+
+        LogConsumer appendValue(int partition, long offset, long timestamp, String value) {
+            byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            log.add(new ConsumerRecord<>(topic, partition, offset, timestamp, TimestampType.CREATE_TIME, 0, valueBytes.length,
+                                         null, valueBytes, new RecordHeaders(), Optional.empty()));
+            return this;
+        }
+
+        LogConsumer append(int partition, long offset, long timestamp, String key) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            log.add(new ConsumerRecord<>(topic, partition, offset, timestamp, TimestampType.CREATE_TIME, keyBytes.length, 0,
+                                         keyBytes, new byte[0], new RecordHeaders(), Optional.empty()));
+            return this;
+        }
+
+        @Override
+        public synchronized ConsumerRecords<byte[], byte[]> poll(Duration timeout) {
+            if (emptyPolls > 0) {
+                emptyPolls--;
+                return ConsumerRecords.empty();
+            }
+
+            log.stream()
+                .filter(rec -> assignment().contains(new TopicPartition(rec.topic(), rec.partition())))
+                .forEach(this::addRecord);
+            return super.poll(timeout);
+        }
+
+        @Override
+        public synchronized Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(Map<TopicPartition, Long> timestampsToSearch) {
+            timestampProbes++;
+            Map<TopicPartition, OffsetAndTimestamp> result = new HashMap<>();
+
+            timestampsToSearch.forEach((p, target) -> result.put(p, log.stream()
+                    .filter(rec -> rec.partition() == p.partition() && rec.timestamp() >= target)
+                    .findFirst()
+                    .map(rec -> new OffsetAndTimestamp(rec.offset(), rec.timestamp()))
+                    .orElse(null)));
+
+            return result;
+        }
+    }
+
+    static ConsumerRecord<byte[], byte[]> record(String topic, int partition, long offset, long timestamp) {
+        return new ConsumerRecord<>(topic, partition, offset, timestamp, TimestampType.CREATE_TIME, 0, 0, null, new byte[0], new RecordHeaders(), Optional.empty());
+    }
+
+    static RecordOperations operations(int maxRecords) {
+        KafkaAdminConfigRetriever config = mock(KafkaAdminConfigRetriever.class);
+        when(config.getRecordSearchMaxRecords()).thenReturn(maxRecords);
+        when(config.getRecordSearchMaxBytes()).thenReturn(Long.MAX_VALUE);
+        when(config.getRecordSearchMaxTimeMs()).thenReturn(10_000L);
+
+        // End offset cache disabled, the mocked time to live is 0
+        EndOffsetCache offsetCache = new EndOffsetCache();
+        offsetCache.config = config;
+
+        HttpMetrics metrics = mock(HttpMetrics.class);
+        when(metrics.getRegistry()).thenReturn(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+
+        RecordOperations operations = new RecordOperations();
+        operations.config = config;
+        operations.offsetCache = offsetCache;
+        operations.metrics = metrics;
+        return operations;
+    }
+
+    static List<String> positions(Types.PagedResponse<Types.Record> response) {
+        return response.getItems()
+                .stream()
+                .map(rec -> rec.getPartition() + "-" + rec.getOffset())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void testConsumeLatestRecordsAcrossPartitions() {
+        LogConsumer consumer = new LogConsumer("t1", 5, 5);
+
+        for (int offset = 0; offset < 5; offset++) {
+            // Partition 1 is written to more recently than partition 0
+            consumer.append(0, offset, offset * 10L);
+            consumer.append(1, offset, offset * 10L + 5);
+        }
+
+        var response = operations(Integer.MAX_VALUE).consumeRecords(consumer, "t1", null, null, null, 3, List.of(), null, null, true, null, Map.of());
+
+        assertEquals(List.of("1-4", "0-4", "1-3"), positions(response));
+        // Both partitions reached their end offsets, no further polls required
+        assertEquals(Set.of(new TopicPartition("t1", 0), new TopicPartition("t1", 1)), consumer.paused());
+    }
+
+    @Test
+    void testConsumeFromOffsetPausesPartitionsOutsideLimit() {
+        LogConsumer consumer = new LogConsumer("t1", 10, 10);
+
+        for (int offset = 0; offset < 10; offset++) {
+            consumer.append(0, offset, offset);
+            consumer.append(1, offset, 100L + offset);
+        }
+
+        var response = operations(Integer.MAX_VALUE).consumeRecords(consumer, "t1", null, 0, null, 3, List.of(), null, null, true, null, Map.of());
+
+        assertEquals(List.of("0-0", "0-1", "0-2"), positions(response));
+        assertEquals(Set.of(new TopicPartition("t1", 0), new TopicPartition("t1", 1)), consumer.paused());
+    }
+
+    static ConsumerRecord<byte[], byte[]> record(int offset, long timestamp, TimestampType timestampType) {
+        return new ConsumerRecord<>("t1", 0, offset, timestamp, timestampType, 0, 0, null, new byte[0], new RecordHeaders(), Optional.empty());
+    }
+
+    @Test
+    void testSelectOldestContinuesAfterCreateTimeRecordNotRetained() {
+        TopRecords selected = new TopRecords(2, RecordOperations.recordOrder(false));
+        // Created out of order, the last record is older than those before it
+        var records = List.of(record(0, 10, TimestampType.CREATE_TIME),
+                              record(1, 20, TimestampType.CREATE_TIME),
+                              record(2, 30, TimestampType.CREATE_TIME),
+                              record(3, 1, TimestampType.CREATE_TIME));
+
+        assertFalse(RecordOperations.select(selected, records, false, Long.MAX_VALUE, new RecordScan(null)));
+        assertEquals(List.of(3L, 0L), selected.sorted().stream().map(ConsumerRecord::offset).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testSelectOldestCompleteAfterLogAppendTimeRecordNotRetained() {
+        TopRecords selected = new TopRecords(2, RecordOperations.recordOrder(false));
+        var records = List.of(record(0, 10, TimestampType.LOG_APPEND_TIME),
+                              record(1, 20, TimestampType.LOG_APPEND_TIME),
+                              record(2, 30, TimestampType.LOG_APPEND_TIME),
+                              record(3, 40, TimestampType.LOG_APPEND_TIME));
+        RecordScan scan = new RecordScan(null);
+
+        assertTrue(RecordOperations.select(selected, records, false, Long.MAX_VALUE, scan));
+        assertEquals(List.of(0L, 1L), selected.sorted().stream().map(ConsumerRecord::offset).collect(Collectors.toList()));
+        assertEquals(3, scan.records);
+    }
+
+    @Test
+    void testPlanLatestReadsOnlyNewestRecords() {
+        LogConsumer consumer = new LogConsumer("t1", 100, 100, 100, 100);
+
+        for (int offset = 0; offset < 100; offset++) {
+            // Partition 0 holds the newest records
+            consumer.append(0, offset, offset * 10L);
+            consumer.append(1, offset, offset);
+            consumer.append(2, offset, offset);
+            consumer.append(3, offset, offset);
+        }
+
+        consumer.assign(consumer.partitionsFor("t1")
+                        .stream()
+                        .map(p -> new TopicPartition(p.topic(), p.partition()))
+                        .collect(Collectors.toList()));
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(consumer.assignment());
+        Map<TopicPartition, Long> plan = new HashMap<>();
+        long target = LatestRecordsPlanner.plan(consumer, endOffsets, 10, 1000, plan);
+
+        assertEquals(Map.of(new TopicPartition("t1", 0), 90L,
+                            new TopicPartition("t1", 1), 100L,
+                            new TopicPartition("t1", 2), 100L,
+                            new TopicPartition("t1", 3), 100L),
+                     plan);
+        assertEquals(10, LatestRecordsPlanner.readCount(endOffsets, plan));
+        assertTrue(target > 800 && target <= 900, () -> "target " + target);
+        assertTrue(consumer.timestampProbes <= LatestRecordsPlanner.MAX_PROBES);
+    }
+
+    @Test
+    void testPlanLatestSkippedWhenLimitCoversAllPartitions() {
+        LogConsumer consumer = new LogConsumer("t1", 3, 2);
+        Map<TopicPartition, Long> endOffsets = Map.of(new TopicPartition("t1", 0), 3L, new TopicPartition("t1", 1), 2L);
+
+        Map<TopicPartition, Long> plan = new HashMap<>();
+
+        assertEquals(Long.MIN_VALUE, LatestRecordsPlanner.plan(consumer, endOffsets, 5, 1000, plan));
+        assertEquals(Map.of(new TopicPartition("t1", 0), 0L, new TopicPartition("t1", 1), 0L), plan);
+        assertEquals(0, consumer.timestampProbes);
+    }
+
+    @Test
+    void testConsumeLatestCorrectsShortPlan() {
+        final long now = System.currentTimeMillis();
+        LogConsumer consumer = new LogConsumer("t1", 10, 10);
+
+        for (int offset = 0; offset < 10; offset++) {
+            if (offset % 2 == 0) {
+                // Compacted partition, only even offsets remain
+                consumer.append(0, offset, now - 10_000 + offset * 1000L);
+            }
+            consumer.append(1, offset, now - 100_000 + offset);
+        }
+
+        var response = operations(Integer.MAX_VALUE).consumeRecords(consumer, "t1", null, null, null, 4, List.of(), null, null, true, null, Map.of());
+
+        assertEquals(List.of("0-8", "0-6", "1-9", "1-8"), positions(response));
+    }
+
+    @Test
+    void testConsumeLatestCorrectsPlanWithCreateTimesOutOfOrder() {
+        final long now = System.currentTimeMillis();
+        LogConsumer consumer = new LogConsumer("t1", 10, 10);
+
+        for (int offset = 0; offset < 10; offset++) {
+            // Partition 0's last records were created before its record at offset 5
+            consumer.append(0, offset, offset == 5 ? now - 100 : now - 100_000 + offset);
+            consumer.append(1, offset, now - 50_000 + offset);
+        }
+
+        var response = operations(Integer.MAX_VALUE).consumeRecords(consumer, "t1", null, null, null, 4, List.of(), null, null, true, null, Map.of());
+
+        // The plan reads partition 0 from offset 6, all of its records older than the planned timestamp
+        assertEquals(List.of("1-9", "1-8", "1-7", "1-6"), positions(response));
+    }
+
+    @Test
+    void testTopRecordsRetainsLimit() {
+        TopRecords selected = new TopRecords(2, RecordOperations.recordOrder(false));
+
+        assertTrue(selected.offer(record("t1", 0, 0, 30)));
+        assertTrue(selected.offer(record("t1", 0, 1, 20)));
+        assertTrue(selected.offer(record("t1", 1, 0, 10)));
+        assertFalse(selected.offer(record("t1", 1, 1, 40)));
+
+        assertEquals(2, selected.size());
+        assertEquals(List.of(10L, 20L), selected.sorted().stream().map(ConsumerRecord::timestamp).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testKeyPartitionMatchesDefaultPartitioner() {
+        Node node = new Node(0, "localhost", 9092);
+        Node[] nodes = {
+            node
+        };
+        List<PartitionInfo> partitions = IntStream.range(0, 7)
+                .mapToObj(p -> new PartitionInfo("t1", p, node, nodes, nodes))
+                .collect(Collectors.toList());
+        Cluster cluster = new Cluster("cluster", List.of(node), partitions, Set.of(), Set.of());
+
+        try (DefaultPartitioner partitioner = new DefaultPartitioner()) {
+            for (String key : List.of("", "k1", "order-1234", "\u00e9t\u00e9")) {
+                byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                assertEquals(partitioner.partition("t1", key, keyBytes, null, null, cluster),
+                             RecordOperations.keyPartition(keyBytes, partitions.size()));
+            }
+        }
+    }
+
+    @Test
+    void testConsumeLatestByKeyReadsOnlyKeyPartition() {
+        LogConsumer consumer = new LogConsumer("t1", 10, 10, 10, 10);
+        byte[] key = "k1".getBytes(StandardCharsets.UTF_8);
+        int keyPartition = RecordOperations.keyPartition(key, 4);
+
+        for (int offset = 0; offset < 10; offset++) {
+            for (int p = 0; p < 4; p++) {
+                consumer.append(p, offset, offset, offset % 3 == 0 ? "k1" : "k2");
+            }
+        }
+
+        var response = operations(Integer.MAX_VALUE).consumeRecords(consumer, "t1", null, null, null, 2, List.of(), null, "k1", true, null, Map.of());
+
+        assertEquals(List.of(keyPartition + "-9", keyPartition + "-6"), positions(response));
+        assertEquals(Set.of(new TopicPartition("t1", keyPartition)), consumer.assignment());
+        assertEquals(10, response.getRecordsScanned());
+        assertEquals(20L, response.getBytesScanned());
+    }
+
+    @Test
+    void testConsumeLatestByKeyStopsAfterOlderWindow() {
+        LogConsumer consumer = new LogConsumer("t1", 1200, 300);
+
+        for (int offset = 0; offset < 1200; offset++) {
+            consumer.append(0, offset, offset, offset == 100 || offset == 750 || offset == 1150 ? "k" : "x");
+        }
+        for (int offset = 0; offset < 300; offset++) {
+            consumer.append(1, offset, offset, offset == 50 ? "k" : "x");
+        }
+
+        // All partitions are read when the topic is produced with a custom partitioner
+        var response = operations(Integer.MAX_VALUE).consumeRecords(consumer, "t1", null, null, null, 2, List.of(), null, "k", false, null, Map.of());
+
+        assertEquals(List.of("0-1150", "0-750"), positions(response));
+        // Offsets before 700 of partition 0 cannot be later than the selected records and are not read
+        assertEquals(800, response.getRecordsScanned());
+        assertEquals(800L, response.getBytesScanned());
+    }
+
+    @Test
+    void testConsumeFromOffsetByKey() {
+        LogConsumer consumer = new LogConsumer("t1", 10, 10);
+
+        for (int offset = 0; offset < 10; offset++) {
+            consumer.append(0, offset, offset, offset % 4 == 0 ? "k" : "x");
+            consumer.append(1, offset, 100L + offset, offset % 4 == 1 ? "k" : "x");
+        }
+
+        var response = operations(Integer.MAX_VALUE).consumeRecords(consumer, "t1", null, 0, null, 3, List.of(), null, "k", false, null, Map.of());
+
+        assertEquals(List.of("0-0", "0-4", "0-8"), positions(response));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "needle,   false, '',          true",
+        "needle,   false, key,         false",
+        "needle,   false, value,       true",
+        "hdr,      false, value,       false",
+        "hdr,      false, headers,     true",
+        "k\\d+,   true,  key,         true",
+        "^needle$, true,  value,       false",
+        "^a needle, true, 'key,value', true",
+    })
+    void testRecordSearch(String query, boolean regex, String fields, boolean expected) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("h1", "hdr-value".getBytes(StandardCharsets.UTF_8));
+        ConsumerRecord<byte[], byte[]> rec = new ConsumerRecord<>("t1", 0, 0, 0, TimestampType.CREATE_TIME, 2, 15,
+                "k1".getBytes(StandardCharsets.UTF_8), "a needle in hay".getBytes(StandardCharsets.UTF_8), headers, Optional.empty());
+
+        RecordSearch search = RecordSearch.of(query, regex, fields.isEmpty() ? List.of() : List.of(fields.split(",")));
+
+        assertEquals(expected, search.test(rec));
+    }
+
+    @Test
+    void testRegexSearchAbandonedAfterDeadline() {
+        // Catastrophic backtracking, matching would not complete without the deadline
+        ConsumerRecord<byte[], byte[]> rec = new ConsumerRecord<>("t1", 0, 0, null, "a".repeat(40).getBytes(StandardCharsets.UTF_8));
+        RecordSearch search = RecordSearch.of("(.*a){50}", true, List.of("value")).until(Instant.now().plusMillis(100));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+            () -> assertThrows(RecordSearch.DeadlineExceededException.class, () -> search.test(rec)));
+    }
+
+    @Test
+    void testRegexSearchResumesFromAbandonedRecord() {
+        LogConsumer consumer = new LogConsumer("t1", 3);
+        consumer.appendValue(0, 0, 0, "b");
+        // Matching is abandoned at the deadline
+        consumer.appendValue(0, 1, 1, "a".repeat(40));
+        consumer.appendValue(0, 2, 2, "b");
+
+        RecordOperations operations = operations(Integer.MAX_VALUE);
+        when(operations.config.getRecordSearchMaxTimeMs()).thenReturn(200L);
+        RecordSearch search = RecordSearch.of("^b|(.*a){50}", true, List.of("value"));
+
+        var response = assertTimeoutPreemptively(Duration.ofSeconds(10),
+            () -> operations.consumeRecords(consumer, "t1", null, 0, null, 3, List.of(), null, null, true, search, Map.of()));
+
+        assertEquals(List.of("0-0"), positions(response));
+        assertEquals(Boolean.TRUE, response.getBudgetExhausted());
+        // The abandoned record is searched again when resuming
+        assertEquals("0:1", response.getResumeFrom());
+    }
+
+    @Test
+    void testRegexSearchMatchesBeforeDeadline() {
+        ConsumerRecord<byte[], byte[]> rec = new ConsumerRecord<>("t1", 0, 0, null, "a needle in hay".getBytes(StandardCharsets.UTF_8));
+        RecordSearch search = RecordSearch.of("n(e+)dle", true, List.of("value")).until(Instant.now().plusSeconds(60));
+
+        assertTrue(search.test(rec));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'0:1,1:2',  true",
+        "'0:1,0:2',  false",
+        "'0:1,00:2', false",
+        "'x:1,x:2',  true",
+    })
+    void testResumeFromDuplicatePartitionsInvalid(String resumeFrom, boolean expected) {
+        Types.RecordFilterParams params = new Types.RecordFilterParams();
+        params.setResumeFrom(resumeFrom);
+
+        assertEquals(expected, params.isResumeFromValid());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'',      '',  true",
+        "abc,     '',  true",
+        "abc,     abc, true",
+        "abc,     bc,  true",
+        "abc,     abcd, false",
+        "aab,     ab,  true",
+        "abab,    ba,  true",
+        "'',      a,   false",
+    })
+    void testSearchContains(String data, String target, boolean expected) {
+        assertEquals(expected, RecordSearch.contains(data.getBytes(StandardCharsets.UTF_8), target.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static LogConsumer searchLog() {
+        LogConsumer consumer = new LogConsumer("t1", 10, 10);
+
+        for (int offset = 0; offset < 10; offset++) {
+            consumer.append(0, offset, offset * 2L, offset % 3 == 0 ? "match" : "other");
+            consumer.append(1, offset, offset * 2L + 1, offset % 3 == 1 ? "match" : "other");
+        }
+
+        return consumer;
+    }
+
+    @Test
+    void testSearchFromOffsetResumes() {
+        RecordSearch search = RecordSearch.of("match", false, List.of());
+        var response = operations(Integer.MAX_VALUE).consumeRecords(searchLog(), "t1", null, 0, null, 3, List.of(), null, null, true, search, Map.of());
+
+        assertEquals(List.of("0-0", "1-1", "0-3"), positions(response));
+        assertEquals(Boolean.FALSE, response.getBudgetExhausted());
+        // Later matches of each partition were read but not returned
+        assertEquals("0:6,1:4", response.getResumeFrom());
+
+        response = operations(Integer.MAX_VALUE).consumeRecords(searchLog(), "t1", null, null, null, 3, List.of(), null, null, true, search,
+                                                                Types.RecordFilterParams.parsePositions(response.getResumeFrom()));
+
+        assertEquals(List.of("1-4", "0-6", "1-7"), positions(response));
+        // Partition 1 was read to its end
+        assertEquals("0:9", response.getResumeFrom());
+    }
+
+    @Test
+    void testSearchLatestRepollsWindowAfterEmptyPoll() {
+        RecordSearch search = RecordSearch.of("match", false, List.of("key"));
+        LogConsumer consumer = searchLog();
+        consumer.emptyPolls = 2;
+
+        var response = operations(Integer.MAX_VALUE).consumeRecords(consumer, "t1", null, null, null, 3, List.of(), null, null, true, search, Map.of());
+
+        assertEquals(List.of("0-9", "1-7", "0-6"), positions(response));
+        assertEquals(Boolean.FALSE, response.getBudgetExhausted());
+    }
+
+    @Test
+    void testSearchLatestWindowCutShortExhaustsBudget() {
+        RecordSearch search = RecordSearch.of("match", false, List.of("key"));
+        LogConsumer consumer = searchLog();
+        // Records are not fetched before the timeout
+        consumer.emptyPolls = Integer.MAX_VALUE;
+
+        RecordOperations operations = operations(Integer.MAX_VALUE);
+        when(operations.config.getRecordSearchMaxTimeMs()).thenReturn(300L);
+        var response = operations.consumeRecords(consumer, "t1", null, null, null, 3, List.of(), null, null, true, search, Map.of());
+
+        assertEquals(List.of(), positions(response));
+        assertEquals(Boolean.TRUE, response.getBudgetExhausted());
+    }
+
+    @Test
+    void testSearchStopsWhenBudgetExhausted() {
+        RecordSearch search = RecordSearch.of("match", false, List.of("key"));
+        var response = operations(8).consumeRecords(searchLog(), "t1", 1, null, "1970-01-01T00:00:00Z", 3, List.of(), null, null, true, search, Map.of());
+
+        assertEquals(List.of("1-1", "1-4", "1-7"), positions(response));
+
+        response = operations(6).consumeRecords(searchLog(), "t1", 1, null, "1970-01-01T00:00:00Z", 3, List.of(), null, null, true, search, Map.of());
+
+        assertEquals(List.of("1-1", "1-4"), positions(response));
+        assertEquals(6, response.getRecordsScanned());
+        assertEquals(Boolean.TRUE, response.getBudgetExhausted());
+        assertEquals("1:6", response.getResumeFrom());
+    }
+
+    @Test
+    void testDivideAlternatesPartitions() {
+        List<TopicPartition> partitions = IntStream.range(0, 5)
+                .mapToObj(p -> new TopicPartition("t1", p))
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(List.of(partitions.get(0), partitions.get(2), partitions.get(4)),
+                             List.of(partitions.get(1), partitions.get(3))),
+                     RecordOperations.divide(partitions, 2));
+    }
+
+    static LogConsumer wideLog() {
+        LogConsumer consumer = new LogConsumer("t1", 20, 20, 20, 20, 20, 20);
+
+        for (int offset = 0; offset < 20; offset++) {
+            for (int p = 0; p < 6; p++) {
+                consumer.append(p, offset, offset * 6L + p, offset % 4 == p % 4 ? "match" : "other");
+            }
+        }
+
+        return consumer;
+    }
+
+    @ParameterizedTest
+    @CsvSource(nullValues = "null", value = {
+        "null, null",
+        "0,    null",
+        "0,    match",
+        "null, match"
+    })
+    void testConsumeWithAdditionalConsumersMatchesSingleConsumer(Integer offset, String query) {
+        RecordSearch search = RecordSearch.of(query, false, List.of());
+        var expected = operations(Integer.MAX_VALUE).consumeRecords(wideLog(), "t1", null, offset, null, 10, List.of(), null, null, true, search, Map.of());
+
+        RecordOperations operations = operations(Integer.MAX_VALUE);
+        when(operations.config.getRecordFetchMaxConsumers()).thenReturn(3);
+        when(operations.config.getRecordFetchPartitionsPerConsumer()).thenReturn(2);
+        operations.executor = mock(ManagedExecutor.class);
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(operations.executor).execute(any());
+
+        LogConsumer consumer = wideLog();
+        List<LogConsumer> additional = List.of(wideLog(), wideLog());
+        var response = operations.consumeRecords(consumer, "t1", null, offset, null, 10, List.of(), null, null, true, search, Map.of(),
+                                                 count -> List.copyOf(additional.subList(0, count)));
+
+        assertEquals(positions(expected), positions(response));
+        assertEquals(expected.getResumeFrom(), response.getResumeFrom());
+        assertEquals(2, consumer.assignment().size());
+        additional.forEach(c -> assertEquals(2, c.assignment().size()));
+        assertEquals(1, operations.metrics.getRegistry().find("record_fetch_time").tags("consumers", "3", "result", "complete").timer().count());
+    }
 }
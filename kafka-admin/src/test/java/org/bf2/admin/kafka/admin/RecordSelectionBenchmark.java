@@ -0,0 +1,109 @@
+package org.bf2.admin.kafka.admin;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures selecting the latest {@code limit} records of {@code partitions}
+ * partitions, with {@code limit} records polled from each partition as when
+ * consuming the latest records of a topic. The selection by {@link TopRecords}
+ * is compared with the previous selection using a {@link TreeSet} trimmed on
+ * every insert.
+ *
+ * Not run as part of the build. After {@code mvn test-compile}, run {@link #main(String[])}
+ * or {@code org.openjdk.jmh.Main RecordSelectionBenchmark} using the module's test class path.
+ * Add {@code -prof gc} to report the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordSelectionBenchmark {
+
+    @Param({ "10", "100" })
+    int partitions;
+
+    @Param({ "20", "100" })
+    int limit;
+
+    List<List<ConsumerRecord<byte[], byte[]>>> polled;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        byte[] value = new byte[1024];
+        polled = new ArrayList<>(partitions);
+
+        for (int p = 0; p < partitions; p++) {
+            List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>(limit);
+            long timestamp = random.nextInt(10_000);
+
+            for (int offset = 0; offset < limit; offset++) {
+                timestamp += random.nextInt(100);
+                records.add(new ConsumerRecord<>("topic", p, offset, timestamp, TimestampType.CREATE_TIME, 0, value.length,
+                                                 null, value, new RecordHeaders(), Optional.empty()));
+            }
+
+            polled.add(records);
+        }
+    }
+
+    @Benchmark
+    public List<ConsumerRecord<byte[], byte[]>> topRecords() {
+        TopRecords selected = new TopRecords(limit, RecordOperations.recordOrder(true));
+        RecordScan scan = new RecordScan(null);
+
+        for (List<ConsumerRecord<byte[], byte[]>> records : polled) {
+            RecordOperations.select(selected, records, true, limit, scan);
+        }
+
+        return selected.sorted();
+    }
+
+    @Benchmark
+    public List<ConsumerRecord<byte[], byte[]>> treeSet() {
+        Comparator<ConsumerRecord<byte[], byte[]>> comparator = RecordOperations.recordOrder(true);
+        TreeSet<ConsumerRecord<byte[], byte[]>> selected = new TreeSet<>(comparator);
+
+        for (List<ConsumerRecord<byte[], byte[]>> records : polled) {
+            for (ConsumerRecord<byte[], byte[]> rec : records) {
+                selected.add(rec);
+
+                if (selected.size() > limit) {
+                    selected.pollLast();
+                }
+            }
+        }
+
+        return new ArrayList<>(selected);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RecordSelectionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
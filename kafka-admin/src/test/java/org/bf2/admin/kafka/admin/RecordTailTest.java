@@ -0,0 +1,235 @@
+package org.bf2.admin.kafka.admin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.bf2.admin.kafka.admin.model.AdminServerException;
+import org.bf2.admin.kafka.admin.model.ErrorType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecordTailTest {
+
+    static final String TOPIC = "t1";
+    static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+    static final TopicPartition P1 = new TopicPartition(TOPIC, 1);
+
+    KafkaAdminConfigRetriever config;
+    RecordOperations operations;
+    MockConsumer<byte[], byte[]> consumer;
+    AtomicInteger closed;
+
+    @BeforeEach
+    void setup() {
+        config = mock(KafkaAdminConfigRetriever.class);
+        when(config.getRecordTailMaxStreams()).thenReturn(2);
+        when(config.getRecordTailMaxTotalStreams()).thenReturn(4);
+        when(config.getRecordTailIdleTimeoutMs()).thenReturn(5000L);
+        when(config.getRecordTailMaxDurationMs()).thenReturn(60000L);
+
+        operations = new RecordOperations();
+        operations.config = config;
+        operations.mapper = new ObjectMapper();
+
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(TOPIC, List.of(partitionInfo(0), partitionInfo(1)));
+        consumer.updateBeginningOffsets(Map.of(P0, 0L, P1, 0L));
+        consumer.updateEndOffsets(Map.of(P0, 10L, P1, 3L));
+        closed = new AtomicInteger();
+    }
+
+    static PartitionInfo partitionInfo(int partition) {
+        Node node = new Node(0, "localhost", 9092);
+        Node[] nodes = {
+            node
+        };
+        return new PartitionInfo(TOPIC, partition, node, nodes, nodes);
+    }
+
+    static ConsumerRecord<byte[], byte[]> record(int partition, long offset, String value) {
+        return new ConsumerRecord<>(TOPIC, partition, offset, null, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    RecordTail tail(Integer partition, Integer offset, boolean serverSentEvents, List<String> include) {
+        RecordTail tail = operations.tailRecords(consumer, closed::incrementAndGet, TOPIC, partition, offset, null, include, null, serverSentEvents);
+        // Each poll advances the clock by one second
+        AtomicLong now = new AtomicLong();
+        tail.clock = () -> now.getAndAdd(1000);
+        return tail;
+    }
+
+    @Test
+    void testTailStartsAtEndOfPartitions() throws IOException {
+        RecordTail tail = tail(null, null, false, List.of());
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(record(0, 10, "v10"));
+            consumer.addRecord(record(1, 3, "v3"));
+        });
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        tail.write(output);
+
+        List<String> lines = List.of(output.toString(StandardCharsets.UTF_8).split("\n"));
+        assertEquals(2, lines.size());
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"offset\":10") && line.contains("\"value\":\"v10\"")), lines::toString);
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"offset\":3") && line.contains("\"value\":\"v3\"")), lines::toString);
+        assertTrue(consumer.closed());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void testTailServerSentEventsWithProjection() throws IOException {
+        RecordTail tail = tail(0, 5, true, List.of("offset"));
+        consumer.schedulePollTask(() -> consumer.addRecord(record(0, 5, "v5")));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        tail.write(output);
+
+        String events = output.toString(StandardCharsets.UTF_8);
+        assertTrue(events.startsWith("data: {"), events);
+        assertTrue(events.contains("\"offset\":5"), events);
+        assertFalse(events.contains("v5"), events);
+        // Keep-alive comments are written while no records arrive
+        assertTrue(events.contains("\n\n:\n\n"), events);
+        assertEquals(Set.of(P0), consumer.assignment());
+    }
+
+    @Test
+    void testTailOffsetBeyondEndStartsAtEnd() {
+        tail(1, 20, false, List.of());
+        assertEquals(3L, consumer.position(P1));
+    }
+
+    @Test
+    void testTailClosedWhenClientDisconnects() {
+        RecordTail tail = tail(null, null, false, List.of());
+        consumer.schedulePollTask(() -> consumer.addRecord(record(0, 10, "v10")));
+
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        assertDoesNotThrow(() -> tail.write(disconnected));
+        assertTrue(consumer.closed());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void testTailCancelledBeforeWriteClosesConsumer() throws IOException {
+        RecordTail tail = tail(null, null, false, List.of());
+
+        tail.cancel();
+        assertTrue(consumer.closed());
+        assertEquals(1, closed.get());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        tail.write(output);
+        tail.cancel();
+        assertEquals(0, output.size());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void testTailCancelledWhileWriting() throws IOException {
+        RecordTail tail = tail(null, null, false, List.of());
+        consumer.schedulePollTask(() -> consumer.addRecord(record(0, 10, "v10")));
+        // Connection closed while the records of the first poll are written
+        consumer.schedulePollTask(tail::cancel);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        tail.write(output);
+
+        assertEquals(1, output.toString(StandardCharsets.UTF_8).split("\n").length);
+        assertTrue(consumer.closed());
+        assertEquals(1, closed.get());
+
+        tail.cancel();
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void testTailUnknownTopicClosesConsumer() {
+        assertThrows(UnknownTopicOrPartitionException.class,
+            () -> operations.tailRecords(consumer, closed::incrementAndGet, "t2", null, null, null, List.of(), null, false));
+        assertTrue(consumer.closed());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void testRegistryLimitsStreamsPerPrincipal() {
+        HttpMetrics metrics = mock(HttpMetrics.class);
+        when(metrics.getRegistry()).thenReturn(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+
+        RecordTailRegistry registry = new RecordTailRegistry();
+        registry.config = config;
+        registry.metrics = metrics;
+        registry.initialize();
+
+        Runnable first = registry.open("alice");
+        registry.open("alice");
+        registry.open("bob");
+
+        AdminServerException error = assertThrows(AdminServerException.class, () -> registry.open("alice"));
+        assertEquals(ErrorType.TOO_MANY_REQUESTS, error.getError());
+
+        first.run();
+        first.run();
+        registry.open("alice");
+        assertEquals(3, registry.total.get());
+        assertEquals(Map.of("alice", 2, "bob", 1), registry.streams);
+    }
+
+    @Test
+    void testRegistryLimitsTotalStreams() {
+        HttpMetrics metrics = mock(HttpMetrics.class);
+        when(metrics.getRegistry()).thenReturn(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+
+        RecordTailRegistry registry = new RecordTailRegistry();
+        registry.config = config;
+        registry.metrics = metrics;
+        registry.initialize();
+
+        registry.open("alice");
+        registry.open("alice");
+        Runnable bob = registry.open("bob");
+        registry.open("carol");
+
+        AdminServerException error = assertThrows(AdminServerException.class, () -> registry.open("dave"));
+        assertEquals(ErrorType.TOO_MANY_REQUESTS, error.getError());
+        // Rejection by the principal's limit does not hold a total permit
+        assertThrows(AdminServerException.class, () -> registry.open("alice"));
+        assertEquals(4, registry.total.get());
+
+        bob.run();
+        registry.open("dave");
+        assertEquals(Map.of("alice", 2, "carol", 1, "dave", 1), registry.streams);
+    }
+}
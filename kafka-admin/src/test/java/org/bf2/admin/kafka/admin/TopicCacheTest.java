@@ -0,0 +1,134 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TopicCacheTest {
+
+    KafkaAdminConfigRetriever config;
+    PrometheusMeterRegistry registry;
+    TopicCache target;
+
+    @BeforeEach
+    void setup() {
+        config = mock(KafkaAdminConfigRetriever.class);
+        when(config.getTopicCacheTtlMs()).thenReturn(1000L);
+
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        HttpMetrics metrics = mock(HttpMetrics.class);
+        when(metrics.getRegistry()).thenReturn(registry);
+
+        target = new TopicCache();
+        target.config = config;
+        target.metrics = metrics;
+        target.initialize();
+    }
+
+    static Types.Topic topic(String name) {
+        Types.Topic topic = new Types.Topic();
+        topic.setName(name);
+        return topic;
+    }
+
+    @Test
+    void testCachedTopicsReturnedUntilExpired() {
+        Types.Topic t1 = topic("t1");
+        target.put(t1, "p1", 0);
+        target.put(topic("t2"), "p1", 500);
+
+        Map<String, TopicCache.CachedTopic> result = target.getAll(List.of("t1", "t2", "t3"), "p1", 900);
+        assertEquals(2, result.size());
+        assertEquals("t1", result.get("t1").getTopic().getName());
+        // Requests are given copies of the cached topics
+        assertNotSame(t1, result.get("t1").getTopic());
+        assertEquals(2.0, registry.counter("topic_cache_hits").count());
+        assertEquals(1.0, registry.counter("topic_cache_misses").count());
+        assertNotSame(result.get("t1").getTopic(), target.getAll(List.of("t1"), "p1", 900).get("t1").getTopic());
+
+        result = target.getAll(List.of("t1", "t2"), "p1", 1000);
+        assertEquals(1, result.size());
+        assertTrue(result.containsKey("t2"));
+        // Expired entry removed
+        assertEquals(1, target.topics.size());
+    }
+
+    @Test
+    void testOlderDescriptionDoesNotReplaceNewer() {
+        Types.Topic updated = topic("t1");
+        updated.setIsInternal(true);
+        target.put(updated, "p1", 200);
+        target.put(topic("t1"), "p1", 100);
+
+        assertEquals(Boolean.TRUE, target.getAll(List.of("t1"), "p1", 300).get("t1").getTopic().getIsInternal());
+    }
+
+    @Test
+    void testInvalidateAndRemoveExpired() {
+        target.put(topic("t1"), "p1", 0);
+        target.put(topic("t2"), "p1", 0);
+        target.put(topic("t3"), "p1", 500);
+
+        target.invalidate("t1");
+        assertEquals(2, target.topics.size());
+        assertEquals(1000, target.maximumAge(1000));
+
+        target.removeExpired(1000);
+        assertEquals(1, target.topics.size());
+        assertTrue(target.topics.containsKey("t3"));
+    }
+
+    @Test
+    void testCacheDisabled() {
+        when(config.getTopicCacheTtlMs()).thenReturn(0L);
+        target.put(topic("t1"), "p1", System.currentTimeMillis());
+
+        assertEquals(0, target.topics.size());
+        assertEquals(0, target.getAll(List.of("t1"), "p1", System.currentTimeMillis()).size());
+    }
+
+    @Test
+    void testConfigReturnedOnlyToPrincipalRetrievingIt() {
+        Types.ConfigEntry entry = new Types.ConfigEntry();
+        entry.setKey("retention.ms");
+        entry.setValue("1000");
+        Types.Topic t1 = topic("t1");
+        t1.setConfig(List.of(entry));
+        target.put(t1, "p1", 0);
+
+        assertEquals(List.of(entry), target.getAll(List.of("t1"), "p1", 100).get("t1").getTopic().getConfig());
+        // The description is shared, the configuration must be requested by other principals
+        TopicCache.CachedTopic cached = target.getAll(List.of("t1"), "p2", 100).get("t1");
+        assertEquals("t1", cached.getTopic().getName());
+        assertNull(cached.getTopic().getConfig());
+
+        target.invalidate("t1");
+        assertTrue(target.configs.isEmpty());
+    }
+
+    @Test
+    void testExpiredConfigRemoved() {
+        Types.Topic t1 = topic("t1");
+        t1.setConfig(List.of());
+        target.put(t1, "p1", 0);
+        target.put(topic("t1"), "p2", 500);
+
+        assertNull(target.getAll(List.of("t1"), "p1", 1000).get("t1").getTopic().getConfig());
+
+        target.removeExpired(1000);
+        assertTrue(target.configs.isEmpty());
+        assertEquals(1, target.topics.size());
+    }
+}
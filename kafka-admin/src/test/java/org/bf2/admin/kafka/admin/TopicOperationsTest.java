@@ -0,0 +1,197 @@
+package org.bf2.admin.kafka.admin;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.kafka.admin.Config;
+import io.vertx.kafka.admin.ConfigEntry;
+import io.vertx.kafka.admin.KafkaAdminClient;
+import io.vertx.kafka.admin.TopicDescription;
+import io.vertx.kafka.client.common.ConfigResource;
+import io.vertx.kafka.client.common.Node;
+import io.vertx.kafka.client.common.TopicPartitionInfo;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TopicOperationsTest {
+
+    static final int TOPIC_COUNT = 50;
+
+    KafkaAdminConfigRetriever config;
+    KafkaAdminClient client;
+    TopicOperations target;
+
+    @BeforeEach
+    void setup() {
+        config = mock(KafkaAdminConfigRetriever.class);
+        when(config.getTopicCacheTtlMs()).thenReturn(0L);
+        when(config.getDescribeChunkSize()).thenReturn(TOPIC_COUNT);
+        when(config.getDescribeChunkConcurrency()).thenReturn(1);
+        HttpMetrics metrics = mock(HttpMetrics.class);
+        when(metrics.getRegistry()).thenReturn(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+
+        target = new TopicOperations();
+        target.config = config;
+        target.topicCache = new TopicCache();
+        target.topicCache.config = config;
+        target.topicCache.metrics = metrics;
+        target.topicCache.initialize();
+        target.batcher = new AdminRequestBatcher();
+        target.batcher.config = config;
+        target.batcher.metrics = metrics;
+
+        // Topic `topic-NN` has NN + 1 partitions and retention.ms of (TOPIC_COUNT - NN)
+        client = mock(KafkaAdminClient.class);
+        when(client.listTopics()).thenReturn(Future.succeededFuture(IntStream.range(0, TOPIC_COUNT)
+                .mapToObj(TopicOperationsTest::topicName)
+                .collect(Collectors.toSet())));
+        when(client.describeTopics(anyList())).thenAnswer(invocation -> {
+            List<String> names = invocation.getArgument(0);
+            return Future.succeededFuture(names.stream().collect(Collectors.toMap(Function.identity(), TopicOperationsTest::description)));
+        });
+        when(client.describeConfigs(anyList())).thenAnswer(invocation -> {
+            List<ConfigResource> resources = invocation.getArgument(0);
+            return Future.succeededFuture(resources.stream().collect(Collectors.toMap(Function.identity(), TopicOperationsTest::config)));
+        });
+    }
+
+    static String topicName(int i) {
+        return String.format("topic-%02d", i);
+    }
+
+    static int topicIndex(String name) {
+        return Integer.parseInt(name.substring("topic-".length()));
+    }
+
+    static TopicDescription description(String name) {
+        Node node = new Node(true, "localhost", 0, "0", false, 9092, null);
+        List<TopicPartitionInfo> partitions = IntStream.rangeClosed(0, topicIndex(name))
+                .mapToObj(p -> new TopicPartitionInfo(List.of(node), node, p, List.of(node)))
+                .collect(Collectors.toList());
+        return new TopicDescription(false, name, partitions, null, Set.of());
+    }
+
+    static Config config(ConfigResource resource) {
+        long retention = TOPIC_COUNT - topicIndex(resource.getName());
+        return new Config(List.of(new ConfigEntry("retention.ms", String.valueOf(retention))));
+    }
+
+    static Types.DeprecatedPageRequest firstPage() {
+        Types.DeprecatedPageRequest pageRequest = new Types.DeprecatedPageRequest();
+        pageRequest.setPage(1);
+        pageRequest.setSize(10);
+        return pageRequest;
+    }
+
+    static Types.TopicSortParams sort(Types.TopicOrderKey key, Types.SortDirectionEnum order) {
+        Types.TopicSortParams sortParams = new Types.TopicSortParams();
+        sortParams.setField(key);
+        sortParams.setOrder(order);
+        return sortParams;
+    }
+
+    Types.TopicList list(Types.TopicOrderKey key, Types.SortDirectionEnum order) throws Exception {
+        return target.getTopicList(client, "principal", null, firstPage(), sort(key, order), count -> false).toCompletableFuture().get();
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Integer> requestedCounts(boolean describeTopics) {
+        ArgumentCaptor<List<?>> captor = ArgumentCaptor.forClass(List.class);
+
+        if (describeTopics) {
+            verify(client).describeTopics((List<String>) (List<?>) captor.capture());
+        } else {
+            verify(client).describeConfigs((List<ConfigResource>) (List<?>) captor.capture());
+        }
+
+        return captor.getAllValues().stream().map(List::size).collect(Collectors.toList());
+    }
+
+    static List<String> names(Types.TopicList topicList) {
+        return topicList.getItems().stream().map(Types.Topic::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    void testNameOrderDescribesOnlyRequestedPage() throws Exception {
+        Types.TopicList result = list(Types.TopicOrderKey.NAME, Types.SortDirectionEnum.DESC);
+
+        assertEquals(TOPIC_COUNT, result.getTotal());
+        assertEquals(IntStream.range(0, 10).mapToObj(i -> topicName(TOPIC_COUNT - 1 - i)).collect(Collectors.toList()), names(result));
+        assertEquals(List.of(10), requestedCounts(true));
+        assertEquals(List.of(10), requestedCounts(false));
+    }
+
+    @Test
+    void testPartitionsOrderConfiguresOnlyRequestedPage() throws Exception {
+        Types.TopicList result = list(Types.TopicOrderKey.PARTITIONS, Types.SortDirectionEnum.DESC);
+
+        assertEquals(IntStream.range(0, 10).mapToObj(i -> topicName(TOPIC_COUNT - 1 - i)).collect(Collectors.toList()), names(result));
+        assertEquals(List.of(TOPIC_COUNT), requestedCounts(true));
+        assertEquals(List.of(10), requestedCounts(false));
+    }
+
+    @Test
+    void testRetentionOrderConfiguresAllTopics() throws Exception {
+        Types.TopicList result = list(Types.TopicOrderKey.RETENTION_MS, Types.SortDirectionEnum.ASC);
+
+        // Retention is inverse to the topic index
+        assertEquals(IntStream.range(0, 10).mapToObj(i -> topicName(TOPIC_COUNT - 1 - i)).collect(Collectors.toList()), names(result));
+        assertEquals(List.of(TOPIC_COUNT), requestedCounts(true));
+        assertEquals(List.of(TOPIC_COUNT), requestedCounts(false));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamedNameOrderDescribesTopicsAsWritten() throws Exception {
+        when(config.getDescribeChunkSize()).thenReturn(4);
+
+        Types.TopicList result = target.getTopicList(client, "principal", null, firstPage(), sort(Types.TopicOrderKey.NAME, Types.SortDirectionEnum.ASC), count -> true)
+                .toCompletableFuture()
+                .get();
+
+        assertEquals(TOPIC_COUNT, result.getTotal());
+        assertTrue(result.getItems().isEmpty());
+        verify(client, never()).describeTopics(anyList());
+
+        List<String> names = new ArrayList<>();
+        result.getDeferredItems().forEach(topic -> {
+            assertEquals(1, topic.getConfig().size());
+            names.add(topic.getName());
+        });
+
+        assertEquals(IntStream.range(0, 10).mapToObj(TopicOperationsTest::topicName).collect(Collectors.toList()), names);
+        // Described one chunk at a time
+        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
+        verify(client, times(3)).describeTopics(captor.capture());
+        assertEquals(List.of(4, 4, 2), captor.getAllValues().stream().map(List::size).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testEmptyTopicListRequestsNoDescriptions() throws Exception {
+        when(client.listTopics()).thenReturn(Future.succeededFuture(Set.of()));
+
+        Types.TopicList result = list(Types.TopicOrderKey.PARTITIONS, Types.SortDirectionEnum.ASC);
+
+        assertEquals(0, result.getTotal());
+        verify(client, never()).describeTopics(anyList());
+        verify(client, never()).describeConfigs(anyList());
+    }
+}
@@ -0,0 +1,362 @@
+package org.bf2.admin.kafka.admin.handlers;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.bf2.admin.kafka.admin.HttpMetrics;
+import org.bf2.admin.kafka.admin.KafkaAdminConfigRetriever;
+import org.bf2.admin.kafka.admin.model.AdminServerException;
+import org.bf2.admin.kafka.admin.model.ErrorType;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClientCacheTest {
+
+    KafkaAdminConfigRetriever config;
+    PrometheusMeterRegistry registry;
+    AtomicInteger created;
+    ClientCache target;
+
+    @BeforeEach
+    void setup() {
+        config = mock(KafkaAdminConfigRetriever.class);
+        when(config.getClientCacheMaxSize()).thenReturn(2);
+        when(config.getClientCacheIdleTimeoutMs()).thenReturn(1000L);
+        when(config.getConsumerPoolMaxIdle()).thenReturn(1);
+        when(config.getConsumerPoolMaxTotal()).thenReturn(2);
+        when(config.getConsumerPoolIdleTimeoutMs()).thenReturn(500L);
+        when(config.getConsumerPoolMaxWaitMs()).thenReturn(10L);
+        when(config.getConsumerPoolLeakThresholdMs()).thenReturn(2000L);
+
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        HttpMetrics metrics = mock(HttpMetrics.class);
+        when(metrics.getRegistry()).thenReturn(registry);
+
+        ManagedExecutor executor = mock(ManagedExecutor.class);
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(executor).execute(any());
+
+        created = new AtomicInteger(0);
+
+        target = new ClientCache();
+        target.config = config;
+        target.metrics = metrics;
+        target.executor = executor;
+        target.initialize();
+    }
+
+    AdminClient newClient() {
+        created.incrementAndGet();
+        return Mockito.mock(AdminClient.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    Producer<String, String> newProducer() {
+        created.incrementAndGet();
+        return Mockito.mock(Producer.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    Consumer<byte[], byte[]> newConsumer() {
+        created.incrementAndGet();
+        return Mockito.mock(Consumer.class);
+    }
+
+    @Test
+    void testClientReusedForSameCredential() {
+        AdminClient first;
+        AdminClient second;
+
+        try (var lease = target.adminClient("credential-1", ClientCache.NO_EXPIRATION, this::newClient)) {
+            first = lease.get();
+        }
+        try (var lease = target.adminClient("credential-1", ClientCache.NO_EXPIRATION, this::newClient)) {
+            second = lease.get();
+        }
+
+        assertSame(first, second);
+        assertEquals(1, created.get());
+        assertEquals(1.0, registry.counter("client_cache_hits").count());
+        assertEquals(1.0, registry.counter("client_cache_misses").count());
+        verify(first, never()).close(any(Duration.class));
+    }
+
+    @Test
+    void testClientNotSharedBetweenCredentials() {
+        try (var lease1 = target.adminClient("credential-1", ClientCache.NO_EXPIRATION, this::newClient);
+             var lease2 = target.adminClient("credential-2", ClientCache.NO_EXPIRATION, this::newClient)) {
+            assertNotSame(lease1.get(), lease2.get());
+        }
+
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void testClientClosedWhenCacheDisabled() {
+        when(config.getClientCacheMaxSize()).thenReturn(0);
+        AdminClient client;
+
+        try (var lease = target.adminClient("credential-1", ClientCache.NO_EXPIRATION, this::newClient)) {
+            client = lease.get();
+            verify(client, never()).close(any(Duration.class));
+        }
+
+        verify(client, times(1)).close(any(Duration.class));
+        assertEquals(0, target.entries.size());
+    }
+
+    @Test
+    void testExpiredCredentialReplacedAndClosedAfterRelease() {
+        long expired = System.currentTimeMillis() - 1;
+        var expiredLease = target.adminClient("credential-1", expired, this::newClient);
+        AdminClient expiredClient = expiredLease.get();
+
+        try (var lease = target.adminClient("credential-1", ClientCache.NO_EXPIRATION, this::newClient)) {
+            assertNotSame(expiredClient, lease.get());
+        }
+
+        // Still in use by the first request
+        verify(expiredClient, never()).close(any(Duration.class));
+        expiredLease.close();
+        verify(expiredClient, times(1)).close(any(Duration.class));
+        assertEquals(1.0, registry.counter("client_cache_evictions", "reason", ClientCache.EVICTION_EXPIRED).count());
+    }
+
+    @Test
+    void testIdleClientEvicted() {
+        AdminClient client;
+
+        try (var lease = target.adminClient("credential-1", ClientCache.NO_EXPIRATION, this::newClient)) {
+            client = lease.get();
+        }
+
+        target.evictStale(System.currentTimeMillis());
+        verify(client, never()).close(any(Duration.class));
+
+        target.evictStale(System.currentTimeMillis() + 1000);
+        verify(client, times(1)).close(any(Duration.class));
+        assertEquals(0, target.entries.size());
+        assertEquals(1.0, registry.counter("client_cache_evictions", "reason", ClientCache.EVICTION_IDLE).count());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvictedAtMaximumSize() throws InterruptedException {
+        AdminClient client1;
+
+        try (var lease = target.adminClient("credential-1", ClientCache.NO_EXPIRATION, this::newClient)) {
+            client1 = lease.get();
+        }
+        Thread.sleep(2);
+        target.adminClient("credential-2", ClientCache.NO_EXPIRATION, this::newClient).close();
+        Thread.sleep(2);
+        target.adminClient("credential-3", ClientCache.NO_EXPIRATION, this::newClient).close();
+
+        assertEquals(2, target.entries.size());
+        verify(client1, times(1)).close(any(Duration.class));
+        assertEquals(1.0, registry.counter("client_cache_evictions", "reason", ClientCache.EVICTION_SIZE).count());
+    }
+
+    @Test
+    void testConsumerReturnedToPoolAndReused() {
+        Consumer<byte[], byte[]> first;
+        Consumer<byte[], byte[]> second;
+
+        try (var lease = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer)) {
+            first = lease.get();
+            assertEquals(1, target.borrowedConsumers.size());
+        }
+
+        verify(first, times(1)).unsubscribe();
+        assertEquals(0, target.borrowedConsumers.size());
+        assertEquals(1, target.idleConsumerCount());
+
+        try (var lease = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer)) {
+            second = lease.get();
+        }
+
+        assertSame(first, second);
+        assertEquals(1, created.get());
+        verify(first, never()).close(any(Duration.class));
+        assertEquals(1.0, registry.counter("consumer_pool_hits").count());
+        assertEquals(1.0, registry.counter("consumer_pool_misses").count());
+    }
+
+    @Test
+    void testInvalidatedConsumerClosed() {
+        Consumer<byte[], byte[]> consumer;
+
+        try (var lease = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer)) {
+            consumer = lease.get();
+            lease.invalidate();
+        }
+
+        verify(consumer, times(1)).close(any(Duration.class));
+        assertEquals(0, target.idleConsumerCount());
+        assertEquals(2, target.consumerPermits.availablePermits());
+    }
+
+    @Test
+    void testSurplusConsumerClosedBeyondMaximumIdle() {
+        var lease1 = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer);
+        var lease2 = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer);
+        assertNotSame(lease1.get(), lease2.get());
+
+        lease1.close();
+        lease2.close();
+
+        verify(lease1.get(), never()).close(any(Duration.class));
+        verify(lease2.get(), times(1)).close(any(Duration.class));
+        assertEquals(1, target.idleConsumerCount());
+        assertEquals(1, target.consumerPermits.availablePermits());
+    }
+
+    @Test
+    void testPoolExhaustedReclaimsIdleConsumer() {
+        var lease1 = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer);
+        var lease2 = target.consumer("credential-2", ClientCache.NO_EXPIRATION, this::newConsumer);
+        lease1.close();
+
+        // Idle consumer of credential-1 is closed to make room for credential-3
+        try (var lease3 = target.consumer("credential-3", ClientCache.NO_EXPIRATION, this::newConsumer)) {
+            verify(lease1.get(), times(1)).close(any(Duration.class));
+        }
+
+        lease2.close();
+        assertEquals(3, created.get());
+    }
+
+    @Test
+    void testPoolExhaustedRejectsRequest() {
+        try (var lease1 = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer);
+             var lease2 = target.consumer("credential-2", ClientCache.NO_EXPIRATION, this::newConsumer)) {
+            AdminServerException error = assertThrows(AdminServerException.class,
+                () -> target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer));
+            assertEquals(ErrorType.TOO_MANY_REQUESTS, error.getError());
+        }
+
+        assertEquals(2, created.get());
+        assertEquals(3, registry.timer("consumer_pool_wait_time").count());
+    }
+
+    @Test
+    void testPoolExhaustedWithoutWaitReturnsNull() {
+        try (var lease1 = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer);
+             var lease2 = target.consumer("credential-2", ClientCache.NO_EXPIRATION, this::newConsumer)) {
+            assertNull(target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer, false));
+        }
+
+        assertEquals(2, created.get());
+        assertEquals(3, registry.timer("consumer_pool_wait_time").count());
+        // Only the returned consumers hold permits, none is held for the rejected borrow
+        assertEquals(2, target.idleConsumerCount());
+        assertEquals(0, target.consumerPermits.availablePermits());
+    }
+
+    @Test
+    void testIdleConsumerEvicted() {
+        Consumer<byte[], byte[]> consumer;
+
+        try (var lease = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer)) {
+            consumer = lease.get();
+        }
+
+        target.evictStale(System.currentTimeMillis());
+        verify(consumer, never()).close(any(Duration.class));
+
+        target.evictStale(System.currentTimeMillis() + 500);
+        verify(consumer, times(1)).close(any(Duration.class));
+        // Entry (and admin client) remain cached until the client idle timeout
+        assertEquals(1, target.entries.size());
+        assertEquals(2, target.consumerPermits.availablePermits());
+    }
+
+    @Test
+    void testUnreturnedConsumerReportedAsLeak() {
+        var lease = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer);
+
+        target.evictStale(System.currentTimeMillis());
+        assertEquals(0.0, registry.counter("consumer_pool_leaks").count());
+
+        target.evictStale(System.currentTimeMillis() + 2000);
+        target.evictStale(System.currentTimeMillis() + 3000);
+        assertEquals(1.0, registry.counter("consumer_pool_leaks").count());
+
+        lease.close();
+        assertEquals(0, target.borrowedConsumers.size());
+    }
+
+    @Test
+    void testEvictedEntryClosesIdleConsumers() {
+        Consumer<byte[], byte[]> consumer;
+
+        try (var lease = target.consumer("credential-1", ClientCache.NO_EXPIRATION, this::newConsumer)) {
+            consumer = lease.get();
+        }
+
+        target.evictStale(System.currentTimeMillis() + 1000);
+
+        verify(consumer, times(1)).close(any(Duration.class));
+        assertEquals(0, target.entries.size());
+        assertEquals(2, target.consumerPermits.availablePermits());
+    }
+
+    @Test
+    void testProducerSharedAndClosedWithEntry() {
+        Producer<String, String> producer;
+
+        try (var lease1 = target.producer("credential-1", ClientCache.NO_EXPIRATION, this::newProducer);
+             var lease2 = target.producer("credential-1", ClientCache.NO_EXPIRATION, this::newProducer)) {
+            producer = lease1.get();
+            assertSame(producer, lease2.get());
+        }
+
+        assertEquals(1, created.get());
+        verify(producer, never()).close(any(Duration.class));
+
+        target.evictStale(System.currentTimeMillis() + 1000);
+        verify(producer, times(1)).close(any(Duration.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProducerBatchSizeGauge() {
+        for (var credential : List.of("credential-1", "credential-2")) {
+            target.producer(credential, ClientCache.NO_EXPIRATION, () -> {
+                Producer<String, String> producer = newProducer();
+                Metric metric = mock(Metric.class);
+                when(metric.metricValue()).thenReturn(created.get() * 100.0);
+                MetricName name = new MetricName("batch-size-avg", "producer-metrics", "", Map.of());
+                when(producer.metrics()).thenAnswer(invocation -> Map.of(name, metric));
+                return producer;
+            }).close();
+        }
+
+        assertEquals(150.0, registry.get("producer_batch_size_avg").gauge().value());
+    }
+}
@@ -0,0 +1,90 @@
+package org.bf2.admin.kafka.admin.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bf2.admin.kafka.admin.KafkaAdminConfigRetriever;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StreamingListOutputTest {
+
+    final ObjectMapper mapper = new ObjectMapper();
+
+    static Types.TopicList topicList(int count) {
+        Types.TopicList list = new Types.TopicList();
+        list.setItems(IntStream.range(0, count).mapToObj(i -> {
+            Types.Topic topic = new Types.Topic();
+            topic.setName("topic-" + i);
+            topic.setIsInternal(false);
+            topic.setPartitions(List.of());
+            return topic;
+        }).collect(Collectors.toList()));
+        list.setTotal(count);
+        list.setPage(1);
+        list.setSize(count);
+        list.setCacheAge(10L);
+        return list;
+    }
+
+    JsonNode stream(Types.PagedResponse<?> list) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new StreamingListOutput(StreamingListOutput.envelopeMapper(mapper), mapper.writer(), list).write(output);
+        return mapper.readTree(output.toByteArray());
+    }
+
+    @Test
+    void testStreamedTopicListMatchesSerializedList() throws Exception {
+        Types.TopicList list = topicList(100);
+        JsonNode result = stream(list);
+
+        assertEquals(mapper.valueToTree(list), result);
+        assertEquals(100, result.get("items").size());
+    }
+
+    @Test
+    void testStreamedEmptyListMatchesSerializedList() throws Exception {
+        Types.PagedResponse<Types.Topic> list = Types.PagedResponse.forItems(Types.Topic.class, List.of());
+        assertEquals(mapper.valueToTree(list), stream(list));
+    }
+
+    @Test
+    void testDeferredItemsStreamed() throws Exception {
+        Types.TopicList expected = topicList(3);
+        Types.TopicList list = topicList(0);
+        list.setTotal(3);
+        list.setSize(3);
+        list.setDeferredItems(expected.getItems());
+
+        assertEquals(mapper.valueToTree(expected), stream(list));
+    }
+
+    @Test
+    void testOnlyLargeListsStreamed() {
+        KafkaAdminConfigRetriever config = mock(KafkaAdminConfigRetriever.class);
+        ListResponses responses = new ListResponses();
+        responses.config = config;
+
+        when(config.getStreamingMinItems()).thenReturn(10);
+        assertFalse(responses.isStreamed(topicList(9)));
+        assertTrue(responses.isStreamed(topicList(10)));
+
+        when(config.getStreamingMinItems()).thenReturn(-1);
+        assertFalse(responses.isStreamed(topicList(10_000)));
+
+        // Lists retrieving their items as they are written are always streamed
+        Types.TopicList deferred = topicList(0);
+        deferred.setDeferredItems(List.of());
+        assertTrue(responses.isStreamed(deferred));
+    }
+}
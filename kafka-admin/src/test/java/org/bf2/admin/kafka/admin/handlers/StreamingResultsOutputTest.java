@@ -0,0 +1,47 @@
+package org.bf2.admin.kafka.admin.handlers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bf2.admin.kafka.admin.model.Types;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class StreamingResultsOutputTest {
+
+    final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void testResultsWrittenAsLinesUntilComplete() throws Exception {
+        StreamingResultsOutput<Types.ConsumerGroupResetOffsetStatus> target = new StreamingResultsOutput<>(mapper.writer());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        target.add(new Types.ConsumerGroupResetOffsetStatus("g1", List.of(new Types.TopicPartitionResetResult("t1", 0, 5L)), null));
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                target.write(output);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        target.add(new Types.ConsumerGroupResetOffsetStatus("g2", null, new Types.Error(409, "conflict")));
+        assertFalse(writer.isDone());
+        target.complete();
+        writer.get(5, TimeUnit.SECONDS);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("g1", mapper.readTree(lines[0]).get("groupId").asText());
+        assertEquals(5, mapper.readTree(lines[0]).get("items").get(0).get("offset").asInt());
+        assertFalse(mapper.readTree(lines[0]).has("error"));
+        assertEquals("g2", mapper.readTree(lines[1]).get("groupId").asText());
+        assertEquals(409, mapper.readTree(lines[1]).get("error").get("code").asInt());
+    }
+}
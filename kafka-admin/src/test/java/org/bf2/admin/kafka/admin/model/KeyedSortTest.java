@@ -0,0 +1,103 @@
+package org.bf2.admin.kafka.admin.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyedSortTest {
+
+    static Types.Topic topic(String name, int partitions, String retentionMs) {
+        Types.Topic topic = new Types.Topic();
+        topic.setName(name);
+        topic.setPartitions(IntStream.range(0, partitions).mapToObj(p -> new Types.Partition()).collect(Collectors.toList()));
+
+        Types.ConfigEntry entry = new Types.ConfigEntry();
+        entry.setKey(Types.TopicOrderKey.RETENTION_MS.getValue());
+        entry.setValue(retentionMs);
+        topic.setConfig(List.of(entry));
+
+        return topic;
+    }
+
+    static List<String> names(List<Types.Topic> topics) {
+        return topics.stream().map(Types.Topic::getName).collect(Collectors.toList());
+    }
+
+    static List<Types.Topic> randomTopics(int count) {
+        Random random = new Random(42);
+        return IntStream.range(0, count)
+                .mapToObj(i -> topic((random.nextBoolean() ? "Topic-" : "topic-") + random.nextInt(count),
+                                     1 + random.nextInt(count / 10),
+                                     String.valueOf(random.nextInt(count))))
+                .collect(Collectors.toList());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Types.TopicOrderKey.class)
+    void testTopicSortMatchesComparator(Types.TopicOrderKey key) {
+        List<Types.Topic> topics = randomTopics(1000);
+        Comparator<Types.Topic> comparator = new TopicComparator(key);
+
+        List<Types.Topic> ascending = TopicComparator.sort(new ArrayList<>(topics), key, false);
+        List<Types.Topic> descending = TopicComparator.sort(new ArrayList<>(topics), key, true);
+
+        for (int i = 1; i < topics.size(); i++) {
+            assertTrue(comparator.compare(ascending.get(i - 1), ascending.get(i)) <= 0);
+            assertTrue(comparator.compare(descending.get(i - 1), descending.get(i)) >= 0);
+        }
+    }
+
+    @Test
+    void testEqualKeysOrderedByName() {
+        List<Types.Topic> topics = new ArrayList<>(List.of(topic("c", 2, "1"), topic("B", 1, "1"), topic("a", 2, "1")));
+
+        assertEquals(List.of("B", "a", "c"), names(TopicComparator.sort(topics, Types.TopicOrderKey.PARTITIONS, false)));
+        assertEquals(List.of("a", "c", "B"), names(TopicComparator.sort(topics, Types.TopicOrderKey.PARTITIONS, true)));
+        assertEquals(List.of("a", "B", "c"), names(TopicComparator.sort(topics, Types.TopicOrderKey.RETENTION_MS, true)));
+    }
+
+    @Test
+    void testMissingRetentionPlacedLast() {
+        List<Types.Topic> topics = new ArrayList<>(List.of(topic("a", 1, null), topic("b", 1, "-1"), topic("c", 1, "10")));
+
+        assertEquals(List.of("c", "b", "a"), names(TopicComparator.sort(topics, Types.TopicOrderKey.RETENTION_MS, false)));
+        assertEquals(List.of("b", "c", "a"), names(TopicComparator.sort(topics, Types.TopicOrderKey.RETENTION_MS, true)));
+    }
+
+    @Test
+    void testNameSortIsStableAndIgnoresCase() {
+        List<String> values = new ArrayList<>(List.of("b", "A", "B", "a", "é", "É"));
+        List<String> expected = new ArrayList<>(values);
+        expected.sort(String.CASE_INSENSITIVE_ORDER);
+
+        assertEquals(expected, KeyedSort.byText((String v) -> v).sort(values, false));
+
+        List<String> descending = KeyedSort.byText((String v) -> v).sort(new ArrayList<>(values), true);
+        // Equal values retain their relative order
+        assertEquals(List.of("é", "É", "b", "B", "A", "a"), descending);
+    }
+
+    @Test
+    void testConsumerGroupSort() {
+        List<Types.ConsumerGroup> groups = new ArrayList<>();
+
+        for (String id : List.of("b", "C", "a")) {
+            Types.ConsumerGroup group = new Types.ConsumerGroup();
+            group.setGroupId(id);
+            groups.add(group);
+        }
+
+        ConsumerGroupComparator.sort(groups, Types.ConsumerGroupOrderKey.NAME, true);
+        assertEquals(List.of("C", "b", "a"), groups.stream().map(Types.ConsumerGroup::getGroupId).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,97 @@
+package org.bf2.admin.kafka.admin.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares sorting a large topic list using {@link TopicComparator} with sorting
+ * using the keys extracted once per topic by {@link TopicComparator#sort(List, Types.TopicOrderKey, boolean)}.
+ *
+ * Not run as part of the build. After {@code mvn test-compile}, run {@link #main(String[])}
+ * or {@code org.openjdk.jmh.Main TopicSortBenchmark} using the module's test class path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicSortBenchmark {
+
+    static final int TOPIC_COUNT = 50_000;
+
+    @Param({ "NAME", "PARTITIONS", "RETENTION_MS" })
+    Types.TopicOrderKey key;
+
+    List<Types.Topic> topics;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+
+        topics = IntStream.range(0, TOPIC_COUNT).mapToObj(i -> {
+            Types.Topic topic = new Types.Topic();
+            topic.setName((random.nextBoolean() ? "Topic-" : "topic-") + Integer.toHexString(random.nextInt()));
+            topic.setPartitions(IntStream.range(0, 1 + random.nextInt(50)).mapToObj(p -> new Types.Partition()).collect(Collectors.toList()));
+            // A typical topic has a few dozen configuration entries, retention.ms among them
+            topic.setConfig(IntStream.range(0, 30).mapToObj(c -> {
+                Types.ConfigEntry entry = new Types.ConfigEntry();
+                if (c == 20) {
+                    entry.setKey(Types.TopicOrderKey.RETENTION_MS.getValue());
+                    entry.setValue(random.nextInt(10) == 0 ? "-1" : String.valueOf(random.nextInt(Integer.MAX_VALUE)));
+                } else {
+                    entry.setKey("config." + c);
+                    entry.setValue(String.valueOf(c));
+                }
+                return entry;
+            }).collect(Collectors.toList()));
+            return topic;
+        }).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Types.Topic> comparator() {
+        List<Types.Topic> result = new ArrayList<>(topics);
+        result.sort(new TopicComparator(key));
+        return result;
+    }
+
+    /**
+     * Equivalent ordering to {@link #keyedSort()}, with topics having equal keys
+     * ordered by name.
+     */
+    @Benchmark
+    public List<Types.Topic> comparatorThenName() {
+        List<Types.Topic> result = new ArrayList<>(topics);
+        result.sort(new TopicComparator(key).thenComparing(Types.Topic::getName, String.CASE_INSENSITIVE_ORDER));
+        return result;
+    }
+
+    @Benchmark
+    public List<Types.Topic> keyedSort() {
+        return TopicComparator.sort(new ArrayList<>(topics), key, false);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TopicSortBenchmark.class.getSimpleName()).build()).run();
+    }
+}